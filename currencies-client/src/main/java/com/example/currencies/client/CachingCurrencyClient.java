@@ -0,0 +1,217 @@
+package com.example.currencies.client;
+
+import com.example.currencies.core.CurrencyConverter;
+import com.example.currencies.core.RateSnapshot;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts currencies in-process with the rates of a currencies service, instead of calling
+ * {@code POST /currencies/convert} for every conversion.
+ * <p>
+ * The client downloads the full table from {@code GET /currencies/rates} and keeps it in memory.
+ * Every {@code refreshInterval} it revalidates the table with {@code If-None-Match}; the service
+ * answers {@code 304} until CBR publishes new rates, so the table is transferred once per
+ * publication. Conversions only wait for the network before the first table has arrived. When a
+ * refresh fails, the client keeps converting with the table it has.
+ * <p>
+ * Thread-safe; one instance is meant to be shared by the whole application and closed on shutdown.
+ * <pre>{@code
+ * var client = CachingCurrencyClient.builder(URI.create("http://currencies:8081")).build();
+ * BigDecimal eur = client.convert("USD", "EUR", new BigDecimal("100"));
+ * }</pre>
+ */
+public final class CachingCurrencyClient implements AutoCloseable {
+
+    private static final System.Logger logger = System.getLogger(CachingCurrencyClient.class.getName());
+    private static final String RatesPath = "/currencies/rates";
+
+    private final HttpClient httpClient;
+    private final URI ratesUri;
+    private final Duration requestTimeout;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final CurrencyConverter converter = new CurrencyConverter();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Table table;
+
+    /**
+     * A downloaded rate table and the entity tag to revalidate it with.
+     */
+    private record Table(RateSnapshot snapshot, String eTag) {
+    }
+
+    private CachingCurrencyClient(Builder builder) {
+        this.httpClient = builder.httpClient != null ? builder.httpClient : HttpClient.newHttpClient();
+        this.ratesUri = builder.baseUri.resolve(RatesPath);
+        this.requestTimeout = builder.requestTimeout;
+        if (builder.refreshInterval.isZero()) {
+            this.scheduler = null;
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "currencies-client-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMs = builder.refreshInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param baseUri the address of the currencies service, e.g. {@code http://currencies:8081}
+     */
+    public static Builder builder(URI baseUri) {
+        return new Builder(baseUri);
+    }
+
+    /**
+     * @return {@code amount} of {@code fromCurrency} expressed in {@code toCurrency}
+     * @throws com.example.currencies.core.UnknownCurrencyException if a code is unknown or has no rate
+     * @throws UncheckedIOException if no table could be loaded yet
+     */
+    public BigDecimal convert(String fromCurrency, String toCurrency, BigDecimal amount) {
+        return converter.convert(snapshot(), fromCurrency, toCurrency, amount);
+    }
+
+    /**
+     * @return the rate of one unit of the currency in rubles
+     * @throws com.example.currencies.core.UnknownCurrencyException if the code is unknown or has no rate
+     * @throws UncheckedIOException if no table could be loaded yet
+     */
+    public BigDecimal rate(String code) {
+        return converter.rate(snapshot(), code);
+    }
+
+    /**
+     * @return the table conversions currently use, loading it first if there is none yet
+     */
+    public RateSnapshot snapshot() {
+        var current = table;
+        if (current == null) {
+            current = load();
+        }
+        return current.snapshot();
+    }
+
+    /**
+     * Revalidates the table with the service right away.
+     *
+     * @return {@code true} if a new table was loaded, {@code false} if the held one is current
+     */
+    public synchronized boolean refresh() throws IOException, InterruptedException {
+        var current = table;
+        var request = HttpRequest.newBuilder(ratesUri)
+                .header("Accept", "application/json")
+                .timeout(requestTimeout)
+                .GET();
+        if (current != null && current.eTag() != null) {
+            request.header("If-None-Match", current.eTag());
+        }
+
+        var response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 304) {
+            return false;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + ratesUri + " answered " + response.statusCode());
+        }
+
+        var snapshot = parse(response.body());
+        table = new Table(snapshot, response.headers().firstValue("ETag").orElse(null));
+        logger.log(System.Logger.Level.DEBUG, "currencies.client version={0} date={1}",
+                snapshot.version(), snapshot.date());
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private synchronized Table load() {
+        if (table == null) {
+            try {
+                refresh();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load rates from " + ratesUri, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading rates from " + ratesUri, e);
+            }
+        }
+        return table;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException | RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "currencies.client refresh failed, keeping version "
+                    + (table != null ? table.snapshot().version() : "none"), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private RateSnapshot parse(byte[] body) throws IOException {
+        var root = mapper.readTree(body);
+        Map<String, BigDecimal> rates = new HashMap<>();
+        root.required("rates").fields()
+                .forEachRemaining(entry -> rates.put(entry.getKey(), entry.getValue().decimalValue()));
+        return RateSnapshot.ofRates(root.required("version").asLong(),
+                LocalDate.parse(root.required("date").asText()), rates);
+    }
+
+    public static final class Builder {
+
+        private final URI baseUri;
+        private Duration refreshInterval = Duration.ofMinutes(1);
+        private Duration requestTimeout = Duration.ofSeconds(5);
+        private HttpClient httpClient;
+
+        private Builder(URI baseUri) {
+            this.baseUri = baseUri;
+        }
+
+        /**
+         * How often the table is revalidated; {@link Duration#ZERO} leaves it to {@link #refresh()}.
+         */
+        public Builder refreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        public CachingCurrencyClient build() {
+            return new CachingCurrencyClient(this);
+        }
+    }
+}
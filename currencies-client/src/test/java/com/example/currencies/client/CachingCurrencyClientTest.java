@@ -0,0 +1,139 @@
+package com.example.currencies.client;
+
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.core.UnknownCurrencyException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingCurrencyClientTest {
+
+    private static final String FirstTable = """
+            {"version":1,"date":"2024-10-10","rates":{"EUR":105.9269,"RUB":1,"USD":96.9483}}""";
+    private static final String SecondTable = """
+            {"version":2,"date":"2024-10-11","rates":{"EUR":106.1,"RUB":1,"USD":97.0001}}""";
+    // a corrected publication, served by a restarted service whose versions start over
+    private static final String RestartedTable = """
+            {"version":1,"date":"2024-10-10","rates":{"EUR":105.9269,"RUB":1,"USD":97.0001}}""";
+    // the first publication, served by a replica that has installed more versions
+    private static final String ReplicaTable = """
+            {"version":5,"date":"2024-10-10","rates":{"EUR":105.9269,"RUB":1,"USD":96.9483}}""";
+
+    private static final ObjectMapper Mapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private final AtomicReference<String> served = new AtomicReference<>(FirstTable);
+    private final AtomicInteger downloads = new AtomicInteger();
+    private HttpServer server;
+    private CachingCurrencyClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/currencies/rates", exchange -> {
+            var body = served.get();
+            var eTag = "W/\"" + ratesTag(body) + "-json\"";
+            exchange.getResponseHeaders().add("ETag", eTag);
+            if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                downloads.incrementAndGet();
+                var bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            }
+            exchange.close();
+        });
+        server.start();
+        client = CachingCurrencyClient.builder(URI.create("http://localhost:" + server.getAddress().getPort()))
+                .refreshInterval(Duration.ZERO)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void convertsInProcessWithExactRates() {
+        assertThat(client.convert("USD", "EUR", new BigDecimal("100.00"))).isEqualByComparingTo("91.523777");
+        assertThat(client.rate("USD")).isEqualByComparingTo("96.9483");
+        assertThatThrownBy(() -> client.rate("ABC")).isInstanceOf(UnknownCurrencyException.class);
+
+        assertThat(downloads).hasValue(1);
+    }
+
+    @Test
+    void downloadsTheTableOncePerPublication() throws Exception {
+        assertThat(client.snapshot().version()).isEqualTo(1);
+
+        assertThat(client.refresh()).isFalse();
+        assertThat(client.refresh()).isFalse();
+
+        served.set(SecondTable);
+        assertThat(client.refresh()).isTrue();
+        assertThat(client.snapshot().version()).isEqualTo(2);
+        assertThat(client.rate("USD")).isEqualByComparingTo("97.0001");
+        assertThat(downloads).hasValue(2);
+    }
+
+    @Test
+    void downloadsChangedRatesFromARestartedService() throws Exception {
+        assertThat(client.rate("USD")).isEqualByComparingTo("96.9483");
+
+        served.set(ReplicaTable);
+        assertThat(client.refresh()).isFalse();
+
+        served.set(RestartedTable);
+        assertThat(client.refresh()).isTrue();
+        assertThat(client.rate("USD")).isEqualByComparingTo("97.0001");
+        assertThat(downloads).hasValue(2);
+    }
+
+    @Test
+    void keepsTheLastTableWhenTheServiceFails() throws Exception {
+        assertThat(client.snapshot().version()).isEqualTo(1);
+
+        server.stop(0);
+
+        assertThatThrownBy(client::refresh).isInstanceOf(IOException.class);
+        assertThat(client.rate("USD")).isEqualByComparingTo("96.9483");
+    }
+
+    /**
+     * @return the tag the service derives from the rates of a table
+     */
+    private static String ratesTag(String body) {
+        try {
+            var root = Mapper.readTree(body);
+            Map<String, BigDecimal> rates = new HashMap<>();
+            root.required("rates").fields()
+                    .forEachRemaining(entry -> rates.put(entry.getKey(), entry.getValue().decimalValue()));
+            return RateSnapshot.ofRates(0, LocalDate.parse(root.required("date").asText()), rates).ratesTag();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.currencies.core;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rate lookup and conversion against a {@link RateSnapshot}. Stateless and thread-safe apart from
+ * what its {@link Rejections} do.
+ * <p>
+ * Amounts are converted through the ruble: {@code amount * rate(from) / rate(to)}, rounded half up
+ * to the scale of the product.
+ */
+public final class CurrencyConverter {
+
+    /**
+     * Decides what is thrown for a code that cannot be used with a snapshot.
+     */
+    @FunctionalInterface
+    public interface Rejections {
+
+        /**
+         * @param snapshot the snapshot the code was looked up in
+         * @param code     a code that is unknown or has no rate in the snapshot
+         * @return the exception to throw
+         */
+        RuntimeException rejectionFor(RateSnapshot snapshot, String code);
+    }
+
+    /**
+     * Throws a new {@link UnknownCurrencyException} for every rejected code.
+     */
+    public static final Rejections Strict = (snapshot, code) -> new UnknownCurrencyException(code, snapshot.isKnown(code));
+
+    private final Rejections rejections;
+
+    public CurrencyConverter() {
+        this(Strict);
+    }
+
+    public CurrencyConverter(Rejections rejections) {
+        this.rejections = rejections;
+    }
+
+    /**
+     * @return the rate of one unit of the currency in rubles
+     * @throws RuntimeException from the {@link Rejections} if the code is unknown or has no rate
+     */
+    public BigDecimal rate(RateSnapshot snapshot, String code) {
+        validate(snapshot, code);
+        return rateOf(snapshot, code);
+    }
+
+    /**
+     * @return {@code amount} of {@code fromCurrency} expressed in {@code toCurrency}
+     * @throws RuntimeException from the {@link Rejections} if either code is unknown or has no rate
+     */
+    public BigDecimal convert(RateSnapshot snapshot, String fromCurrency, String toCurrency, BigDecimal amount) {
+        validate(snapshot, fromCurrency);
+        validate(snapshot, toCurrency);
+
+        var fromCurrencyRate = rateOf(snapshot, fromCurrency);
+        var toCurrencyRate = rateOf(snapshot, toCurrency);
+
+        return amount.multiply(fromCurrencyRate).divide(toCurrencyRate, RoundingMode.HALF_UP);
+    }
+
+    private void validate(RateSnapshot snapshot, String code) {
+        if (!snapshot.isKnown(code)) {
+            throw rejections.rejectionFor(snapshot, code);
+        }
+    }
+
+    private BigDecimal rateOf(RateSnapshot snapshot, String code) {
+        var rate = snapshot.rate(code);
+        if (rate == null) {
+            throw rejections.rejectionFor(snapshot, code);
+        }
+        return rate;
+    }
+}
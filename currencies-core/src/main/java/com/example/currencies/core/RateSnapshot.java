@@ -0,0 +1,80 @@
+package com.example.currencies.core;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable, indexed view of one CBR publication: the rate of every currency against the ruble
+ * and the set of valid ISO codes. Lookups are constant time, and a snapshot can be shared
+ * freely between request threads.
+ *
+ * @param version    increases every time a new snapshot is installed
+ * @param date       publication date of the rates
+ * @param rates      rate per unit against the ruble, by ISO char code
+ * @param knownCodes every valid ISO char code, including those without a rate
+ */
+public record RateSnapshot(long version, LocalDate date, Map<String, BigDecimal> rates, Set<String> knownCodes) {
+
+    public RateSnapshot {
+        rates = Map.copyOf(rates);
+        knownCodes = Set.copyOf(knownCodes);
+    }
+
+    /**
+     * @return a snapshot in which exactly the currencies with a rate are known
+     */
+    public static RateSnapshot ofRates(long version, LocalDate date, Map<String, BigDecimal> rates) {
+        return new RateSnapshot(version, date, rates, rates.keySet());
+    }
+
+    public RateSnapshot withVersion(long version) {
+        return new RateSnapshot(version, date, rates, knownCodes);
+    }
+
+    /**
+     * @return {@code true} if both snapshots hold the same publication, whatever their versions
+     */
+    public boolean hasSameContentAs(RateSnapshot other) {
+        return Objects.equals(date, other.date) && rates.equals(other.rates) && knownCodes.equals(other.knownCodes);
+    }
+
+    /**
+     * Identifies the rates of the publication independently of the version, which only counts
+     * installations within one process: equal rates on the same date give the same tag on every
+     * replica and after restarts, and different rates give different tags.
+     *
+     * @return the publication date followed by a hash of the rates
+     */
+    public String ratesTag() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        new TreeMap<>(rates).forEach((code, rate) ->
+                digest.update((code + "=" + rate + ";").getBytes(StandardCharsets.UTF_8)));
+        return date + "-" + HexFormat.of().formatHex(digest.digest(), 0, 12);
+    }
+
+    /**
+     * @return the rate of the currency, or {@code null} if there is none in this publication or
+     * {@code code} is {@code null}
+     */
+    public BigDecimal rate(String code) {
+        // the immutable collections throw on null lookups; a missing code is just not known
+        return code == null ? null : rates.get(code);
+    }
+
+    public boolean isKnown(String code) {
+        return code != null && knownCodes.contains(code);
+    }
+}
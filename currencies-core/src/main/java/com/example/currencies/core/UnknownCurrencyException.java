@@ -0,0 +1,27 @@
+package com.example.currencies.core;
+
+/**
+ * Thrown by {@link CurrencyConverter#Strict} for a code that cannot be converted.
+ */
+public class UnknownCurrencyException extends RuntimeException {
+
+    private final String code;
+    private final boolean known;
+
+    public UnknownCurrencyException(String code, boolean known) {
+        super(known ? "No rate for currency " + code : "Unknown currency code " + code);
+        this.code = code;
+        this.known = known;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return {@code true} if the code is a valid ISO code that merely has no rate
+     */
+    public boolean isKnown() {
+        return known;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.currencies.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class CurrencyConverterTest {
+
+    private final RateSnapshot snapshot = new RateSnapshot(1, LocalDate.of(2024, 10, 10),
+            Map.of("USD", new BigDecimal("96.9483"), "EUR", new BigDecimal("105.9269"), "RUB", BigDecimal.ONE),
+            Set.of("USD", "EUR", "RUB", "XAU"));
+
+    private final CurrencyConverter converter = new CurrencyConverter();
+
+    @Test
+    void convertsThroughTheRuble() {
+        assertThat(converter.convert(snapshot, "USD", "EUR", new BigDecimal("100.00")))
+                .isEqualByComparingTo("91.523777");
+        assertThat(converter.convert(snapshot, "USD", "RUB", new BigDecimal("2")))
+                .isEqualByComparingTo("193.8966");
+        assertThat(converter.rate(snapshot, "EUR")).isEqualByComparingTo("105.9269");
+    }
+
+    @Test
+    void rejectsUnknownCodesAndCodesWithoutRate() {
+        var unknown = catchThrowableOfType(() -> converter.convert(snapshot, "ABC", "RUB", BigDecimal.TEN),
+                UnknownCurrencyException.class);
+        assertThat(unknown.getCode()).isEqualTo("ABC");
+        assertThat(unknown.isKnown()).isFalse();
+
+        var withoutRate = catchThrowableOfType(() -> converter.rate(snapshot, "XAU"), UnknownCurrencyException.class);
+        assertThat(withoutRate.isKnown()).isTrue();
+    }
+
+    @Test
+    void rejectsAMissingCode() {
+        var missing = catchThrowableOfType(() -> converter.convert(snapshot, null, "RUB", BigDecimal.TEN),
+                UnknownCurrencyException.class);
+        assertThat(missing.getCode()).isNull();
+        assertThat(missing.isKnown()).isFalse();
+        assertThat(snapshot.rate(null)).isNull();
+    }
+
+    @Test
+    void usesTheGivenRejections() {
+        var rejection = new IllegalStateException("rejected");
+        var custom = new CurrencyConverter((rejected, code) -> rejection);
+
+        assertThat(catchThrowableOfType(() -> custom.rate(snapshot, "ABC"), IllegalStateException.class))
+                .isSameAs(rejection);
+    }
+}
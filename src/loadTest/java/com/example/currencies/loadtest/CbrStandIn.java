@@ -0,0 +1,44 @@
+package com.example.currencies.loadtest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Local stand-in for cbr.ru serving the {@code XML_daily.xml} and {@code XML_valFull.xml}
+ * fixtures that {@code CBRServiceTest} uses.
+ */
+public class CbrStandIn implements AutoCloseable {
+
+    private final WireMockServer server;
+
+    public CbrStandIn(String fixturesDir) {
+        server = new WireMockServer(wireMockConfig()
+                .dynamicPort()
+                .usingFilesUnderDirectory(fixturesDir)
+                .disableRequestJournal());
+        server.start();
+        stub("/XML_daily.asp", "XML_daily.xml");
+        stub("/XML_valFull.asp", "XML_valFull.xml");
+    }
+
+    public String baseUrl() {
+        return server.baseUrl();
+    }
+
+    private void stub(String url, String bodyFile) {
+        server.stubFor(get(urlEqualTo(url))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/xml")
+                        .withBodyFile(bodyFile)));
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.currencies.loadtest;
+
+import com.example.currencies.dto.ConversionBatchDTO;
+import com.example.currencies.dto.CurrencyConvertDTO;
+import com.example.currencies.dto.CurrencyRateDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.protobuf.CurrenciesProtobuf;
+import com.example.currencies.request.ConversionBatchRequest;
+import com.example.currencies.request.ConversionRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON, CBOR and Protobuf for the {@code /currencies} payloads: encoded size and the
+ * time to encode and to decode one message, on the server's and on the client's side.
+ * <p>
+ * Payloads mirror real traffic: a single {@link CurrencyRateDTO} and {@link CurrencyConvertDTO},
+ * the full rate table of about 55 currencies and a batch of 100 conversions. Every measurement
+ * runs {@code codec.warmupSeconds} before it is timed for {@code codec.measureSeconds}.
+ * <p>
+ * {@code ./gradlew codecBenchmark -Dcodec.measureSeconds=5}
+ */
+public class CodecBenchmark {
+
+    private static final String[] Codes = {
+            "AUD", "AZN", "GBP", "AMD", "BYN", "BGN", "BRL", "HUF", "VND", "HKD", "GEL", "DKK", "AED", "USD",
+            "EUR", "EGP", "INR", "IDR", "KZT", "CAD", "QAR", "KGS", "CNY", "MDL", "NZD", "NOK", "PLN", "RON",
+            "XDR", "SGD", "TJS", "THB", "TRY", "TMT", "UZS", "UAH", "CZK", "SEK", "CHF", "RSD", "ZAR", "KRW",
+            "JPY", "BHD", "BOB", "DZD", "ETB", "IRR", "CUP", "MNT", "MMK", "NGN", "OMR", "SAR", "RUB"};
+
+    private interface Codec {
+        String name();
+
+        byte[] encode(Object value) throws Exception;
+
+        Object decode(byte[] bytes, Class<?> type) throws Exception;
+    }
+
+    private record JacksonCodec(String name, ObjectMapper mapper) implements Codec {
+        @Override
+        public byte[] encode(Object value) throws Exception {
+            return mapper.writeValueAsBytes(value);
+        }
+
+        @Override
+        public Object decode(byte[] bytes, Class<?> type) throws Exception {
+            return mapper.readValue(bytes, type);
+        }
+    }
+
+    private record ProtobufCodec(String name) implements Codec {
+        @Override
+        public byte[] encode(Object value) {
+            if (value instanceof CurrencyRateDTO rate) {
+                return CurrenciesProtobuf.write(rate);
+            }
+            if (value instanceof RateTableDTO table) {
+                return CurrenciesProtobuf.write(table);
+            }
+            if (value instanceof CurrencyConvertDTO convert) {
+                return CurrenciesProtobuf.write(convert);
+            }
+            if (value instanceof ConversionBatchRequest batch) {
+                return CurrenciesProtobuf.write(batch);
+            }
+            return CurrenciesProtobuf.write((ConversionBatchDTO) value);
+        }
+
+        @Override
+        public Object decode(byte[] bytes, Class<?> type) throws Exception {
+            if (type == CurrencyRateDTO.class) {
+                return CurrenciesProtobuf.readCurrencyRate(bytes);
+            }
+            if (type == RateTableDTO.class) {
+                return CurrenciesProtobuf.readRateTable(bytes);
+            }
+            if (type == CurrencyConvertDTO.class) {
+                return CurrenciesProtobuf.readCurrencyConvert(bytes);
+            }
+            if (type == ConversionBatchRequest.class) {
+                return CurrenciesProtobuf.readConversionBatchRequest(bytes);
+            }
+            return CurrenciesProtobuf.readConversionBatch(bytes);
+        }
+    }
+
+    private record Payload(String name, Object value) {
+    }
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Integer.parseInt(System.getProperty("codec.warmupSeconds", "2")));
+        long measureNanos = TimeUnit.SECONDS.toNanos(Integer.parseInt(System.getProperty("codec.measureSeconds", "3")));
+
+        var codecs = List.<Codec>of(
+                new JacksonCodec("json", mapper(new ObjectMapper())),
+                new JacksonCodec("cbor", mapper(new ObjectMapper(new CBORFactory()))),
+                new ProtobufCodec("protobuf"));
+        var payloads = payloads(new Random(42));
+
+        System.out.printf("%-18s %-9s %9s %14s %14s%n", "payload", "codec", "bytes", "encode ns/op", "decode ns/op");
+        long sink = 0;
+        for (Payload payload : payloads) {
+            for (Codec codec : codecs) {
+                var bytes = codec.encode(payload.value());
+                var decoded = codec.decode(bytes, payload.value().getClass());
+                if (!decoded.equals(payload.value())) {
+                    throw new IllegalStateException(codec.name() + " does not round-trip " + payload.name());
+                }
+                var encode = measure(() -> codec.encode(payload.value()), warmupNanos, measureNanos);
+                var decode = measure(() -> codec.decode(bytes, payload.value().getClass()), warmupNanos, measureNanos);
+                sink += encode.sink() + decode.sink();
+                System.out.printf("%-18s %-9s %9d %14.0f %14.0f%n",
+                        payload.name(), codec.name(), bytes.length, encode.nanosPerOp(), decode.nanosPerOp());
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static ObjectMapper mapper(ObjectMapper mapper) {
+        return mapper.registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static List<Payload> payloads(Random random) {
+        Map<String, BigDecimal> rates = new TreeMap<>();
+        for (String code : Codes) {
+            rates.put(code, code.equals("RUB") ? BigDecimal.ONE
+                    : BigDecimal.valueOf(1 + random.nextInt(15_000_000), 4 + random.nextInt(4)));
+        }
+
+        List<ConversionRequest> requests = new ArrayList<>();
+        List<CurrencyConvertDTO> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            var from = Codes[random.nextInt(Codes.length)];
+            var to = Codes[random.nextInt(Codes.length)];
+            var amount = BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+            requests.add(new ConversionRequest(from, to, amount));
+            results.add(new CurrencyConvertDTO(from, to,
+                    amount.multiply(rates.get(from)).divide(rates.get(to), RoundingMode.HALF_UP)));
+        }
+
+        return List.of(
+                new Payload("rate", new CurrencyRateDTO("USD", rates.get("USD"))),
+                new Payload("convert", results.get(0)),
+                new Payload("rateTable", new RateTableDTO(1, LocalDate.of(2024, 10, 10), rates)),
+                new Payload("batchRequest", new ConversionBatchRequest(requests)),
+                new Payload("batchResponse", new ConversionBatchDTO(results)));
+    }
+
+    private record Result(double nanosPerOp, long sink) {
+    }
+
+    private static Result measure(Operation operation, long warmupNanos, long measureNanos) throws Exception {
+        long sink = run(operation, warmupNanos)[2];
+        long[] measured = run(operation, measureNanos);
+        return new Result((double) measured[1] / measured[0], sink + measured[2]);
+    }
+
+    /**
+     * Runs the operation for at least the given time.
+     *
+     * @return the number of operations, the time they took and a value derived from their results
+     */
+    private static long[] run(Operation operation, long nanos) throws Exception {
+        long operations = 0;
+        long sink = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                sink += operation.run().hashCode();
+            }
+            operations += 100;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        return new long[]{operations, elapsed, sink};
+    }
+}
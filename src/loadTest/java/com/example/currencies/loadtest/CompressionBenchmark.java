@@ -0,0 +1,129 @@
+package com.example.currencies.loadtest;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares bandwidth and CPU of the large responses, {@code /currencies/rates} and an event list,
+ * served uncompressed ({@code identity}) and gzip-compressed from the cache of compressed bodies
+ * ({@code gzip-cached}). For reference it also times compressing the same body on every request
+ * ({@code gzip-per-request}), which the cache avoids.
+ * <p>
+ * Requests are sent one at a time against a local instance with CBR and KudaGo stand-ins; the CPU
+ * per request is the process CPU time, client included, so only the differences between the rows
+ * are meaningful.
+ * <p>
+ * {@code ./gradlew compressionBenchmark -Dcompression.requests=5000}
+ */
+public class CompressionBenchmark {
+
+    private record Endpoint(String name, String path) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = Integer.parseInt(System.getProperty("compression.requests", "2000"));
+        int warmup = Integer.parseInt(System.getProperty("compression.warmupRequests", "500"));
+        var dateFrom = LocalDate.now();
+        var kudaGoSettings = new KudaGoStandIn.Settings(5, 100, 3, 5, 2, 0.0, 0.0);
+
+        try (var cbr = new CbrStandIn(System.getProperty("compression.fixturesDir", "src/test/resources"));
+             var kudaGo = new KudaGoStandIn(kudaGoSettings, dateFrom);
+             var app = LoadTestHarness.startApplication(cbr, kudaGo)) {
+            var baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            var endpoints = List.of(
+                    new Endpoint("rates", "/currencies/rates"),
+                    new Endpoint("events", "/events/completableFuture?budget=100000&currency=RUB&dateFrom="
+                            + dateFrom + "&dateTo=" + dateFrom.plusDays(7)));
+
+            System.out.printf("%-8s %-17s %12s %14s %10s%n", "payload", "mode", "bytes/resp", "cpu us/resp", "ratio");
+            for (Endpoint endpoint : endpoints) {
+                var plain = request(baseUrl + endpoint.path(), null);
+                var gzip = request(baseUrl + endpoint.path(), "gzip");
+
+                run(client, plain, warmup);
+                var identity = run(client, plain, requests);
+                run(client, gzip, warmup);
+                var cached = run(client, gzip, requests);
+
+                var body = client.send(plain, HttpResponse.BodyHandlers.ofByteArray()).body();
+                var perRequest = gzipPerRequest(body, warmup, requests);
+
+                print(endpoint.name(), "identity", identity, identity);
+                print(endpoint.name(), "gzip-cached", cached, identity);
+                System.out.printf("%-8s %-17s %12.0f %14.1f %10s%n", endpoint.name(), "gzip-per-request",
+                        perRequest.bytes(), identity.cpuMicros() + perRequest.cpuMicros(), "(estimate)");
+            }
+        }
+    }
+
+    private record Measurement(double bytes, double cpuMicros) {
+    }
+
+    private static HttpRequest request(String url, String acceptEncoding) {
+        var builder = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (acceptEncoding != null) {
+            builder.header("Accept-Encoding", acceptEncoding);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Sends the request the given number of times; bodies are counted as received, not decompressed.
+     */
+    private static Measurement run(HttpClient client, HttpRequest request, int times) throws Exception {
+        var os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long bytes = 0;
+        long cpuStart = os.getProcessCpuTime();
+        for (int i = 0; i < times; i++) {
+            var response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+            }
+            bytes += response.body().length;
+        }
+        long cpuNanos = os.getProcessCpuTime() - cpuStart;
+        return new Measurement((double) bytes / times, cpuNanos / 1000.0 / times);
+    }
+
+    /**
+     * Times compressing the body at the default level, as a compressing server without a cache would.
+     */
+    private static Measurement gzipPerRequest(byte[] body, int warmup, int times) throws IOException {
+        var threads = ManagementFactory.getThreadMXBean();
+        long bytes = 0;
+        for (int i = 0; i < warmup; i++) {
+            bytes += gzip(body).length;
+        }
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < times; i++) {
+            bytes += gzip(body).length;
+        }
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+        return new Measurement((double) bytes / (warmup + times), cpuNanos / 1000.0 / times);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        var bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (var out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void print(String payload, String mode, Measurement measurement, Measurement identity) {
+        System.out.printf("%-8s %-17s %12.0f %14.1f %10.2f%n", payload, mode, measurement.bytes(),
+                measurement.cpuMicros(), measurement.bytes() / identity.bytes());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.currencies.loadtest;
+
+import com.example.currencies.CurrenciesApplication;
+import com.example.currencies.client.CachingCurrencyClient;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a conversion over HTTP ({@code POST /currencies/convert}, one round trip per
+ * conversion) with an in-process conversion by {@link CachingCurrencyClient}, against a local
+ * instance with a CBR stand-in. Both run the same sequence of currency pairs from one thread and
+ * report their latency distribution.
+ * <p>
+ * {@code ./gradlew conversionBenchmark -Dconversion.measureSeconds=10}
+ */
+public class ConversionBenchmark {
+
+    private static final String[] Codes = {"USD", "EUR", "CNY", "GBP", "JPY", "KZT", "TRY", "BYN", "RUB"};
+    private static final BigDecimal Amount = new BigDecimal("1234.56");
+
+    private interface Conversion {
+        BigDecimal convert(String from, String to) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Integer.parseInt(System.getProperty("conversion.warmupSeconds", "3")));
+        long measureNanos = TimeUnit.SECONDS.toNanos(Integer.parseInt(System.getProperty("conversion.measureSeconds", "5")));
+        var fixturesDir = System.getProperty("conversion.fixturesDir", "src/test/resources");
+
+        try (var cbr = new CbrStandIn(fixturesDir);
+             var app = new SpringApplicationBuilder(CurrenciesApplication.class)
+                     .properties("server.port=0", "cbr.base.url=" + cbr.baseUrl(), "rateLimit.enabled=false",
+                             "jfr.recording.enabled=false")
+                     .run()) {
+            var baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            var httpClient = HttpClient.newHttpClient();
+            var convertUri = URI.create(baseUrl + "/currencies/convert");
+
+            Conversion overHttp = (from, to) -> {
+                var request = HttpRequest.newBuilder(convertUri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"fromCurrency\":\"%s\",\"toCurrency\":\"%s\",\"amount\":%s}".formatted(from, to, Amount)))
+                        .timeout(Duration.ofSeconds(5))
+                        .build();
+                var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("convert answered " + response.statusCode() + ": " + response.body());
+                }
+                return BigDecimal.ONE;
+            };
+
+            try (var client = CachingCurrencyClient.builder(URI.create(baseUrl)).build()) {
+                Conversion inProcess = (from, to) -> client.convert(from, to, Amount);
+
+                System.out.printf("%-12s %12s %10s %10s %10s %10s%n", "mode", "conversions", "mean us", "p50 us", "p99 us", "max us");
+                report("http", measure(overHttp, warmupNanos, measureNanos));
+                report("in-process", measure(inProcess, warmupNanos, measureNanos));
+            }
+        }
+    }
+
+    private static Histogram measure(Conversion conversion, long warmupNanos, long measureNanos) throws Exception {
+        run(conversion, warmupNanos, new Histogram(3));
+        var histogram = new Histogram(3);
+        run(conversion, measureNanos, histogram);
+        return histogram;
+    }
+
+    private static void run(Conversion conversion, long nanos, Histogram histogram) throws Exception {
+        long sink = 0;
+        int pair = 0;
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            var from = Codes[pair % Codes.length];
+            var to = Codes[(pair / Codes.length + pair + 1) % Codes.length];
+            pair++;
+            long start = System.nanoTime();
+            sink += conversion.convert(from, to).signum();
+            histogram.recordValue(System.nanoTime() - start);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void report(String mode, Histogram histogram) {
+        System.out.printf("%-12s %12d %10.2f %10.2f %10.2f %10.2f%n", mode, histogram.getTotalCount(),
+                histogram.getMean() / 1000, histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getMaxValue() / 1000.0);
+    }
+}
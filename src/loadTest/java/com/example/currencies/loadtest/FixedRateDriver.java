@@ -0,0 +1,99 @@
+package com.example.currencies.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load generator: every scenario issues requests at a fixed arrival rate, whatever
+ * the response times are. Latency is measured from the intended send time, so a stalled server
+ * shows up in the percentiles instead of silently lowering the request rate (no coordinated omission).
+ */
+public class FixedRateDriver {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client;
+    private final int maxInFlight;
+
+    /**
+     * @param name          scenario name used in reports
+     * @param ratePerSecond arrival rate
+     * @param requests      supplies the next request to send
+     */
+    public record Scenario(String name, int ratePerSecond, Supplier<HttpRequest> requests) {
+    }
+
+    public FixedRateDriver(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Runs all scenarios concurrently for the given duration and waits for outstanding responses.
+     *
+     * @return one result per scenario, in the order given
+     */
+    public List<ScenarioResult> run(List<Scenario> scenarios, Duration duration) throws Exception {
+        ExecutorService pacers = Executors.newFixedThreadPool(scenarios.size());
+        try {
+            List<Future<ScenarioResult>> futures = new ArrayList<>();
+            for (var scenario : scenarios) {
+                futures.add(pacers.submit(() -> run(scenario, duration)));
+            }
+            List<ScenarioResult> results = new ArrayList<>();
+            for (var future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pacers.shutdownNow();
+        }
+    }
+
+    private ScenarioResult run(Scenario scenario, Duration duration) throws InterruptedException {
+        var result = new ScenarioResult(scenario.name(), duration);
+        var inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = 1_000_000_000L / scenario.ratePerSecond();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                result.recordOverflow();
+                continue;
+            }
+            client.sendAsync(scenario.requests().get(), HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, ex) -> {
+                        inFlight.release();
+                        result.record(System.nanoTime() - intended, response, ex);
+                    });
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            result.recordUnfinished(maxInFlight - inFlight.availablePermits());
+        }
+        return result;
+    }
+}
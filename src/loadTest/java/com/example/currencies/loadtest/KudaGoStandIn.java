@@ -0,0 +1,276 @@
+package com.example.currencies.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Local stand-in for the KudaGo events API. It serves {@code pages} pages of synthetic events
+ * with a uniformly distributed latency of {@code latencyMs ± jitterMs}, answers pages past the
+ * last one with 404 as KudaGo does, and randomly replaces responses with 500s and 429s.
+ * <p>
+ * Every event has a city and one or two categories, which are not part of the event JSON, and
+ * the {@code location}, {@code categories} and {@code is_free} query parameters narrow the events
+ * down before they are paged, as they do on KudaGo; a filtered crawl fetches fewer pages.
+ */
+public class KudaGoStandIn implements AutoCloseable {
+
+    public static final String EVENTS_PATH = "/events/";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String[] Locations = {"msk", "msk", "msk", "msk", "msk", "spb", "spb", "spb", "ekb", "kzn"};
+    private static final String[] Categories = {"concert", "theater", "exhibition", "party", "festival", "kids",
+            "education", "cinema"};
+
+    private final WireMockServer server;
+    private final FaultInjector faultInjector;
+
+    /**
+     * @param pages         number of non-empty pages
+     * @param pageSize      events per page
+     * @param datesPerEvent occurrences per event, spread around the requested window
+     * @param latencyMs     mean page latency
+     * @param jitterMs      maximum deviation from the mean latency
+     * @param errorRate     share of requests answered with 500
+     * @param throttleRate  share of requests answered with 429
+     */
+    public record Settings(int pages, int pageSize, int datesPerEvent, int latencyMs, int jitterMs,
+                           double errorRate, double throttleRate) {
+    }
+
+    public KudaGoStandIn(Settings settings, LocalDate dateFrom) {
+        faultInjector = new FaultInjector(new Catalog(settings, dateFrom), settings.errorRate(),
+                settings.throttleRate());
+        server = new WireMockServer(wireMockConfig()
+                .dynamicPort()
+                .disableRequestJournal()
+                .extensions(faultInjector));
+        server.start();
+
+        int lowerDelay = Math.max(0, settings.latencyMs() - settings.jitterMs());
+        int upperDelay = settings.latencyMs() + settings.jitterMs();
+
+        // the body is rendered by the FaultInjector, for the filter and page of the request
+        server.stubFor(get(urlPathEqualTo(EVENTS_PATH))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withUniformRandomDelay(lowerDelay, upperDelay)));
+    }
+
+    public String baseUrl() {
+        return server.baseUrl();
+    }
+
+    /**
+     * @return number of page requests served so far, including injected failures
+     */
+    public long requests() {
+        return faultInjector.requests.get();
+    }
+
+    /**
+     * @return number of response body bytes served so far
+     */
+    public long bytesServed() {
+        return faultInjector.bytes.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+
+    /**
+     * One event with the attributes KudaGo filters on.
+     */
+    private record SyntheticEvent(Map<String, Object> json, String location, Set<String> categories,
+                                  boolean free) {
+    }
+
+    /**
+     * The synthetic events, and their pages rendered once per filter.
+     */
+    private static class Catalog {
+
+        private final int pageSize;
+        private final List<SyntheticEvent> events;
+        private final Map<String, List<byte[]>> pages = new ConcurrentHashMap<>();
+
+        Catalog(Settings settings, LocalDate dateFrom) {
+            this.pageSize = settings.pageSize();
+            this.events = new ArrayList<>(settings.pages() * settings.pageSize());
+            for (int page = 1; page <= settings.pages(); page++) {
+                addPage(settings, dateFrom, page);
+            }
+        }
+
+        private void addPage(Settings settings, LocalDate dateFrom, int page) {
+            var random = new Random(page);
+            var windowStart = dateFrom.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+
+            for (int i = 0; i < settings.pageSize(); i++) {
+                int id = (page - 1) * settings.pageSize() + i + 1;
+                boolean free = random.nextInt(5) == 0;
+
+                List<Map<String, Object>> dates = new ArrayList<>(settings.datesPerEvent());
+                long firstStart = windowStart - (long) (settings.datesPerEvent() / 2) * 86_400L;
+                for (int d = 0; d < settings.datesPerEvent(); d++) {
+                    long start = firstStart + d * 86_400L + random.nextInt(12) * 3_600L;
+                    dates.add(Map.of("start", start, "end", start + 7_200L));
+                }
+
+                var event = new LinkedHashMap<String, Object>();
+                event.put("id", id);
+                event.put("title", "Событие " + id);
+                event.put("price", free ? "" : price(random));
+                event.put("is_free", free);
+                event.put("dates", dates);
+
+                // a separate sequence, so that the event JSON does not depend on the attributes
+                var attributes = new Random(id * 31L);
+                Set<String> categories = new TreeSet<>();
+                categories.add(Categories[attributes.nextInt(Categories.length)]);
+                if (attributes.nextBoolean()) {
+                    categories.add(Categories[attributes.nextInt(Categories.length)]);
+                }
+                events.add(new SyntheticEvent(event, Locations[attributes.nextInt(Locations.length)], categories,
+                        free));
+            }
+        }
+
+        /**
+         * @return the page of the events matching the filter, or {@code null} past the last page
+         */
+        byte[] page(String location, String categories, String free, int page) {
+            var key = location + "|" + categories + "|" + free;
+            var filtered = pages.computeIfAbsent(key, ignored -> render(location, categories, free));
+            return page >= 1 && page <= filtered.size() ? filtered.get(page - 1) : null;
+        }
+
+        private List<byte[]> render(String location, String categories, String free) {
+            Set<String> wanted = categories == null ? Set.of() : new TreeSet<>(Arrays.asList(categories.split(",")));
+            Boolean wantedFree = free == null ? null : Boolean.valueOf(free);
+            List<Map<String, Object>> matching = new ArrayList<>();
+            for (SyntheticEvent event : events) {
+                if ((location == null || location.equals(event.location()))
+                        && (wanted.isEmpty() || event.categories().stream().anyMatch(wanted::contains))
+                        && (wantedFree == null || wantedFree == event.free())) {
+                    matching.add(event.json());
+                }
+            }
+
+            int pageCount = (matching.size() + pageSize - 1) / pageSize;
+            List<byte[]> rendered = new ArrayList<>(pageCount);
+            for (int page = 1; page <= pageCount; page++) {
+                var body = new LinkedHashMap<String, Object>();
+                body.put("count", matching.size());
+                body.put("next", page < pageCount ? EVENTS_PATH + "?page=" + (page + 1) : null);
+                body.put("previous", page > 1 ? EVENTS_PATH + "?page=" + (page - 1) : null);
+                int from = (page - 1) * pageSize;
+                body.put("results", matching.subList(from, Math.min(from + pageSize, matching.size())));
+                try {
+                    rendered.add(mapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return rendered;
+        }
+    }
+
+    private static String price(Random random) {
+        int from = 100 * (1 + random.nextInt(30));
+        return switch (random.nextInt(3)) {
+            case 0 -> from + " рублей";
+            case 1 -> "от " + from + " до " + (from * 3) + " рублей";
+            default -> "вход по билетам";
+        };
+    }
+
+    /**
+     * Counts served pages and bytes, replaces a share of the responses with 500 or 429, and renders
+     * the page of the request otherwise.
+     */
+    static class FaultInjector implements ResponseDefinitionTransformerV2 {
+
+        private final double errorRate;
+        private final double throttleRate;
+        private final Catalog catalog;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        FaultInjector(Catalog catalog, double errorRate, double throttleRate) {
+            this.catalog = catalog;
+            this.errorRate = errorRate;
+            this.throttleRate = throttleRate;
+        }
+
+        @Override
+        public ResponseDefinition transform(ServeEvent serveEvent) {
+            requests.incrementAndGet();
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < errorRate) {
+                return ResponseDefinitionBuilder.responseDefinition().withStatus(500).build();
+            }
+            if (roll < errorRate + throttleRate) {
+                return ResponseDefinitionBuilder.responseDefinition()
+                        .withStatus(429)
+                        .withHeader("Retry-After", "1")
+                        .build();
+            }
+            var request = serveEvent.getRequest();
+            var body = catalog.page(parameter(request, "location"), parameter(request, "categories"),
+                    parameter(request, "is_free"), pageNumber(parameter(request, "page")));
+            var response = ResponseDefinitionBuilder.like(serveEvent.getResponseDefinition());
+            if (body == null) {
+                return response.withStatus(404).withBody("{\"detail\":\"Invalid page.\"}").build();
+            }
+            bytes.addAndGet(body.length);
+            return response.withBody(body).build();
+        }
+
+        private static String parameter(Request request, String name) {
+            var parameter = request.queryParameter(name);
+            return parameter.isPresent() ? parameter.firstValue() : null;
+        }
+
+        private static int pageNumber(String page) {
+            try {
+                return page == null ? 1 : Integer.parseInt(page);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "kudago-fault-injector";
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.currencies.loadtest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ * A rate of {@code 0} switches the corresponding scenario off, as does an events limit of
+ * {@code 0} for the {@code limit} query parameter. The {@code location}, {@code categories} and
+ * {@code is_free} filters of the event requests are left out unless they are set.
+ */
+public record LoadTestConfig(
+        Duration warmup,
+        Duration duration,
+        int currencyRateRps,
+        int currencyConvertRps,
+        int eventsFutureRps,
+        int eventsReactiveRps,
+        int maxInFlight,
+        String fixturesDir,
+        String reportDir,
+        KudaGoStandIn.Settings kudaGo,
+        LocalDate dateFrom,
+        LocalDate dateTo,
+        int eventsLimit,
+        String eventsLocation,
+        String eventsCategories,
+        String eventsFree
+) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        var dateFrom = LocalDate.parse(property("loadtest.dateFrom", LocalDate.now().toString()));
+        return new LoadTestConfig(
+                Duration.ofSeconds(intProperty("loadtest.warmupSeconds", 10)),
+                Duration.ofSeconds(intProperty("loadtest.durationSeconds", 30)),
+                intProperty("loadtest.rate.currencyRate", 200),
+                intProperty("loadtest.rate.currencyConvert", 100),
+                intProperty("loadtest.rate.eventsFuture", 2),
+                intProperty("loadtest.rate.eventsReactive", 2),
+                intProperty("loadtest.maxInFlight", 2_000),
+                property("loadtest.fixturesDir", "src/test/resources"),
+                property("loadtest.reportDir", "build/reports/loadtest"),
+                new KudaGoStandIn.Settings(
+                        intProperty("loadtest.kudago.pages", 20),
+                        intProperty("loadtest.kudago.pageSize", 100),
+                        intProperty("loadtest.kudago.datesPerEvent", 3),
+                        intProperty("loadtest.kudago.latencyMs", 80),
+                        intProperty("loadtest.kudago.jitterMs", 40),
+                        doubleProperty("loadtest.kudago.errorRate", 0.0),
+                        doubleProperty("loadtest.kudago.throttleRate", 0.0)),
+                dateFrom,
+                LocalDate.parse(property("loadtest.dateTo", dateFrom.plusDays(7).toString())),
+                intProperty("loadtest.events.limit", 0),
+                property("loadtest.events.location", null),
+                property("loadtest.events.categories", null),
+                property("loadtest.events.isFree", null));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(property(name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(property(name, String.valueOf(defaultValue)));
+    }
+}
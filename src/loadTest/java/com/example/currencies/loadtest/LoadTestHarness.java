@@ -0,0 +1,209 @@
+package com.example.currencies.loadtest;
+
+import com.example.currencies.CurrenciesApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts local CBR and KudaGo stand-ins, boots the application against them and drives
+ * {@code /currencies/rate}, {@code /currencies/convert}, {@code /events/completableFuture}
+ * and {@code /events/reactive} at fixed arrival rates.
+ * <p>
+ * Settings come from {@code loadtest.*} system properties (see {@link LoadTestConfig});
+ * {@code loadtest.app.<property>} is passed to the application as {@code <property>}.
+ * A summary is printed and written to the report directory together with one HDR
+ * percentile distribution per scenario.
+ * <p>
+ * KudaGo pages and bytes are also reported per event request, which shows what the
+ * {@code loadtest.events.location}, {@code categories} and {@code isFree} filters save. Event
+ * requests crawl only while their window is not cached, so delay the prewarm to compare, for example
+ * with {@code -Dloadtest.app.events.prewarm.initialDelayMs=600000}.
+ */
+public class LoadTestHarness {
+
+    private static final String APP_PROPERTY_PREFIX = "loadtest.app.";
+    private static final String[] CODES = {"USD", "EUR", "CNY", "GBP", "JPY", "KZT", "TRY", "BYN"};
+
+    public static void main(String[] args) throws Exception {
+        var config = LoadTestConfig.fromSystemProperties();
+
+        try (var cbr = new CbrStandIn(config.fixturesDir());
+             var kudaGo = new KudaGoStandIn(config.kudaGo(), config.dateFrom());
+             var app = startApplication(cbr, kudaGo)) {
+            var baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            var scenarios = scenarios(config, baseUrl);
+            if (scenarios.isEmpty()) {
+                throw new IllegalStateException("All loadtest.rate.* settings are 0, nothing to drive");
+            }
+            var driver = new FixedRateDriver(config.maxInFlight());
+            var registry = app.getBean(MeterRegistry.class);
+
+            System.out.printf("Warming up for %s%n", config.warmup());
+            driver.run(scenarios, config.warmup());
+
+            var logEventsBefore = logEvents(registry);
+            var kudaGoRequestsBefore = kudaGo.requests();
+            var kudaGoBytesBefore = kudaGo.bytesServed();
+
+            System.out.printf("Measuring for %s%n", config.duration());
+            var results = driver.run(scenarios, config.duration());
+
+            var upstream = new UpstreamUsage(
+                    kudaGo.requests() - kudaGoRequestsBefore,
+                    kudaGo.bytesServed() - kudaGoBytesBefore);
+            report(config, results, upstream, diff(logEvents(registry), logEventsBefore), pageLatency(registry));
+        }
+    }
+
+    /**
+     * KudaGo traffic caused by the measured run.
+     */
+    record UpstreamUsage(long kudaGoRequests, long kudaGoBytes) {
+    }
+
+    /**
+     * @param extraProperties further application properties, applied before the {@code loadtest.app.*} ones
+     */
+    static ConfigurableApplicationContext startApplication(CbrStandIn cbr, KudaGoStandIn kudaGo,
+                                                           String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "cbr.base.url=" + cbr.baseUrl(),
+                "kudaGo.base.url=" + kudaGo.baseUrl(),
+                "kudaGo.events=" + KudaGoStandIn.EVENTS_PATH,
+                // all load comes from one address; enable with -Dloadtest.app.rateLimit.enabled=true
+                "rateLimit.enabled=false"));
+        properties.addAll(List.of(extraProperties));
+        System.getProperties().forEach((key, value) -> {
+            var name = key.toString();
+            if (name.startsWith(APP_PROPERTY_PREFIX)) {
+                properties.add(name.substring(APP_PROPERTY_PREFIX.length()) + "=" + value);
+            }
+        });
+        return new SpringApplicationBuilder(CurrenciesApplication.class)
+                .properties(properties.toArray(String[]::new))
+                .run();
+    }
+
+    private static List<FixedRateDriver.Scenario> scenarios(LoadTestConfig config, String baseUrl) {
+        List<FixedRateDriver.Scenario> scenarios = new ArrayList<>();
+        var codeIndex = new AtomicLong();
+
+        if (config.currencyRateRps() > 0) {
+            scenarios.add(new FixedRateDriver.Scenario("currencies.rate", config.currencyRateRps(), () ->
+                    get(baseUrl + "/currencies/rate/" + CODES[(int) (codeIndex.getAndIncrement() % CODES.length)])));
+        }
+        if (config.currencyConvertRps() > 0) {
+            scenarios.add(new FixedRateDriver.Scenario("currencies.convert", config.currencyConvertRps(), () ->
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/currencies/convert"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"fromCurrency\":\"USD\",\"toCurrency\":\"EUR\",\"amount\":100}"))
+                            .build()));
+        }
+        var eventsQuery = "?budget=1000&currency=RUB&dateFrom=" + config.dateFrom() + "&dateTo=" + config.dateTo()
+                + (config.eventsLimit() > 0 ? "&limit=" + config.eventsLimit() : "")
+                + (config.eventsLocation() != null ? "&location=" + config.eventsLocation() : "")
+                + (config.eventsCategories() != null ? "&categories=" + config.eventsCategories() : "")
+                + (config.eventsFree() != null ? "&is_free=" + config.eventsFree() : "");
+        if (config.eventsFutureRps() > 0) {
+            scenarios.add(new FixedRateDriver.Scenario("events.future", config.eventsFutureRps(), () ->
+                    get(baseUrl + "/events/completableFuture" + eventsQuery)));
+        }
+        if (config.eventsReactiveRps() > 0) {
+            scenarios.add(new FixedRateDriver.Scenario("events.reactive", config.eventsReactiveRps(), () ->
+                    get(baseUrl + "/events/reactive" + eventsQuery)));
+        }
+        return scenarios;
+    }
+
+    static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    /**
+     * @return logback events per level, as counted by the Actuator {@code logback.events} meter
+     */
+    private static Map<String, Double> logEvents(MeterRegistry registry) {
+        Map<String, Double> events = new TreeMap<>();
+        for (Counter counter : registry.find("logback.events").counters()) {
+            events.put(counter.getId().getTag("level"), counter.count());
+        }
+        return events;
+    }
+
+    /**
+     * @return KudaGo page p99 without hedging (primary) and as seen by callers (effective), and hedge counts
+     */
+    private static String pageLatency(MeterRegistry registry) {
+        var hedges = new TreeMap<String, Double>();
+        for (Counter counter : registry.find("kudago.page.hedges").counters()) {
+            hedges.put(counter.getId().getTag("outcome"), counter.count());
+        }
+        return String.format("kudago pages       p99 primary=%.2f effective=%.2f ms hedges=%s",
+                p99Millis(registry, "primary"), p99Millis(registry, "effective"), hedges);
+    }
+
+    private static double p99Millis(MeterRegistry registry, String path) {
+        var timer = registry.find("kudago.page.latency").tag("path", path).timer();
+        if (timer == null) {
+            return 0.0;
+        }
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == 0.99) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0.0;
+    }
+
+    private static Map<String, Double> diff(Map<String, Double> after, Map<String, Double> before) {
+        Map<String, Double> diff = new TreeMap<>();
+        after.forEach((level, count) -> diff.put(level, count - before.getOrDefault(level, 0.0)));
+        return diff;
+    }
+
+    private static void report(LoadTestConfig config, List<ScenarioResult> results, UpstreamUsage upstream,
+                               Map<String, Double> logEvents, String pageLatency) throws IOException {
+        var dir = Path.of(config.reportDir());
+        var lines = new ArrayList<String>();
+        long completed = 0;
+        long eventRequests = 0;
+        for (var result : results) {
+            lines.add(result.summary());
+            result.writeHistogram(dir);
+            completed += result.completed();
+            if (result.name().startsWith("events.")) {
+                eventRequests += result.completed();
+            }
+        }
+        lines.add(String.format("kudago             requests=%d bytes=%d pages/event req=%.2f bytes/event req=%.0f",
+                upstream.kudaGoRequests(), upstream.kudaGoBytes(),
+                eventRequests == 0 ? 0.0 : (double) upstream.kudaGoRequests() / eventRequests,
+                eventRequests == 0 ? 0.0 : (double) upstream.kudaGoBytes() / eventRequests));
+        lines.add(pageLatency);
+        double totalLogEvents = logEvents.values().stream().mapToDouble(Double::doubleValue).sum();
+        lines.add(String.format("logging            events=%s events/req=%.2f", logEvents,
+                completed == 0 ? 0.0 : totalLogEvents / completed));
+
+        lines.forEach(System.out::println);
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("summary.txt"), lines);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.currencies.loadtest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shows that currency requests are isolated from event traffic: measures the currency p99 alone,
+ * then again while event requests crawl a slow KudaGo stand-in at the same time, on the same
+ * instance. The event requests should find their own bulkhead and executor full and be shed,
+ * while the currency percentiles stay where they were.
+ * <p>
+ * Exits with {@code 1} if the mixed p99 exceeds the isolated p99 by more than
+ * {@code mixed.maxP99Ratio} (and by more than {@code mixed.p99SlackMs}, so that sub-millisecond
+ * noise does not count).
+ * <p>
+ * {@code ./gradlew mixedLoadTest -Dmixed.eventsRps=50 -Dmixed.kudagoLatencyMs=3000}
+ */
+public class MixedLoadBenchmark {
+
+    private static final String[] Codes = {"USD", "EUR", "CNY", "GBP", "JPY", "KZT", "TRY", "BYN"};
+
+    public static void main(String[] args) throws Exception {
+        var warmup = Duration.ofSeconds(intProperty("mixed.warmupSeconds", 10));
+        var duration = Duration.ofSeconds(intProperty("mixed.durationSeconds", 30));
+        int currencyRps = intProperty("mixed.currencyRps", 400);
+        int eventsRps = intProperty("mixed.eventsRps", 30);
+        double maxP99Ratio = Double.parseDouble(System.getProperty("mixed.maxP99Ratio", "1.5"));
+        double p99SlackMs = Double.parseDouble(System.getProperty("mixed.p99SlackMs", "5"));
+        var kudaGoSettings = new KudaGoStandIn.Settings(
+                intProperty("mixed.kudagoPages", 20), 100, 3,
+                intProperty("mixed.kudagoLatencyMs", 2000), 500, 0.0, 0.0);
+        var dateFrom = LocalDate.now();
+
+        // every event request crawls KudaGo instead of being answered from the window cache
+        System.setProperty("loadtest.app.events.prewarm.initialDelayMs", String.valueOf(Long.MAX_VALUE / 2));
+
+        try (var cbr = new CbrStandIn(System.getProperty("mixed.fixturesDir", "src/test/resources"));
+             var kudaGo = new KudaGoStandIn(kudaGoSettings, dateFrom);
+             var app = LoadTestHarness.startApplication(cbr, kudaGo)) {
+            var baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            var registry = app.getBean(MeterRegistry.class);
+            var driver = new FixedRateDriver(10_000);
+
+            var currencies = currencyScenario(baseUrl, currencyRps);
+            var events = new FixedRateDriver.Scenario("events", eventsRps, () -> LoadTestHarness.get(
+                    baseUrl + "/events/reactive?budget=1000&currency=RUB&dateFrom=" + dateFrom
+                            + "&dateTo=" + dateFrom.plusDays(7)));
+
+            System.out.printf("Isolated: currencies at %d req/s for %s%n", currencyRps, duration);
+            driver.run(List.of(currencies), warmup);
+            var isolated = driver.run(List.of(currencies), duration).get(0);
+
+            System.out.printf("Mixed: currencies at %d req/s, events at %d req/s for %s%n",
+                    currencyRps, eventsRps, duration);
+            driver.run(List.of(currencies, events), warmup);
+            var rejectedBefore = rejected(registry);
+            var mixed = driver.run(List.of(currencies, events), duration);
+
+            System.out.println(isolated.summary());
+            mixed.forEach(result -> System.out.println(result.summary()));
+            System.out.printf("rejected           %s%n", diff(rejected(registry), rejectedBefore));
+
+            double isolatedP99 = p99Millis(isolated);
+            double mixedP99 = p99Millis(mixed.get(0));
+            System.out.printf("currency p99       isolated=%.2f mixed=%.2f ms ratio=%.2f%n",
+                    isolatedP99, mixedP99, mixedP99 / isolatedP99);
+            if (mixedP99 > isolatedP99 * maxP99Ratio && mixedP99 - isolatedP99 > p99SlackMs) {
+                System.out.printf("Currency p99 degraded by more than %.2fx under event load%n", maxP99Ratio);
+                System.exit(1);
+            }
+        }
+    }
+
+    private static FixedRateDriver.Scenario currencyScenario(String baseUrl, int rps) {
+        var codeIndex = new AtomicLong();
+        return new FixedRateDriver.Scenario("currencies", rps, () -> {
+            long i = codeIndex.getAndIncrement();
+            if (i % 2 == 0) {
+                return LoadTestHarness.get(baseUrl + "/currencies/rate/" + Codes[(int) (i / 2 % Codes.length)]);
+            }
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/currencies/convert"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"fromCurrency\":\"USD\",\"toCurrency\":\"EUR\",\"amount\":100}"))
+                    .build();
+        });
+    }
+
+    /**
+     * @return requests shed so far, by the endpoint bulkheads per family and by event admission control
+     */
+    private static Map<String, Double> rejected(MeterRegistry registry) {
+        Map<String, Double> rejected = new TreeMap<>();
+        for (Counter counter : registry.find("bulkhead.rejected").counters()) {
+            rejected.put("bulkhead." + counter.getId().getTag("family"), counter.count());
+        }
+        for (Counter counter : registry.find("events.admission.rejected").counters()) {
+            rejected.put("admission." + counter.getId().getTag("reason"), counter.count());
+        }
+        return rejected;
+    }
+
+    private static Map<String, Double> diff(Map<String, Double> after, Map<String, Double> before) {
+        Map<String, Double> diff = new TreeMap<>();
+        after.forEach((name, count) -> diff.put(name, count - before.getOrDefault(name, 0.0)));
+        return diff;
+    }
+
+    private static double p99Millis(ScenarioResult result) {
+        return result.histogram().getValueAtPercentile(99) / 1_000_000.0;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.currencies.loadtest;
+
+import com.example.currencies.admission.TokenBuckets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what per-client rate limiting adds to a request: the time of one
+ * {@link TokenBuckets#tryAcquire(String)} with many concurrent request threads, for a few heavy
+ * clients and for a large population of clients that keeps the stripes evicting.
+ * <p>
+ * {@code ./gradlew rateLimitBenchmark -Dratelimit.threads=16}
+ */
+public class RateLimitBenchmark {
+
+    private record Scenario(String name, int clients) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.parseInt(System.getProperty("ratelimit.threads", "8"));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Integer.parseInt(System.getProperty("ratelimit.warmupSeconds", "2")));
+        long measureNanos = TimeUnit.SECONDS.toNanos(Integer.parseInt(System.getProperty("ratelimit.measureSeconds", "3")));
+        int stripes = Integer.parseInt(System.getProperty("ratelimit.stripes", "64"));
+        int maxClientsPerStripe = Integer.parseInt(System.getProperty("ratelimit.maxClientsPerStripe", "256"));
+
+        var scenarios = List.of(
+                new Scenario("few-clients", 8),
+                new Scenario("many-clients", 10_000),
+                new Scenario("beyond-capacity", 100_000));
+
+        System.out.printf("%-16s %8s %10s %12s %10s%n", "scenario", "threads", "clients", "ns/acquire", "tracked");
+        for (Scenario scenario : scenarios) {
+            var keys = new String[scenario.clients()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = "ip:10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+            }
+            var buckets = new TokenBuckets(200, 100, stripes, maxClientsPerStripe);
+            run(buckets, keys, threads, warmupNanos);
+            double nanosPerAcquire = run(buckets, keys, threads, measureNanos);
+            System.out.printf("%-16s %8d %10d %12.0f %10d%n",
+                    scenario.name(), threads, scenario.clients(), nanosPerAcquire, buckets.size());
+        }
+    }
+
+    /**
+     * Lets every thread acquire for random clients for the given time.
+     *
+     * @return the mean wall-clock time of one acquire on one thread
+     */
+    private static double run(TokenBuckets buckets, String[] keys, int threads, long nanos) throws Exception {
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        List<Future<long[]>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    var random = ThreadLocalRandom.current();
+                    start.await();
+                    long operations = 0;
+                    long begin = System.nanoTime();
+                    long elapsed;
+                    do {
+                        for (int i = 0; i < 100; i++) {
+                            buckets.tryAcquire(keys[random.nextInt(keys.length)]);
+                        }
+                        operations += 100;
+                        elapsed = System.nanoTime() - begin;
+                    } while (elapsed < nanos);
+                    return new long[]{operations, elapsed};
+                }));
+            }
+            start.countDown();
+            long operations = 0;
+            long elapsed = 0;
+            for (Future<long[]> worker : workers) {
+                var result = worker.get();
+                operations += result[0];
+                elapsed += result[1];
+            }
+            return (double) elapsed / operations;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
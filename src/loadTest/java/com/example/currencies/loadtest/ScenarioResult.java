@@ -0,0 +1,107 @@
+package com.example.currencies.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe collector of per-scenario latencies (HDR histogram, nanoseconds),
+ * status codes and response bytes.
+ */
+public class ScenarioResult {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+    private final Duration duration;
+    private final Recorder recorder = new Recorder(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder unfinished = new LongAdder();
+    private Histogram histogram;
+
+    public ScenarioResult(String name, Duration duration) {
+        this.name = name;
+        this.duration = duration;
+    }
+
+    public void record(long latencyNanos, HttpResponse<byte[]> response, Throwable ex) {
+        recorder.recordValue(latencyNanos);
+        if (ex != null || response == null) {
+            failures.increment();
+            return;
+        }
+        statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+        bytes.add(response.body().length);
+    }
+
+    public void recordOverflow() {
+        overflows.increment();
+    }
+
+    public void recordUnfinished(int count) {
+        unfinished.add(count);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized Histogram histogram() {
+        if (histogram == null) {
+            histogram = recorder.getIntervalHistogram();
+        }
+        return histogram;
+    }
+
+    public long completed() {
+        return histogram().getTotalCount();
+    }
+
+    public long bytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return a one-line summary: throughput, status codes, bytes and latency percentiles in ms
+     */
+    public String summary() {
+        var h = histogram();
+        var codes = new TreeMap<Integer, Long>();
+        statuses.forEach((code, count) -> codes.put(code, count.sum()));
+        double seconds = duration.toMillis() / 1000.0;
+        return String.format(
+                "%-18s %9.1f req/s  status=%s failed=%d overflow=%d unfinished=%d bytes/req=%.0f"
+                        + "  p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f ms",
+                name, completed() / seconds, codes, failures.sum(), overflows.sum(), unfinished.sum(),
+                completed() == 0 ? 0.0 : (double) bytes() / completed(),
+                h.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                h.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                h.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                h.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                h.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Writes the full percentile distribution (in milliseconds) to {@code <dir>/<name>.hgrm}.
+     */
+    public void writeHistogram(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (var out = new PrintStream(new FileOutputStream(dir.resolve(name + ".hgrm").toFile()))) {
+            histogram().outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.currencies.loadtest;
+
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.io.InputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the servlet stack on Tomcat with the {@code reactive} profile on Reactor Netty, each in a
+ * fresh application context of this JVM:
+ * <ul>
+ *     <li>p99 of rate and rate table requests at {@code servermode.rps}, and</li>
+ *     <li>connections per GB: heap and direct memory retained by {@code servermode.connections} open
+ *     {@code /currencies/rates/stream} connections, scaled to one GiB.</li>
+ * </ul>
+ * The memory of the client side of the connections is included, equally for both modes, so the
+ * connections per GB are a lower bound and only their ratio is meaningful.
+ * <p>
+ * {@code ./gradlew serverModeBenchmark -Dservermode.connections=4000 -Dservermode.rps=2000}
+ */
+public class ServerModeBenchmark {
+
+    private static final String[] Codes = {"USD", "EUR", "CNY", "GBP", "JPY", "KZT", "TRY", "BYN"};
+    private static final long GiB = 1L << 30;
+
+    private record Mode(String name, String profiles) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var warmup = Duration.ofSeconds(intProperty("servermode.warmupSeconds", 10));
+        var duration = Duration.ofSeconds(intProperty("servermode.durationSeconds", 30));
+        int rps = intProperty("servermode.rps", 1000);
+        int connections = intProperty("servermode.connections", 2000);
+        var kudaGoSettings = new KudaGoStandIn.Settings(5, 100, 3, 5, 2, 0.0, 0.0);
+
+        var modes = List.of(new Mode("tomcat", "default"), new Mode("netty", "reactive"));
+        List<String> lines = new ArrayList<>();
+        try (var cbr = new CbrStandIn(System.getProperty("servermode.fixturesDir", "src/test/resources"));
+             var kudaGo = new KudaGoStandIn(kudaGoSettings, LocalDate.now())) {
+            for (Mode mode : modes) {
+                try (var app = LoadTestHarness.startApplication(cbr, kudaGo,
+                        "spring.profiles.active=" + mode.profiles(),
+                        // the stream connections are idle on purpose
+                        "server.netty.idle-timeout=10m")) {
+                    var baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+
+                    var driver = new FixedRateDriver(10_000);
+                    var scenarios = List.of(currencyScenario(baseUrl, rps));
+                    System.out.printf("%s: currencies at %d req/s for %s%n", mode.name(), rps, duration);
+                    driver.run(scenarios, warmup);
+                    var result = driver.run(scenarios, duration).get(0);
+
+                    System.out.printf("%s: opening %d stream connections%n", mode.name(), connections);
+                    long bytesPerConnection = bytesPerConnection(baseUrl, connections);
+
+                    lines.add(String.format("%-7s p99=%.2f ms p999=%.2f ms connections/GB=%d (%d bytes each)",
+                            mode.name(), result.histogram().getValueAtPercentile(99) / 1_000_000.0,
+                            result.histogram().getValueAtPercentile(99.9) / 1_000_000.0,
+                            GiB / Math.max(1, bytesPerConnection), bytesPerConnection));
+                    System.out.println(result.summary());
+                }
+            }
+        }
+        lines.forEach(System.out::println);
+    }
+
+    private static FixedRateDriver.Scenario currencyScenario(String baseUrl, int rps) {
+        var index = new AtomicLong();
+        return new FixedRateDriver.Scenario("currencies", rps, () -> {
+            long i = index.getAndIncrement();
+            if (i % 4 == 3) {
+                return LoadTestHarness.get(baseUrl + "/currencies/rates");
+            }
+            return LoadTestHarness.get(baseUrl + "/currencies/rate/" + Codes[(int) (i % Codes.length)]);
+        });
+    }
+
+    /**
+     * Opens the connections and returns the memory they retain once all streams have started,
+     * divided by their number.
+     */
+    private static long bytesPerConnection(String baseUrl, int connections) throws Exception {
+        // HTTP/1.1 without pipelining: every open stream holds a connection of its own
+        var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long before = retainedBytes();
+        List<CompletableFuture<HttpResponse<InputStream>>> streams = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                streams.add(client.sendAsync(LoadTestHarness.get(baseUrl + "/currencies/rates/stream"),
+                        HttpResponse.BodyHandlers.ofInputStream()));
+            }
+            for (CompletableFuture<HttpResponse<InputStream>> stream : streams) {
+                var response = stream.get(30, TimeUnit.SECONDS);
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Stream answered " + response.statusCode());
+                }
+            }
+            long after = retainedBytes();
+            return (after - before) / connections;
+        } finally {
+            for (CompletableFuture<HttpResponse<InputStream>> stream : streams) {
+                stream.thenAccept(response -> {
+                    try {
+                        response.body().close();
+                    } catch (Exception ignored) {
+                        // the connection is dropped either way
+                    }
+                });
+            }
+            client.shutdownNow();
+        }
+    }
+
+    /**
+     * @return heap in use after a full collection plus direct buffer memory
+     */
+    private static long retainedBytes() throws InterruptedException {
+        System.gc();
+        Thread.sleep(500);
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct += pool.getMemoryUsed();
+            }
+        }
+        return heap + direct;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+}
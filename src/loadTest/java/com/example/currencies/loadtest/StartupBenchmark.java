@@ -0,0 +1,147 @@
+package com.example.currencies.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a freshly started instance takes until its first successful currency
+ * conversion, for the plain boot jar ({@code baseline}) and for the startup-optimized run mode
+ * ({@code fast-startup}: AOT-processed bean definitions, AppCDS archive, lazy springdoc and
+ * asynchronous CBR warm-up).
+ * <p>
+ * Every run starts a new JVM against a local CBR stand-in and polls {@code /currencies/convert}
+ * from the moment the process is launched. The results are printed and appended to
+ * {@code startup.csv} in the report directory, so both modes can be tracked over time.
+ * The {@code startupBenchmark} Gradle task builds the jar and the archive and passes their location.
+ */
+public class StartupBenchmark {
+
+    private static final Duration StartupTimeout = Duration.ofSeconds(60);
+    private static final Duration PollInterval = Duration.ofMillis(10);
+    private static final String ConvertBody = "{\"fromCurrency\":\"USD\",\"toCurrency\":\"EUR\",\"amount\":100}";
+
+    record Mode(String name, Path workingDir, List<String> jvmArgs, String jar) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.parseInt(System.getProperty("startup.runs", "5"));
+        var fixturesDir = System.getProperty("startup.fixturesDir", "src/test/resources");
+        var reportDir = Path.of(System.getProperty("startup.reportDir", "build/reports/startup"));
+        var bootJar = Path.of(required("startup.bootJar"));
+        var fastStartupDir = Path.of(required("startup.fastStartupDir"));
+
+        var modes = List.of(
+                new Mode("baseline", bootJar.getParent(), List.of(), bootJar.getFileName().toString()),
+                new Mode("fast-startup", fastStartupDir, List.of(
+                        "-XX:SharedArchiveFile=application.jsa",
+                        "-Dspring.aot.enabled=true",
+                        "-Dspring.profiles.active=" + required("startup.fastStartupProfiles")),
+                        bootJar.getFileName().toString()));
+
+        Files.createDirectories(reportDir.resolve("logs"));
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        var csv = reportDir.resolve("startup.csv");
+        if (Files.notExists(csv)) {
+            Files.writeString(csv, "timestamp,mode,run,timeToFirstConversionMs\n");
+        }
+
+        try (var cbr = new CbrStandIn(fixturesDir)) {
+            var timestamp = Instant.now();
+            for (Mode mode : modes) {
+                long[] millis = new long[runs];
+                for (int run = 0; run < runs; run++) {
+                    millis[run] = measure(mode, run, cbr, client, reportDir);
+                    Files.writeString(csv, "%s,%s,%d,%d%n".formatted(timestamp, mode.name(), run, millis[run]),
+                            StandardOpenOption.APPEND);
+                }
+                Arrays.sort(millis);
+                System.out.printf("%-13s time to first conversion: min %d ms, median %d ms, max %d ms (%d runs)%n",
+                        mode.name(), millis[0], millis[runs / 2], millis[runs - 1], runs);
+            }
+        }
+        System.out.printf("Results appended to %s%n", csv.toAbsolutePath());
+    }
+
+    /**
+     * Starts one instance and returns the milliseconds from launching its JVM to the first
+     * {@code 200} answer of {@code /currencies/convert}.
+     */
+    private static long measure(Mode mode, int run, CbrStandIn cbr, HttpClient client, Path reportDir)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(mode.jvmArgs());
+        command.addAll(List.of("-jar", mode.jar(),
+                "--server.port=" + port,
+                "--cbr.base.url=" + cbr.baseUrl()));
+
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/currencies/convert"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ConvertBody))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        var log = reportDir.resolve("logs").resolve(mode.name() + "-" + run + ".log").toFile();
+
+        long start = System.nanoTime();
+        var process = new ProcessBuilder(command)
+                .directory(mode.workingDir().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            long deadline = start + StartupTimeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode.name() + " exited with " + process.exitValue() + ", see " + log);
+                }
+                if (converts(client, request)) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                Thread.sleep(PollInterval.toMillis());
+            }
+            throw new IllegalStateException(mode.name() + " did not convert within " + StartupTimeout + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static boolean converts(HttpClient client, HttpRequest request) throws InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            // not listening yet
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String required(String name) {
+        var value = System.getProperty(name);
+        if (value == null) {
+            throw new IllegalStateException(name + " is not set, run the benchmark through ./gradlew startupBenchmark");
+        }
+        return value;
+    }
+}
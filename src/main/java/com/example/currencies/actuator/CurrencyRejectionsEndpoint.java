@@ -0,0 +1,39 @@
+package com.example.currencies.actuator;
+
+import com.example.currencies.services.CurrencyCodeRejections;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/currencyrejections}: the most frequently rejected currency codes,
+ * to find misconfigured clients. {@code DELETE} resets the counts, which is why the actuator is
+ * served on {@code management.server.port} rather than the public port.
+ */
+@Component
+@Endpoint(id = "currencyrejections")
+public class CurrencyRejectionsEndpoint {
+
+    private static final int TOP_OFFENDERS = 50;
+
+    private final CurrencyCodeRejections currencyCodeRejections;
+
+    @Autowired
+    public CurrencyRejectionsEndpoint(CurrencyCodeRejections currencyCodeRejections) {
+        this.currencyCodeRejections = currencyCodeRejections;
+    }
+
+    @ReadOperation
+    public Map<String, Long> topOffenders() {
+        return currencyCodeRejections.topOffenders(TOP_OFFENDERS);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        currencyCodeRejections.resetOffenders();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.currencies.actuator;
+
+import com.example.currencies.jfr.ContinuousRecording;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * {@code /actuator/jfr}: downloads the continuous flight recording, to be opened in JDK Mission
+ * Control or with {@code jfr print --events currencies.KudaGoPage}.
+ * <p>
+ * Not exposed by default: every request writes a dump of up to {@code jfr.recording.maxSizeMb} to
+ * disk, and the recording shows the inner workings of the service. Expose it only where the
+ * actuator is not reachable by clients.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+@ConditionalOnProperty(name = "jfr.recording.enabled", havingValue = "true")
+public class FlightRecordingEndpoint {
+
+    private final ContinuousRecording continuousRecording;
+
+    @Autowired
+    public FlightRecordingEndpoint(ContinuousRecording continuousRecording) {
+        this.continuousRecording = continuousRecording;
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump() throws IOException {
+        return new WebEndpointResponse<>(new FileSystemResource(continuousRecording.dump()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.currencies.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client rate limits for the public API.
+ * <p>
+ * A client is identified by its API key header when the key is one of the known keys, and by its
+ * remote address otherwise. Unknown keys are not trusted: a client rotating made-up keys would
+ * otherwise get a fresh bucket per key and push the buckets of other clients out.
+ * Each endpoint group has its own {@link TokenBuckets}; a request that finds its bucket empty is
+ * answered with {@code 429} and a {@code Retry-After} of the time until the next token. Paths
+ * outside every group, such as the actuator, are not limited.
+ */
+public class ClientRateLimitFilter extends OncePerRequestFilter {
+
+    private static final long NanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * An endpoint group: the requests whose path starts with {@code pathPrefix} share one limit.
+     */
+    public record Group(String name, String pathPrefix, TokenBuckets buckets) {
+    }
+
+    private final List<Group> groups;
+    private final Counter[] rejected;
+    private final String clientHeader;
+    private final Set<String> knownKeys;
+    private final byte[] rateLimitedBody;
+
+    public ClientRateLimitFilter(List<Group> groups, String clientHeader, Set<String> knownKeys,
+                                 byte[] rateLimitedBody, MeterRegistry meterRegistry) {
+        this.groups = List.copyOf(groups);
+        this.clientHeader = clientHeader;
+        this.knownKeys = Set.copyOf(knownKeys);
+        this.rateLimitedBody = rateLimitedBody;
+        this.rejected = new Counter[groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            var group = groups.get(i);
+            rejected[i] = Counter.builder("ratelimit.rejected")
+                    .description("Requests rejected because the client exceeded its rate limit")
+                    .tag("group", group.name())
+                    .register(meterRegistry);
+            Gauge.builder("ratelimit.clients", group.buckets(), TokenBuckets::size)
+                    .description("Clients with a token bucket")
+                    .tag("group", group.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int group = groupOf(request);
+        if (group >= 0) {
+            long waitNanos = groups.get(group).buckets().tryAcquire(clientOf(request));
+            if (waitNanos > 0) {
+                rejected[group].increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private int groupOf(HttpServletRequest request) {
+        var uri = request.getRequestURI();
+        int offset = request.getContextPath().length();
+        for (int i = 0; i < groups.size(); i++) {
+            if (uri.startsWith(groups.get(i).pathPrefix(), offset)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        var key = request.getHeader(clientHeader);
+        if (key != null && knownKeys.contains(key)) {
+            return "key:" + key;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitNanos + NanosPerSecond - 1) / NanosPerSecond));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rateLimitedBody.length);
+        response.getOutputStream().write(rateLimitedBody);
+    }
+}
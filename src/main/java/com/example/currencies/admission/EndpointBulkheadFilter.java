@@ -0,0 +1,158 @@
+package com.example.currencies.admission;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Concurrency quotas per endpoint family.
+ * <p>
+ * Every family has its own {@link Bulkhead}; a request that finds it full is answered with
+ * {@code 503} and {@code Retry-After} right away. A family either counts the request threads its
+ * requests hold, which lets long-lived streams hand off without keeping a permit, or counts its
+ * requests until their asynchronous response completes, which bounds the work queued on the
+ * family's executor. Paths outside every family, such as the actuator, are never rejected here.
+ */
+public class EndpointBulkheadFilter extends OncePerRequestFilter {
+
+    /**
+     * An endpoint family: the requests whose path starts with {@code pathPrefix} share one bulkhead.
+     *
+     * @param untilComplete {@code true} to hold the permit until the asynchronous response completes,
+     *                      {@code false} to release it when the request thread is handed back
+     */
+    public record Family(String name, String pathPrefix, Bulkhead bulkhead, boolean untilComplete) {
+    }
+
+    private final List<Family> families;
+    private final Counter[] rejected;
+    private final String retryAfterSeconds;
+    private final byte[] overloadedBody;
+
+    public EndpointBulkheadFilter(List<Family> families, long retryAfterSeconds, byte[] overloadedBody,
+                                  MeterRegistry meterRegistry) {
+        this.families = List.copyOf(families);
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.overloadedBody = overloadedBody;
+        this.rejected = new Counter[families.size()];
+        for (int i = 0; i < families.size(); i++) {
+            var family = families.get(i);
+            rejected[i] = Counter.builder("bulkhead.rejected")
+                    .description("Requests rejected because their endpoint family was at its quota")
+                    .tag("family", family.name())
+                    .register(meterRegistry);
+            Gauge.builder("bulkhead.inflight", family.bulkhead(),
+                            bulkhead -> bulkhead.getMetrics().getMaxAllowedConcurrentCalls()
+                                    - bulkhead.getMetrics().getAvailableConcurrentCalls())
+                    .description("Requests of the endpoint family holding a permit")
+                    .tag("family", family.name())
+                    .register(meterRegistry);
+            Gauge.builder("bulkhead.limit", family.bulkhead(),
+                            bulkhead -> bulkhead.getMetrics().getMaxAllowedConcurrentCalls())
+                    .description("Concurrency quota of the endpoint family")
+                    .tag("family", family.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int index = familyOf(request);
+        if (index < 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        var family = families.get(index);
+        if (!family.bulkhead().tryAcquirePermission()) {
+            rejected[index].increment();
+            reject(response);
+            return;
+        }
+
+        var permit = new Permit(family.bulkhead());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (family.untilComplete() && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private int familyOf(HttpServletRequest request) {
+        var uri = request.getRequestURI();
+        int offset = request.getContextPath().length();
+        for (int i = 0; i < families.size(); i++) {
+            if (uri.startsWith(families.get(i).pathPrefix(), offset)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(overloadedBody.length);
+        response.getOutputStream().write(overloadedBody);
+    }
+
+    /**
+     * The permit of one request; returned to the bulkhead exactly once.
+     */
+    private static class Permit implements AsyncListener {
+
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.onComplete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
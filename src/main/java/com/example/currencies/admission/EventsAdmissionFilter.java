@@ -0,0 +1,171 @@
+package com.example.currencies.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for the {@code /events} endpoints.
+ * <p>
+ * Event requests run under a {@link VegasLimit}: a request beyond the current limit is answered
+ * with {@code 503} and {@code Retry-After} right away instead of waiting in an executor queue.
+ * The latency of a request is measured until its asynchronous response completes; server errors and
+ * timeouts cut the limit, client errors are not taken into account.
+ * <p>
+ * All other requests, mainly the currency endpoints, are never rejected here. They have priority:
+ * while {@code priorityInFlight} of them occupy request threads, event requests are shed as well.
+ */
+public class EventsAdmissionFilter extends OncePerRequestFilter {
+
+    private static final String EventsPath = "/events/";
+
+    private final VegasLimit limit;
+    private final int priorityInFlight;
+    private final String retryAfterSeconds;
+    private final byte[] overloadedBody;
+    private final AtomicInteger priorityRequests = new AtomicInteger();
+    private final Counter rejectedByLimit;
+    private final Counter rejectedForPriority;
+
+    public EventsAdmissionFilter(VegasLimit limit, int priorityInFlight, long retryAfterSeconds,
+                                 byte[] overloadedBody, MeterRegistry meterRegistry) {
+        this.limit = limit;
+        this.priorityInFlight = priorityInFlight;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.overloadedBody = overloadedBody;
+
+        Gauge.builder("events.admission.limit", limit, VegasLimit::getLimit)
+                .description("Current concurrency limit of the event endpoints")
+                .register(meterRegistry);
+        Gauge.builder("events.admission.inflight", limit, VegasLimit::getInFlight)
+                .description("Admitted event requests in flight")
+                .register(meterRegistry);
+        this.rejectedByLimit = rejectedCounter(meterRegistry, "limit");
+        this.rejectedForPriority = rejectedCounter(meterRegistry, "priority");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isEventsRequest(request)) {
+            priorityRequests.incrementAndGet();
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                priorityRequests.decrementAndGet();
+            }
+            return;
+        }
+
+        if (priorityRequests.get() >= priorityInFlight) {
+            rejectedForPriority.increment();
+            reject(response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            rejectedByLimit.increment();
+            reject(response);
+            return;
+        }
+
+        var permit = new Permit(limit.getInFlight(), System.nanoTime());
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            permit.dropped();
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(permit);
+        } else {
+            permit.completed(response.getStatus());
+        }
+    }
+
+    private boolean isEventsRequest(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(EventsPath, request.getContextPath().length());
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(overloadedBody.length);
+        response.getOutputStream().write(overloadedBody);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("events.admission.rejected")
+                .description("Event requests shed by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One admitted request; reports its outcome to the limit exactly once.
+     */
+    private class Permit implements AsyncListener {
+
+        private final int inFlightAtStart;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(int inFlightAtStart, long startNanos) {
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        void completed(int status) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (status >= 500) {
+                limit.onDropped();
+            } else if (status >= 400) {
+                limit.onIgnored();
+            } else {
+                limit.onSuccess(System.nanoTime() - startNanos, inFlightAtStart);
+            }
+        }
+
+        void dropped() {
+            if (released.compareAndSet(false, true)) {
+                limit.onDropped();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            completed(((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            dropped();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            dropped();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.currencies.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One token bucket per client, kept in a fixed number of independently locked stripes so that
+ * requests of different clients rarely wait for each other.
+ * <p>
+ * Memory is bounded: every stripe keeps at most {@code maxClientsPerStripe} buckets and evicts the
+ * client it has seen least recently. An evicted client comes back with a full bucket, which is
+ * what it would have had after being idle anyway.
+ */
+public class TokenBuckets {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final double capacity;
+    private final double tokensPerNano;
+
+    /**
+     * @param capacity            tokens a client can spend in a burst
+     * @param refillPerSecond     tokens added per second, up to the capacity
+     * @param stripes             number of stripes, rounded up to a power of two
+     * @param maxClientsPerStripe buckets kept per stripe
+     */
+    public TokenBuckets(int capacity, double refillPerSecond, int stripes, int maxClientsPerStripe) {
+        int count = Integer.highestOneBit(Math.max(2, stripes) - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(maxClientsPerStripe);
+        }
+        this.mask = count - 1;
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public long tryAcquire(String client) {
+        return tryAcquire(client, System.nanoTime());
+    }
+
+    /**
+     * Takes a token from the client's bucket.
+     *
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    public long tryAcquire(String client, long nowNanos) {
+        int hash = client.hashCode();
+        var stripe = stripes[(hash ^ (hash >>> 16)) & mask];
+        synchronized (stripe) {
+            var bucket = stripe.get(client);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, nowNanos);
+                stripe.put(client, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (nowNanos - bucket.refilledAtNanos) * tokensPerNano);
+                bucket.refilledAtNanos = nowNanos;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        }
+    }
+
+    /**
+     * @return the number of clients currently tracked
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAtNanos;
+
+        Bucket(double tokens, long refilledAtNanos) {
+            this.tokens = tokens;
+            this.refilledAtNanos = refilledAtNanos;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+
+        private final int maxClients;
+
+        Stripe(int maxClients) {
+            super(16, 0.75f, true);
+            this.maxClients = maxClients;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxClients;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.currencies.admission;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency, after TCP Vegas.
+ * <p>
+ * The lowest latency seen recently stands for the latency without queueing. From the ratio between
+ * it and a new sample the number of queued requests is estimated as
+ * {@code limit * (1 - noLoadLatency / latency)}. The limit grows while that estimate is small and
+ * shrinks once requests start to queue, and it is cut by a tenth when a request fails or times out.
+ * The no-load latency is re-probed from time to time, so the limit follows an upstream that gets
+ * permanently faster or slower.
+ * <p>
+ * {@link #tryAcquire()} never waits: a request either fits under the limit or is rejected, which
+ * keeps queueing delay bounded.
+ */
+public class VegasLimit {
+
+    private static final double DropDecrease = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int probeMultiplier;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long noLoadLatencyNanos;
+    private int samplesUntilProbe;
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit, int probeMultiplier) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.probeMultiplier = probeMultiplier;
+        this.estimatedLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.limit = (int) estimatedLimit;
+        this.samplesUntilProbe = nextProbe();
+    }
+
+    /**
+     * @return {@code true} if the request may start; it then has to be reported with
+     * {@link #onSuccess(long, int)}, {@link #onDropped()} or {@link #onIgnored()}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reports an admitted request that completed normally.
+     *
+     * @param latencyNanos how long the request took
+     * @param inFlightAtStart the number of requests in flight when it started, including itself
+     */
+    public void onSuccess(long latencyNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        update(latencyNanos, inFlightAtStart);
+    }
+
+    /**
+     * Reports an admitted request that failed or timed out, which is taken as a sign of overload.
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * DropDecrease);
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    /**
+     * Reports an admitted request whose latency says nothing about the load, such as a rejected
+     * invalid request.
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightAtStart) {
+        if (latencyNanos <= 0) {
+            return;
+        }
+        if (--samplesUntilProbe <= 0) {
+            noLoadLatencyNanos = 0;
+            samplesUntilProbe = nextProbe();
+        }
+        if (noLoadLatencyNanos == 0 || latencyNanos < noLoadLatencyNanos) {
+            noLoadLatencyNanos = latencyNanos;
+            return;
+        }
+
+        int current = (int) estimatedLimit;
+        if (inFlightAtStart * 2 < current) {
+            // far below the limit: latency says nothing about it
+            return;
+        }
+
+        double log = Math.max(1, Math.log10(current));
+        double queue = Math.ceil(current * (1 - (double) noLoadLatencyNanos / latencyNanos));
+        double next;
+        if (queue <= log) {
+            next = current + 6 * log;
+        } else if (queue < 3 * log) {
+            next = current + log;
+        } else if (queue > 6 * log) {
+            next = current - log;
+        } else {
+            return;
+        }
+        estimatedLimit = Math.clamp(next, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * @return samples until the no-load latency is probed again, scaled with the limit and jittered
+     */
+    private int nextProbe() {
+        return probeMultiplier * Math.max(1, (int) estimatedLimit) + ThreadLocalRandom.current().nextInt(probeMultiplier + 1);
+    }
+}
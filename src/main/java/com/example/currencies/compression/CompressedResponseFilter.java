@@ -0,0 +1,287 @@
+package com.example.currencies.compression;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compression of large JSON responses, with a cache of the compressed bodies.
+ * <p>
+ * Applies to {@code GET} requests for the given paths from clients that accept gzip. A response is
+ * compressed once, at the best compression level, and kept under its path, query and {@code Accept}
+ * header for {@code ttl}; repeat requests are answered from the compressed bytes without reaching
+ * the controller. Bodies of the rate paths are also keyed by the installed rate snapshot version, so
+ * a new snapshot starts new entries, and the old ones age out. The version is only read, never
+ * refreshed here: while no snapshot is installed, rate paths pass through uncached.
+ * <p>
+ * Compressed bodies carry the entity tag of the plain body with a {@code -gzip} suffix, and
+ * {@code If-None-Match} with that tag is answered with {@code 304} from the cache as well. Responses
+ * other than {@code 200}, smaller than {@code minBytes} or of another content type pass unchanged.
+ * A handler whose answer must not be reused, such as one built from part of the data, sets the
+ * {@link #UncacheableAttribute} request attribute: the body is still compressed, but not cached.
+ */
+public class CompressedResponseFilter extends OncePerRequestFilter {
+
+    /**
+     * Returned by the snapshot version supplier while no snapshot is installed.
+     */
+    public static final long NoVersion = -1;
+
+    /**
+     * Request attribute set by handlers whose response must not be served to other requests.
+     */
+    public static final String UncacheableAttribute = CompressedResponseFilter.class.getName() + ".uncacheable";
+
+    private static final String Gzip = "gzip";
+    private static final String KeyAttribute = CompressedResponseFilter.class.getName() + ".key";
+
+    private record Key(String path, String query, String accept, long snapshotVersion) {
+    }
+
+    private record CompressedBody(String contentType, String eTag, byte[] bytes) {
+    }
+
+    private final Set<String> paths;
+    private final Set<String> versionedPaths;
+    private final List<MediaType> mediaTypes;
+    private final int minBytes;
+    private final LongSupplier snapshotVersion;
+    private final Cache<Key, CompressedBody> bodies;
+    private final Counter plainBytes;
+    private final Counter compressedBytes;
+
+    /**
+     * @param paths           request paths, without context path, whose responses are compressed
+     * @param versionedPaths  those of the paths whose bodies depend on the rate snapshot
+     * @param mediaTypes      content types that are compressed
+     * @param minBytes        smaller bodies are sent as they are
+     * @param ttl             how long a compressed body is reused
+     * @param maxBytes        total size of the cached compressed bodies
+     * @param snapshotVersion the installed rate snapshot version, or {@link #NoVersion}; must not block
+     */
+    public CompressedResponseFilter(Set<String> paths, Set<String> versionedPaths, List<MediaType> mediaTypes,
+                                    int minBytes, Duration ttl, long maxBytes, LongSupplier snapshotVersion,
+                                    MeterRegistry meterRegistry) {
+        this.paths = Set.copyOf(paths);
+        this.versionedPaths = Set.copyOf(versionedPaths);
+        this.mediaTypes = List.copyOf(mediaTypes);
+        this.minBytes = minBytes;
+        this.snapshotVersion = snapshotVersion;
+        this.bodies = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxBytes)
+                .<Key, CompressedBody>weigher((key, body) -> body.bytes().length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "compressedBodies");
+        this.plainBytes = bytesCounter(meterRegistry, "plain");
+        this.compressedBytes = bytesCounter(meterRegistry, "compressed");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // event responses are written on the async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Key key;
+        if (isAsyncDispatch(request)) {
+            key = (Key) request.getAttribute(KeyAttribute);
+        } else {
+            key = compressible(request) ? keyOf(request) : null;
+            if (key != null) {
+                var cached = bodies.getIfPresent(key);
+                if (cached != null) {
+                    writeCached(request, response, cached);
+                    return;
+                }
+                request.setAttribute(KeyAttribute, key);
+            }
+        }
+        if (key == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        var wrapper = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (wrapper == null) {
+            wrapper = new ContentCachingResponseWrapper(response);
+        }
+        chain.doFilter(request, wrapper);
+        if (!isAsyncStarted(request)) {
+            finish(request, key, wrapper);
+        }
+    }
+
+    private boolean compressible(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod())
+                && paths.contains(pathOf(request))
+                && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * @return the cache key, or {@code null} if the body depends on a snapshot that is not installed yet
+     */
+    private Key keyOf(HttpServletRequest request) {
+        long version = 0;
+        if (versionedPaths.contains(pathOf(request))) {
+            version = snapshotVersion.getAsLong();
+            if (version == NoVersion) {
+                return null;
+            }
+        }
+        return new Key(request.getRequestURI(), request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT),
+                version);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * Compresses and caches a body that qualifies, and sends the response.
+     */
+    private void finish(HttpServletRequest request, Key key, ContentCachingResponseWrapper wrapper)
+            throws IOException {
+        var response = (HttpServletResponse) wrapper.getResponse();
+        var body = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() != HttpStatus.OK.value()
+                || body.length < minBytes
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null
+                || !hasCompressibleType(wrapper.getContentType())) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        var eTag = response.getHeader(HttpHeaders.ETAG);
+        var compressed = new CompressedBody(wrapper.getContentType(), eTag == null ? null : gzipETag(eTag), gzip(body));
+        if (request.getAttribute(UncacheableAttribute) == null) {
+            bodies.put(key, compressed);
+        }
+        plainBytes.increment(body.length);
+
+        wrapper.resetBuffer();
+        writeCached(request, response, compressed);
+    }
+
+    private void writeCached(HttpServletRequest request, HttpServletResponse response, CompressedBody cached)
+            throws IOException {
+        if (cached.eTag() != null && cached.eTag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            response.setHeader(HttpHeaders.ETAG, cached.eTag());
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(cached.contentType());
+        writeBody(response, cached);
+    }
+
+    private void writeBody(HttpServletResponse response, CompressedBody body) throws IOException {
+        if (body.eTag() != null) {
+            response.setHeader(HttpHeaders.ETAG, body.eTag());
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, Gzip);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(body.bytes().length);
+        response.getOutputStream().write(body.bytes());
+        compressedBytes.increment(body.bytes().length);
+    }
+
+    private boolean hasCompressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        var type = MediaType.parseMediaType(contentType);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} unless gzip is missing from the header or has {@code q=0}
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            var parts = coding.split(";");
+            var name = parts[0].trim();
+            if (!name.equalsIgnoreCase(Gzip) && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                var parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && isZero(parameter.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZero(String qValue) {
+        try {
+            return Double.parseDouble(qValue) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String gzipETag(String eTag) {
+        return eTag.endsWith("\"") ? eTag.substring(0, eTag.length() - 1) + "-gzip\"" : eTag + "-gzip";
+    }
+
+    static byte[] gzip(byte[] body) {
+        var bytes = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (var out = new GZIPOutputStream(bytes) {
+            {
+                // compressed once and served many times
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Counter bytesCounter(MeterRegistry meterRegistry, String state) {
+        return Counter.builder("http.compression.bytes")
+                .description("Response bytes before compression, once per compressed body, and bytes sent compressed")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+}
@@ -1,29 +1,42 @@
 package com.example.currencies.config;
 
+import com.example.currencies.snapshot.FileSnapshotStore;
+import com.example.currencies.snapshot.SnapshotStore;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestClient;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @EnableAsync
+@EnableScheduling
 @Configuration
 public class AppConfig {
 
@@ -39,9 +52,19 @@ public class AppConfig {
     }
 
     @Bean
-    public RestClient restClientKudaGo(@Value("${kudaGo.base.url}") String url) {
+    public RestClient restClientKudaGo(@Value("${kudaGo.base.url}") String url,
+                                       @Value("${kudaGo.timeout.connectMs}") long connectTimeoutMs,
+                                       @Value("${kudaGo.timeout.readMs}") long readTimeoutMs) {
+        // per-call time limit: a page that does not answer in time fails and counts against the circuit breaker
+        var httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        var requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
         return RestClient.builder()
                 .baseUrl(url)
+                .requestFactory(requestFactory)
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .build();
     }
@@ -64,6 +87,12 @@ public class AppConfig {
         return new MappingJackson2XmlHttpMessageConverter(mapper);
     }
 
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        // same settings as the JSON mapper; replaces the default CBOR converter in its place after JSON
+        return new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build());
+    }
+
     @Bean(name = "asyncExecutor")
     public Executor asyncExecutor() {
         var executor = new ThreadPoolTaskExecutor();
@@ -75,6 +104,62 @@ public class AppConfig {
         return executor;
     }
 
+    @Bean(name = "eventsExecutor")
+    public ThreadPoolTaskExecutor eventsExecutor(@Value("${bulkheads.events.threads}") int threads,
+                                                 @Value("${bulkheads.events.queueCapacity}") int queueCapacity) {
+        // event crawls; request threads and the event loop only hand them off
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Events-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "kudaGoPageExecutor")
+    public ThreadPoolTaskExecutor kudaGoPageExecutor() {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(10);
+        executor.setMaxPoolSize(10);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("KudaGoPage-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "kudaGoRequestExecutor")
+    public ThreadPoolTaskExecutor kudaGoRequestExecutor(@Value("${kudaGo.hedging.threads}") int threads) {
+        // primary and hedged page requests, when hedging is enabled; each holds a rate limiter permit while it runs
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("KudaGoRequest-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(@Value("${currency.stream.writeQueueCapacity}") int queueCapacity) {
+        // an open stream queues at most one write at a time; a rejected write closes its stream,
+        // and the client reconnects to the full table
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("MvcAsync-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cbr.snapshot.distribution", havingValue = "shared")
+    public SnapshotStore snapshotStore(@Value("${cbr.snapshot.shared.dir}") String directory) {
+        return new FileSnapshotStore(Path.of(directory));
+    }
+
     @Bean(name = "kudaGoRateLimiterSemaphore")
     public Semaphore kudaGoRateLimiterSemaphore(@Value("${kudaGo.maxConcurrentRequests}") int maxConcurrentRequests) {
         return new Semaphore(maxConcurrentRequests);
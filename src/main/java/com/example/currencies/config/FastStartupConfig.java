@@ -0,0 +1,45 @@
+package com.example.currencies.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * Settings of the startup-optimized run mode ({@code fast-startup} profile).
+ * <p>
+ * The OpenAPI/Swagger beans are only created when the documentation is first requested,
+ * so a new replica does not scan the controllers before it can serve traffic.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    private static final String SpringdocPackage = "org.springdoc.";
+
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringdocBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                var definition = beanFactory.getBeanDefinition(name);
+                if (isSpringdoc(definition)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isSpringdoc(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null && factoryMethod.getDeclaringClassName().startsWith(SpringdocPackage)) {
+                return true;
+            }
+        }
+        var className = definition.getBeanClassName();
+        return className != null && className.startsWith(SpringdocPackage);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.currencies.config;
+
+import com.example.currencies.protobuf.CurrenciesProtobuf;
+import com.example.currencies.routes.CurrencyHandler;
+import com.example.currencies.routes.EventHandler;
+import com.example.currencies.routes.RouteErrors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+
+/**
+ * Settings of the Reactor Netty run mode ({@code reactive} profile, see {@code application-reactive.yml}).
+ * <p>
+ * The API is served by functional routes instead of the controllers, which are only created for the
+ * servlet stack, and so are the servlet filters of {@link WebConfig}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        // Tomcat is on the classpath as well, and Spring Boot would prefer it for the reactive stack
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> apiRoutes(CurrencyHandler currencies, EventHandler events,
+                                                    RouteErrors errors) {
+        return RouterFunctions.route()
+                .GET("/currencies/rate/{code}", currencies::rate)
+                .GET("/currencies/rates/stream", currencies::streamRates)
+                // JSON first, so that clients without a specific Accept header get JSON
+                .GET("/currencies/rates", accept(MediaType.APPLICATION_JSON), currencies::ratesJson)
+                .GET("/currencies/rates", accept(MediaType.APPLICATION_CBOR), currencies::ratesCbor)
+                .GET("/currencies/rates", accept(CurrenciesProtobuf.MEDIA_TYPE), currencies::ratesProtobuf)
+                .POST("/currencies/convert", currencies::convert)
+                .POST("/currencies/convert/batch", currencies::convertBatch)
+                .GET("/events/completableFuture", events::eventsFuture)
+                .GET("/events/reactive", events::eventsReactive)
+                .POST("/events/tiers", events::eventTiers)
+                .filter(errors)
+                .build();
+    }
+}
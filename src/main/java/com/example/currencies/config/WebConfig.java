@@ -0,0 +1,155 @@
+package com.example.currencies.config;
+
+import com.example.currencies.admission.ClientRateLimitFilter;
+import com.example.currencies.admission.EndpointBulkheadFilter;
+import com.example.currencies.admission.EventsAdmissionFilter;
+import com.example.currencies.admission.TokenBuckets;
+import com.example.currencies.admission.VegasLimit;
+import com.example.currencies.compression.CompressedResponseFilter;
+import com.example.currencies.core.RateSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.example.currencies.protobuf.ProtobufDtoHttpMessageConverter;
+import com.example.currencies.services.RateSnapshotService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor mvcAsyncExecutor;
+
+    public WebConfig(@Qualifier("mvcAsyncExecutor") AsyncTaskExecutor mvcAsyncExecutor) {
+        this.mvcAsyncExecutor = mvcAsyncExecutor;
+    }
+
+    @Bean
+    public FilterRegistrationBean<EventsAdmissionFilter> eventsAdmissionFilter(
+            @Value("${admission.events.initialLimit}") int initialLimit,
+            @Value("${admission.events.minLimit}") int minLimit,
+            @Value("${admission.events.maxLimit}") int maxLimit,
+            @Value("${admission.events.probeMultiplier}") int probeMultiplier,
+            @Value("${admission.events.priorityInFlight}") int priorityInFlight,
+            @Value("${admission.retryAfterSeconds}") long retryAfterSeconds,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) throws JsonProcessingException {
+        var overloadedBody = objectMapper.writeValueAsBytes(
+                Map.of("code", HttpStatus.SERVICE_UNAVAILABLE.value(), "message", "service.overloaded"));
+        var filter = new EventsAdmissionFilter(new VegasLimit(initialLimit, minLimit, maxLimit, probeMultiplier),
+                priorityInFlight, retryAfterSeconds, overloadedBody, meterRegistry);
+
+        var registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<EndpointBulkheadFilter> endpointBulkheadFilter(
+            BulkheadRegistry bulkheadRegistry,
+            @Value("${admission.retryAfterSeconds}") long retryAfterSeconds,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) throws JsonProcessingException {
+        var overloadedBody = objectMapper.writeValueAsBytes(
+                Map.of("code", HttpStatus.SERVICE_UNAVAILABLE.value(), "message", "service.overloaded"));
+        var families = List.of(
+                // request threads; streams hand theirs back and do not count
+                new EndpointBulkheadFilter.Family("currencies", "/currencies/",
+                        bulkheadRegistry.bulkhead("currencyEndpoints"), false),
+                // requests until they complete, as they queue on the eventsExecutor
+                new EndpointBulkheadFilter.Family("events", "/events/",
+                        bulkheadRegistry.bulkhead("eventEndpoints"), true));
+        var filter = new EndpointBulkheadFilter(families, retryAfterSeconds, overloadedBody, meterRegistry);
+
+        var registration = new FilterRegistrationBean<>(filter);
+        // after admission control, which sheds event requests earlier and adaptively
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "compression.enabled", havingValue = "true")
+    public FilterRegistrationBean<CompressedResponseFilter> compressedResponseFilter(
+            @Value("${compression.paths}") String[] paths,
+            @Value("${compression.versionedPaths}") String[] versionedPaths,
+            @Value("${compression.mimeTypes}") String[] mimeTypes,
+            @Value("${compression.minBytes}") int minBytes,
+            @Value("${compression.cache.ttl}") Duration ttl,
+            @Value("${compression.cache.maxBytes}") long maxBytes,
+            RateSnapshotService rateSnapshotService,
+            MeterRegistry meterRegistry) {
+        var mediaTypes = Arrays.stream(mimeTypes).map(MediaType::parseMediaType).toList();
+        // keyed by the installed version only: a lookup here must neither call CBR nor fail the request
+        var filter = new CompressedResponseFilter(Set.of(paths), Set.of(versionedPaths), mediaTypes, minBytes, ttl,
+                maxBytes, () -> rateSnapshotService.installed()
+                        .map(RateSnapshot::version)
+                        .orElse(CompressedResponseFilter.NoVersion),
+                meterRegistry);
+
+        var registration = new FilterRegistrationBean<>(filter);
+        // cached bodies are served before admission control and the bulkheads, as they cost no upstream work
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "rateLimit.enabled", havingValue = "true")
+    public FilterRegistrationBean<ClientRateLimitFilter> clientRateLimitFilter(
+            @Value("${rateLimit.clientHeader}") String clientHeader,
+            @Value("${rateLimit.knownKeys}") String[] knownKeys,
+            @Value("${rateLimit.stripes}") int stripes,
+            @Value("${rateLimit.maxClientsPerStripe}") int maxClientsPerStripe,
+            @Value("${rateLimit.currencies.capacity}") int currenciesCapacity,
+            @Value("${rateLimit.currencies.refillPerSecond}") double currenciesRefillPerSecond,
+            @Value("${rateLimit.events.capacity}") int eventsCapacity,
+            @Value("${rateLimit.events.refillPerSecond}") double eventsRefillPerSecond,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) throws JsonProcessingException {
+        var rateLimitedBody = objectMapper.writeValueAsBytes(
+                Map.of("code", HttpStatus.TOO_MANY_REQUESTS.value(), "message", "rate.limited"));
+        var groups = List.of(
+                new ClientRateLimitFilter.Group("currencies", "/currencies/",
+                        new TokenBuckets(currenciesCapacity, currenciesRefillPerSecond, stripes, maxClientsPerStripe)),
+                new ClientRateLimitFilter.Group("events", "/events/",
+                        new TokenBuckets(eventsCapacity, eventsRefillPerSecond, stripes, maxClientsPerStripe)));
+        var filter = new ClientRateLimitFilter(groups, clientHeader, Set.copyOf(Arrays.asList(knownKeys)),
+                rateLimitedBody, meterRegistry);
+
+        var registration = new FilterRegistrationBean<>(filter);
+        // before admission control, so a noisy client cannot take the slots of the others
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // last, so that clients without a specific Accept header keep getting JSON
+        converters.add(new ProtobufDtoHttpMessageConverter());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // writes of streamed responses (Flux, SSE) run here; the default would start a thread per write
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+}
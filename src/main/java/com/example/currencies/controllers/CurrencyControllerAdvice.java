@@ -1,10 +1,18 @@
 package com.example.currencies.controllers;
 
 import com.example.currencies.exception.CurrencyNotFoundException;
+import com.example.currencies.exception.DeadlineExceededException;
 import com.example.currencies.exception.InvalidCurrencyCodeException;
 import com.example.currencies.exception.ServiceUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,10 +20,30 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class CurrencyControllerAdvice {
 
+    // Domain errors have a fixed message, so their bodies are rendered once.
+    private final byte[] invalidCurrencyCodeBody;
+    private final byte[] currencyNotFoundBody;
+    private final byte[] serviceUnavailableBody;
+    private final byte[] overloadedBody;
+    private final byte[] deadlineExceededBody;
+    private final String retryAfterSeconds;
+
+    @Autowired
+    public CurrencyControllerAdvice(ObjectMapper objectMapper,
+                                    @Value("${admission.retryAfterSeconds}") long retryAfterSeconds) {
+        invalidCurrencyCodeBody = renderErrorBody(objectMapper, HttpStatus.BAD_REQUEST, "invalid.currency.code");
+        currencyNotFoundBody = renderErrorBody(objectMapper, HttpStatus.NOT_FOUND, "currency.not.found");
+        serviceUnavailableBody = renderErrorBody(objectMapper, HttpStatus.SERVICE_UNAVAILABLE, "service.unavailable");
+        overloadedBody = renderErrorBody(objectMapper, HttpStatus.SERVICE_UNAVAILABLE, "service.overloaded");
+        deadlineExceededBody = renderErrorBody(objectMapper, HttpStatus.GATEWAY_TIMEOUT, "request.deadline.exceeded");
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
     @ExceptionHandler(BindException.class)
     public ResponseEntity<Map<String, Object>> handleBindException(BindException ex) {
         return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
@@ -27,24 +55,52 @@ public class CurrencyControllerAdvice {
     }
 
     @ExceptionHandler(InvalidCurrencyCodeException.class)
-    public ResponseEntity<Map<String, Object>> handleInvalidCurrencyCodeException(InvalidCurrencyCodeException ex) {
-        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    public ResponseEntity<byte[]> handleInvalidCurrencyCodeException(InvalidCurrencyCodeException ex) {
+        return prebuiltErrorResponse(HttpStatus.BAD_REQUEST, invalidCurrencyCodeBody);
     }
 
     @ExceptionHandler(CurrencyNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleCurrencyNotFoundException(CurrencyNotFoundException ex) {
-        return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage());
+    public ResponseEntity<byte[]> handleCurrencyNotFoundException(CurrencyNotFoundException ex) {
+        return prebuiltErrorResponse(HttpStatus.NOT_FOUND, currencyNotFoundBody);
     }
 
     @ExceptionHandler(ServiceUnavailableException.class)
-    public ResponseEntity<Map<String, Object>> handleServiceUnavailableException(ServiceUnavailableException ex) {
-        return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    public ResponseEntity<byte[]> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        return prebuiltErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, serviceUnavailableBody);
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<byte[]> handleDeadlineExceededException(DeadlineExceededException ex) {
+        return prebuiltErrorResponse(HttpStatus.GATEWAY_TIMEOUT, deadlineExceededBody);
+    }
+
+    /**
+     * An executor queue is full: the request was not started, so the client may retry shortly.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<byte[]> handleTaskRejectedException(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(overloadedBody);
     }
 
     private ResponseEntity<Map<String, Object>> buildErrorResponse(HttpStatus status, String message) {
         Map<String, Object> errorResponse = new HashMap<>();
         errorResponse.put("code", status.value());
         errorResponse.put("message", message);
-        return ResponseEntity.status(status).body(errorResponse);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+    }
+
+    private ResponseEntity<byte[]> prebuiltErrorResponse(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static byte[] renderErrorBody(ObjectMapper objectMapper, HttpStatus status, String message) {
+        try {
+            return objectMapper.writeValueAsBytes(Map.of("code", status.value(), "message", message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot render error body for " + status, e);
+        }
     }
 }
@@ -0,0 +1,81 @@
+package com.example.currencies.controllers;
+
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.dto.CurrencyRateDTO;
+import com.example.currencies.services.CurrencyService;
+import com.example.currencies.services.RateSnapshotService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON bodies of {@code GET /currencies/rate/{code}}, rendered once per {@link RateSnapshot}
+ * for every currency that has a rate. Serving a known code is a single map lookup;
+ * unknown codes fall through to {@link CurrencyService}, which raises the matching error.
+ */
+@Component
+public class CurrencyRateBodies {
+
+    private final RateSnapshotService rateSnapshotService;
+    private final CurrencyService currencyService;
+    private final ObjectMapper objectMapper;
+
+    private volatile Rendered rendered;
+
+    private record Rendered(long version, Map<String, byte[]> bodies) {
+    }
+
+    @Autowired
+    public CurrencyRateBodies(RateSnapshotService rateSnapshotService, CurrencyService currencyService,
+                              ObjectMapper objectMapper) {
+        this.rateSnapshotService = rateSnapshotService;
+        this.currencyService = currencyService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the serialized {@link CurrencyRateDTO} of the currency
+     */
+    public byte[] body(String code) {
+        return body(rateSnapshotService.current(), code);
+    }
+
+    /**
+     * @return the serialized {@link CurrencyRateDTO} of the currency in the given snapshot
+     */
+    public byte[] body(RateSnapshot snapshot, String code) {
+        var current = rendered;
+        if (current == null || current.version() != snapshot.version()) {
+            var older = current;
+            current = render(snapshot);
+            // a caller still holding an older snapshot does not replace the bodies of a newer one
+            if (older == null || older.version() < snapshot.version()) {
+                rendered = current;
+            }
+        }
+
+        var body = current.bodies().get(code);
+        if (body != null) {
+            return body;
+        }
+        return serialize(new CurrencyRateDTO(code, currencyService.getCurrencyRate(snapshot, code)));
+    }
+
+    private Rendered render(RateSnapshot snapshot) {
+        Map<String, byte[]> bodies = new HashMap<>();
+        snapshot.rates().forEach((code, rate) -> bodies.put(code, serialize(new CurrencyRateDTO(code, rate))));
+        return new Rendered(snapshot.version(), Map.copyOf(bodies));
+    }
+
+    private byte[] serialize(CurrencyRateDTO rate) {
+        try {
+            return objectMapper.writeValueAsBytes(rate);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize rate of " + rate.currency(), e);
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package com.example.currencies.controllers;
 
+import com.example.currencies.dto.ConversionBatchDTO;
 import com.example.currencies.dto.CurrencyConvertDTO;
 import com.example.currencies.dto.CurrencyRateDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.protobuf.CurrenciesProtobuf;
+import com.example.currencies.request.ConversionBatchRequest;
 import com.example.currencies.request.ConversionRequest;
 import com.example.currencies.services.CurrencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.validation.annotation.Validated;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/currencies")
-@Validated
 public class CurrencyRestController {
 
     private final CurrencyService currencyService;
+    private final CurrencyRateBodies currencyRateBodies;
+    private final RateTableBodies rateTableBodies;
 
     @Autowired
-    public CurrencyRestController(CurrencyService currencyService) {
+    public CurrencyRestController(CurrencyService currencyService, CurrencyRateBodies currencyRateBodies,
+                                  RateTableBodies rateTableBodies) {
         this.currencyService = currencyService;
+        this.currencyRateBodies = currencyRateBodies;
+        this.rateTableBodies = rateTableBodies;
     }
 
     @Operation(summary = "Get currency rate",
@@ -39,13 +53,59 @@ public class CurrencyRestController {
                     @ApiResponse(responseCode = "503", description = "Currency service is unavailable",
                             content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
             })
-    @GetMapping("/rate/{code}")
-    public CurrencyRateDTO getCurrencyRate(@PathVariable("code")
-                                               @NotBlank(message = "currency.code.is_blank")
-                                               @Pattern(message = "currency.code.invalid_format", regexp = "^[A-Z]{3}$")
-                                               String code) {
-        var rate = currencyService.getCurrencyRate(code);
-        return new CurrencyRateDTO(code, rate);
+    @GetMapping(value = "/rate/{code}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCurrencyRate(@PathVariable("code") String code) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(currencyRateBodies.body(code));
+    }
+
+    @Operation(summary = "Get currency rate in a binary format",
+            description = "Returns the exchange rate of a currency against the Russian ruble as CBOR or Protobuf "
+                    + "(see currencies.proto).")
+    @GetMapping(value = "/rate/{code}", produces = {MediaType.APPLICATION_CBOR_VALUE, CurrenciesProtobuf.MEDIA_TYPE_VALUE})
+    public CurrencyRateDTO getCurrencyRateBinary(@PathVariable("code") String code) {
+        return new CurrencyRateDTO(code, currencyService.getCurrencyRate(code));
+    }
+
+    @Operation(summary = "Get all currency rates",
+            description = "Returns the rates of all currencies against the Russian ruble with the snapshot version "
+                    + "and publication date, as JSON, CBOR or Protobuf (see currencies.proto). "
+                    + "The ETag changes with every new publication.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved currency rates",
+                            content = @Content(schema = @Schema(implementation = RateTableDTO.class))),
+                    @ApiResponse(responseCode = "304", description = "The client's copy (If-None-Match) is current"),
+                    @ApiResponse(responseCode = "503", description = "Currency service is unavailable",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @GetMapping(value = "/rates", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getRates(WebRequest request) {
+        var table = rateTableBodies.current();
+        return rateTable(request, table.eTag("json"), MediaType.APPLICATION_JSON, table.json());
+    }
+
+    @GetMapping(value = "/rates", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getRatesCbor(WebRequest request) {
+        var table = rateTableBodies.current();
+        return rateTable(request, table.eTag("cbor"), MediaType.APPLICATION_CBOR, table.cbor());
+    }
+
+    @GetMapping(value = "/rates", produces = CurrenciesProtobuf.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> getRatesProtobuf(WebRequest request) {
+        var table = rateTableBodies.current();
+        return rateTable(request, table.eTag("protobuf"), CurrenciesProtobuf.MEDIA_TYPE, table.protobuf());
+    }
+
+    /**
+     * Answers {@code 304 Not Modified} while the client already holds the current version.
+     */
+    private static ResponseEntity<byte[]> rateTable(WebRequest request, String eTag, MediaType contentType,
+                                                    byte[] body) {
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).contentType(contentType).body(body);
     }
 
     @PostMapping("/convert")
@@ -66,4 +126,29 @@ public class CurrencyRestController {
                 conversionRequest.toCurrency(), conversionRequest.amount());
         return new CurrencyConvertDTO(conversionRequest.fromCurrency(), conversionRequest.toCurrency(), convertedAmount);
     }
+
+    @PostMapping("/convert/batch")
+    @Operation(summary = "Convert currencies in a batch",
+            description = "Converts up to 1000 amounts with the rates of the same snapshot. Accepts and returns "
+                    + "JSON, CBOR or Protobuf (see currencies.proto).",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Currencies successfully converted",
+                            content = @Content(schema = @Schema(implementation = ConversionBatchDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid currency codes, amounts or batch size",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "One of the currencies was not found",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "503", description = "Currency service is unavailable",
+                            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    public ConversionBatchDTO convertCurrencies(@RequestBody @Valid ConversionBatchRequest batchRequest) {
+        var requests = batchRequest.conversions();
+        var convertedAmounts = currencyService.convertAll(requests);
+        List<CurrencyConvertDTO> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            var request = requests.get(i);
+            results.add(new CurrencyConvertDTO(request.fromCurrency(), request.toCurrency(), convertedAmounts.get(i)));
+        }
+        return new ConversionBatchDTO(results);
+    }
 }
@@ -1,45 +1,92 @@
 package com.example.currencies.controllers;
 
+import com.example.currencies.compression.CompressedResponseFilter;
+import com.example.currencies.dto.EventTiersDTO;
 import com.example.currencies.entity.kudago.EventResponse;
+import com.example.currencies.entity.kudago.KudaGoFilter;
+import com.example.currencies.exception.DeadlineExceededException;
+import com.example.currencies.request.EventTiersRequest;
 import com.example.currencies.services.EventService;
+import com.example.currencies.services.RequestDeadline;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Event endpoints. Every request gets a {@link RequestDeadline}: the timeout the client asks for in
+ * the {@code events.deadline.header} header, or {@code events.deadline.defaultMs}, but never more than
+ * {@code events.deadline.maxMs}. The deadline is cancelled when the response times out or the
+ * connection fails, which stops the crawl behind the request.
+ * <p>
+ * {@code location}, {@code categories} and {@code is_free} are passed on to KudaGo, so only the
+ * matching events are downloaded, and they are part of the window cache key.
+ */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Validated
 @RequiredArgsConstructor
 @RequestMapping("/events")
 public class EventController {
+
+    // a request past its deadline is failed by the crawl; this only covers a stage that never returns
+    private static final long DeferredResultGraceMs = 1000;
+
     private final EventService eventService;
 
+    @Value("${events.deadline.defaultMs}")
+    private long defaultTimeoutMs;
+
+    @Value("${events.deadline.maxMs}")
+    private long maxTimeoutMs;
+
 
     @Operation(
             summary = "Get events based on user preferences",
-            description = "Returns a list of popular events within the specified period and budget in the requested currency.",
+            description = "Returns a list of popular events within the specified period and budget in the requested currency. "
+                    + "With limit and offset only that page of the matching events is returned, and KudaGo is "
+                    + "only crawled until it is filled. location, categories and is_free are applied by KudaGo.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved events",
                             content = @Content(schema = @Schema(implementation = EventResponse.class))),
+                    @ApiResponse(responseCode = "504", description = "The events could not be collected before the deadline"),
             }
     )
     @GetMapping("/completableFuture")
-    public CompletableFuture<List<EventResponse>> getEvents(
+    public DeferredResult<List<EventResponse>> getEvents(
+            HttpServletRequest request,
+
             @RequestParam("budget")
             @DecimalMin(value = "0.0", inclusive = false, message = "currency.budget.should_be_positive") BigDecimal budget,
 
@@ -50,21 +97,78 @@ public class EventController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)LocalDate dateFrom,
 
             @RequestParam(value = "dateTo", required = false)
-            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo) {
-        return eventService.fetchEventsFuture(budget, currency, dateFrom, dateTo);
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+
+            @RequestParam(value = "location", required = false)
+            @Pattern(message = "events.location.invalid_format", regexp = KudaGoFilter.LocationPattern)
+            String location,
+
+            @RequestParam(value = "categories", required = false)
+            @Size(max = 10, message = "events.categories.too_many")
+            List<@NotNull(message = "events.category.is_null")
+                    @Pattern(message = "events.category.invalid_format", regexp = KudaGoFilter.CategoryPattern)
+                    String> categories,
+
+            @RequestParam(value = "is_free", required = false) Boolean free,
+
+            @RequestParam(value = "limit", required = false)
+            @Min(value = 1, message = "events.limit.should_be_positive")
+            @Max(value = 1000, message = "events.limit.too_large") Integer limit,
+
+            @RequestParam(value = "offset", defaultValue = "0")
+            @Min(value = 0, message = "events.offset.is_negative")
+            @Max(value = 10000, message = "events.offset.too_large") int offset,
+
+            @RequestHeader(value = "${events.deadline.header}", required = false)
+            @Min(value = 1, message = "events.timeout.should_be_positive") Long timeoutMs) {
+        var deadline = deadline(timeoutMs);
+        var kudaGoFilter = new KudaGoFilter(location, categories, free);
+        return deferredResult(deadline, () -> eventService.fetchEventsFuture(budget, currency, dateFrom, dateTo,
+                        kudaGoFilter, limit, offset, deadline)
+                .whenComplete((events, ex) -> keepPartialOutOfCaches(request, deadline)));
+    }
+
+
+    @Operation(
+            summary = "Get events for several budgets at once",
+            description = "Returns the popular events within the specified period and the largest of the budgets, "
+                    + "cheapest first, and for every budget the number of events within it: the events of a budget "
+                    + "are the first 'count' events of the list. KudaGo is crawled once for all budgets, and all "
+                    + "budgets are converted with the same rates.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved events",
+                            content = @Content(schema = @Schema(implementation = EventTiersDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid budgets, currency codes or too many tiers"),
+                    @ApiResponse(responseCode = "504", description = "The events could not be collected before the deadline"),
+            }
+    )
+    @PostMapping("/tiers")
+    public DeferredResult<EventTiersDTO> getEventTiers(
+            @RequestBody @Valid EventTiersRequest tiersRequest,
+
+            @RequestHeader(value = "${events.deadline.header}", required = false)
+            @Min(value = 1, message = "events.timeout.should_be_positive") Long timeoutMs) {
+        var deadline = deadline(timeoutMs);
+        return deferredResult(deadline, () -> eventService.fetchEventTiersFuture(tiersRequest.tiers(),
+                tiersRequest.dateFrom(), tiersRequest.dateTo(), tiersRequest.kudaGoFilter(), deadline));
     }
 
 
     @Operation(
             summary = "Get events based on user preferences",
-            description = "Returns a list of popular events within the specified period and budget in the requested currency.",
+            description = "Returns a list of popular events within the specified period and budget in the requested currency. "
+                    + "With limit and offset only that page of the matching events is returned, and KudaGo is "
+                    + "only crawled until it is filled. location, categories and is_free are applied by KudaGo.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved events",
                             content = @Content(schema = @Schema(implementation = EventResponse.class))),
+                    @ApiResponse(responseCode = "504", description = "The events could not be collected before the deadline"),
             }
     )
     @GetMapping("/reactive")
     public Mono<List<EventResponse>> getReactiveEvents(
+            HttpServletRequest request,
+
             @RequestParam("budget")
             @DecimalMin(value = "0.0", inclusive = false, message = "currency.budget.should_be_positive") BigDecimal budget,
 
@@ -75,7 +179,73 @@ public class EventController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)LocalDate dateFrom,
 
             @RequestParam(value = "dateTo", required = false)
-            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo) {
-        return eventService.fetchEventsReactive(budget, currency, dateFrom, dateTo);
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+
+            @RequestParam(value = "location", required = false)
+            @Pattern(message = "events.location.invalid_format", regexp = KudaGoFilter.LocationPattern)
+            String location,
+
+            @RequestParam(value = "categories", required = false)
+            @Size(max = 10, message = "events.categories.too_many")
+            List<@NotNull(message = "events.category.is_null")
+                    @Pattern(message = "events.category.invalid_format", regexp = KudaGoFilter.CategoryPattern)
+                    String> categories,
+
+            @RequestParam(value = "is_free", required = false) Boolean free,
+
+            @RequestParam(value = "limit", required = false)
+            @Min(value = 1, message = "events.limit.should_be_positive")
+            @Max(value = 1000, message = "events.limit.too_large") Integer limit,
+
+            @RequestParam(value = "offset", defaultValue = "0")
+            @Min(value = 0, message = "events.offset.is_negative")
+            @Max(value = 10000, message = "events.offset.too_large") int offset,
+
+            @RequestHeader(value = "${events.deadline.header}", required = false)
+            @Min(value = 1, message = "events.timeout.should_be_positive") Long timeoutMs) {
+        // Spring cancels the subscription when the response times out or fails, which cancels the deadline
+        var deadline = deadline(timeoutMs);
+        return eventService.fetchEventsReactive(budget, currency, dateFrom, dateTo,
+                        new KudaGoFilter(location, categories, free), limit, offset, deadline)
+                .doOnSuccess(events -> keepPartialOutOfCaches(request, deadline));
+    }
+
+    /**
+     * Keeps the response cache from serving events that lack a page to other requests.
+     */
+    private static void keepPartialOutOfCaches(HttpServletRequest request, RequestDeadline deadline) {
+        if (deadline.isPartial()) {
+            request.setAttribute(CompressedResponseFilter.UncacheableAttribute, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Completes the result with the future of {@code call}; the deadline is cancelled when the
+     * response times out or fails.
+     */
+    private static <T> DeferredResult<T> deferredResult(RequestDeadline deadline,
+                                                        Supplier<CompletableFuture<T>> call) {
+        var result = new DeferredResult<T>(
+                TimeUnit.NANOSECONDS.toMillis(deadline.remainingNanos()) + DeferredResultGraceMs);
+        result.onTimeout(() -> {
+            deadline.cancel();
+            result.setErrorResult(new DeadlineExceededException());
+        });
+        result.onError(ex -> deadline.cancel());
+
+        call.get().whenComplete((value, ex) -> {
+            if (ex == null) {
+                result.setResult(value);
+            } else {
+                result.setErrorResult(ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            }
+        });
+        return result;
+    }
+
+    private RequestDeadline deadline(Long timeoutMs) {
+        long millis = timeoutMs != null ? Math.min(timeoutMs, maxTimeoutMs) : defaultTimeoutMs;
+        return RequestDeadline.after(Duration.ofMillis(millis));
     }
 }
@@ -0,0 +1,44 @@
+package com.example.currencies.controllers;
+
+import com.example.currencies.dto.RateDeltaDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.services.RateUpdates;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/currencies")
+public class RateStreamController {
+
+    private final RateUpdates rateUpdates;
+
+    @Autowired
+    public RateStreamController(RateUpdates rateUpdates) {
+        this.rateUpdates = rateUpdates;
+    }
+
+    @Operation(summary = "Stream currency rates",
+            description = "Server-sent events: a 'rates' event with the full table against the Russian ruble on "
+                    + "connect, then a 'delta' event with the changed and removed currencies for every new CBR "
+                    + "publication. The event id is the snapshot version.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stream of rate events",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                    schema = @Schema(oneOf = {RateTableDTO.class, RateDeltaDTO.class})))
+            })
+    @GetMapping(value = "/rates/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamRates() {
+        return rateUpdates.subscribe();
+    }
+}
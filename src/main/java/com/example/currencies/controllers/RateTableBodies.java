@@ -0,0 +1,82 @@
+package com.example.currencies.controllers;
+
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.protobuf.CurrenciesProtobuf;
+import com.example.currencies.services.RateSnapshotService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.TreeMap;
+
+/**
+ * Bodies of {@code GET /currencies/rates} in JSON, CBOR and Protobuf, encoded once per {@link RateSnapshot}.
+ * Every body is tagged with the {@link RateSnapshot#ratesTag() rates} it holds, so clients can revalidate
+ * with {@code If-None-Match}. The tags are weak, as the bodies also carry the process-local version.
+ */
+@Component
+public class RateTableBodies {
+
+    private final RateSnapshotService rateSnapshotService;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+
+    private volatile Encoded encoded;
+
+    /**
+     * The rate table of one snapshot version in every format.
+     */
+    public record Encoded(long version, String ratesTag, byte[] json, byte[] cbor, byte[] protobuf) {
+
+        /**
+         * @return the entity tag of the body in the given format
+         */
+        public String eTag(String format) {
+            return "W/\"" + ratesTag + "-" + format + "\"";
+        }
+    }
+
+    @Autowired
+    public RateTableBodies(RateSnapshotService rateSnapshotService, ObjectMapper objectMapper,
+                           MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.rateSnapshotService = rateSnapshotService;
+        this.jsonMapper = objectMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+    }
+
+    /**
+     * @return the bodies of the current snapshot
+     */
+    public Encoded current() {
+        return of(rateSnapshotService.current());
+    }
+
+    /**
+     * @return the bodies of the given snapshot
+     */
+    public Encoded of(RateSnapshot snapshot) {
+        var current = encoded;
+        if (current == null || current.version() != snapshot.version()) {
+            var older = current;
+            current = encode(snapshot);
+            // a caller still holding an older snapshot does not replace the bodies of a newer one
+            if (older == null || older.version() < snapshot.version()) {
+                encoded = current;
+            }
+        }
+        return current;
+    }
+
+    private Encoded encode(RateSnapshot snapshot) {
+        var table = new RateTableDTO(snapshot.version(), snapshot.date(), new TreeMap<>(snapshot.rates()));
+        try {
+            return new Encoded(snapshot.version(), snapshot.ratesTag(), jsonMapper.writeValueAsBytes(table),
+                    cborMapper.writeValueAsBytes(table), CurrenciesProtobuf.write(table));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode rate table of version " + snapshot.version(), e);
+        }
+    }
+}
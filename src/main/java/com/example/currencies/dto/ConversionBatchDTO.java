@@ -0,0 +1,7 @@
+package com.example.currencies.dto;
+
+import java.util.List;
+
+public record ConversionBatchDTO (
+        List<CurrencyConvertDTO> results
+) {}
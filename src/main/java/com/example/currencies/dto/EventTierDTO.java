@@ -0,0 +1,13 @@
+package com.example.currencies.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One budget of an {@link EventTiersDTO}: its events are the first {@code count} events of the list.
+ */
+public record EventTierDTO (
+        BigDecimal budget,
+        String currency,
+        BigDecimal budgetRub,
+        int count
+) {}
@@ -0,0 +1,13 @@
+package com.example.currencies.dto;
+
+import com.example.currencies.entity.kudago.EventResponse;
+
+import java.util.List;
+
+/**
+ * The events within the largest budget, cheapest first, and the budgets in request order.
+ */
+public record EventTiersDTO (
+        List<EventResponse> events,
+        List<EventTierDTO> tiers
+) {}
@@ -0,0 +1,18 @@
+package com.example.currencies.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+public record RateDeltaDTO (
+        long version,
+
+        long previousVersion,
+
+        LocalDate date,
+
+        Map<String, BigDecimal> changed,
+
+        Set<String> removed
+) {}
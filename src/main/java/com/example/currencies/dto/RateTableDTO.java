@@ -0,0 +1,13 @@
+package com.example.currencies.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+public record RateTableDTO (
+        long version,
+
+        LocalDate date,
+
+        Map<String, BigDecimal> rates
+) {}
@@ -0,0 +1,46 @@
+package com.example.currencies.entity.kudago;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.function.Predicate;
+
+/**
+ * The budget condition of an events request: free events, and events whose
+ * {@link EventResponse#cost() cost} is within the budget.
+ * <p>
+ * Costs are whole rubles, so besides testing events the filter can judge a stored cost with a
+ * single comparison, see {@link #acceptsCost(long)}.
+ */
+public final class BudgetFilter implements Predicate<EventResponse> {
+
+    private final BigDecimal budget;
+    private final long maxCost;
+
+    /**
+     * @param budget the budget in rubles
+     */
+    public BudgetFilter(BigDecimal budget) {
+        this.budget = budget;
+        var wholeRubles = budget.setScale(0, RoundingMode.FLOOR);
+        this.maxCost = wholeRubles.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0
+                ? Long.MAX_VALUE
+                : wholeRubles.max(BigDecimal.valueOf(-1)).longValue();
+    }
+
+    public BigDecimal getBudget() {
+        return budget;
+    }
+
+    @Override
+    public boolean test(EventResponse event) {
+        return event.isHaveEnoughBudget(budget);
+    }
+
+    /**
+     * @param cost a cost in whole rubles
+     * @return {@code true} if an event with this cost is within the budget
+     */
+    public boolean acceptsCost(long cost) {
+        return cost <= maxCost;
+    }
+}
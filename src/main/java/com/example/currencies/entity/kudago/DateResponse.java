@@ -1,11 +1,29 @@
 package com.example.currencies.entity.kudago;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
 @Getter
+@AllArgsConstructor
+@NoArgsConstructor
 public class DateResponse {
     private Instant start;
     private Instant end;
+
+    /**
+     * @param from start of the window, inclusive
+     * @param to   end of the window, exclusive
+     * @return {@code true} if the occurrence overlaps {@code [from, to)}; an occurrence
+     * without an end is treated as a point in time
+     */
+    public boolean overlaps(Instant from, Instant to) {
+        if (start == null) {
+            return false;
+        }
+        var until = end != null && end.isAfter(start) ? end : start;
+        return start.isBefore(to) && !until.isBefore(from);
+    }
 }
@@ -1,14 +1,20 @@
 package com.example.currencies.entity.kudago;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Getter
+@AllArgsConstructor
+@NoArgsConstructor
 public class EventResponse {
 
     private int id;
@@ -23,16 +29,62 @@ public class EventResponse {
     @JsonProperty("dates")
     private List<DateResponse> dates;
 
+    /**
+     * Start of the earliest occurrence in the requested window, in epoch seconds;
+     * set by {@link #trimToWindow(Instant, Instant)}.
+     */
+    @JsonProperty("next_start")
+    private long nextStart;
+
+    /**
+     * Drops the occurrences that do not overlap {@code [from, to)} and records the start
+     * of the earliest remaining one in {@link #getNextStart()}.
+     *
+     * @param from start of the window, inclusive
+     * @param to   end of the window, exclusive
+     * @return {@code true} if at least one occurrence overlaps the window
+     */
+    public boolean trimToWindow(Instant from, Instant to) {
+        if (dates == null || dates.isEmpty()) {
+            return false;
+        }
+
+        List<DateResponse> inWindow = new ArrayList<>(Math.min(dates.size(), 8));
+        Instant earliest = null;
+        for (DateResponse date : dates) {
+            if (date.overlaps(from, to)) {
+                inWindow.add(date);
+                if (earliest == null || date.getStart().isBefore(earliest)) {
+                    earliest = date.getStart();
+                }
+            }
+        }
+
+        dates = inWindow;
+        if (earliest == null) {
+            return false;
+        }
+        nextStart = earliest.getEpochSecond();
+        return true;
+    }
+
     public boolean isHaveEnoughBudget(BigDecimal budget) {
         if (free) return true;
         if (price == null || price.isEmpty()) return false;
 
-        BigDecimal cost = extractedPrice(price);
+        BigDecimal cost = cost();
 
         if (cost == null) return false;
         return cost.compareTo(budget) <= 0;
     }
 
+    /**
+     * @return the cost compared with budgets: the last number in the price, or {@code null} if there is none
+     */
+    public BigDecimal cost() {
+        return extractedPrice(price);
+    }
+
     private BigDecimal extractedPrice(String price) {
         if (price == null || price.isEmpty()) return null;
         return getLastNumber(price);
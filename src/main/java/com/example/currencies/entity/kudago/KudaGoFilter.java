@@ -0,0 +1,62 @@
+package com.example.currencies.entity.kudago;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Conditions of an events request that KudaGo applies itself, so that only the matching events are
+ * downloaded: the city ({@code location}), the categories, of which an event needs one, and free or
+ * paid events only ({@code is_free}).
+ * <p>
+ * Slugs are taken as they are, since requests are validated against {@link #LocationPattern} and
+ * {@link #CategoryPattern}; categories are deduplicated and sorted, so equal conditions make equal
+ * cache keys whatever their order.
+ *
+ * @param location   a KudaGo location slug such as {@code msk}, or {@code null} for every city
+ * @param categories KudaGo category slugs, empty for every category
+ * @param free       {@code true} for free events only, {@code false} for paid ones, {@code null} for both
+ */
+public record KudaGoFilter(String location, List<String> categories, Boolean free) {
+
+    /**
+     * Location and category slugs as KudaGo has them, such as {@code msk} and {@code concert}.
+     */
+    public static final String LocationPattern = "^[a-z-]{1,32}$";
+    public static final String CategoryPattern = "^[a-z0-9-]{1,64}$";
+
+    private static final KudaGoFilter None = new KudaGoFilter(null, List.of(), null);
+
+    public KudaGoFilter {
+        location = location == null || location.isEmpty() ? null : location;
+        categories = categories == null ? List.of() : categories.stream()
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * @return the filter of a request without conditions
+     */
+    public static KudaGoFilter none() {
+        return None;
+    }
+
+    public boolean isNone() {
+        return location == null && categories.isEmpty() && free == null;
+    }
+
+    @Override
+    public String toString() {
+        var conditions = new StringJoiner(" ");
+        if (location != null) {
+            conditions.add("location=" + location);
+        }
+        if (!categories.isEmpty()) {
+            conditions.add("categories=" + String.join(",", categories));
+        }
+        if (free != null) {
+            conditions.add("is_free=" + free);
+        }
+        return conditions.length() == 0 ? "none" : conditions.toString();
+    }
+}
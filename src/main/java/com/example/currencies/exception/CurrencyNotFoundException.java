@@ -2,13 +2,17 @@ package com.example.currencies.exception;
 
 import lombok.Getter;
 
+/**
+ * Thrown for a valid ISO code that has no rate. The exception carries no stack trace
+ * and is immutable, so one instance per code can be reused.
+ */
 @Getter
 public class CurrencyNotFoundException extends RuntimeException {
 
     private final String code;
 
     public CurrencyNotFoundException(String code) {
-        super("currency.not.found");
+        super("currency.not.found", null, false, false);
         this.code = code;
     }
 }
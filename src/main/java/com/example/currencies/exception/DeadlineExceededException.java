@@ -0,0 +1,10 @@
+package com.example.currencies.exception;
+
+/**
+ * Thrown when a request could not be answered before its deadline. The exception carries no stack trace.
+ */
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException() {
+        super("request.deadline.exceeded", null, false, false);
+    }
+}
@@ -2,13 +2,17 @@ package com.example.currencies.exception;
 
 import lombok.Getter;
 
+/**
+ * Thrown for a code that is not a known ISO code. The exception carries no stack trace
+ * and is immutable, so one instance per code can be reused.
+ */
 @Getter
 public class InvalidCurrencyCodeException extends RuntimeException {
 
   private final String code;
 
   public InvalidCurrencyCodeException(String code) {
-        super("invalid.currency.code");
+        super("invalid.currency.code", null, false, false);
         this.code = code;
     }
 }
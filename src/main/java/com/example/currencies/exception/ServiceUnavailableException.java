@@ -1,7 +1,10 @@
 package com.example.currencies.exception;
 
+/**
+ * Thrown when upstream data is unavailable. The exception carries no stack trace.
+ */
 public class ServiceUnavailableException extends RuntimeException {
     public ServiceUnavailableException() {
-        super("service.unavailable");
+        super("service.unavailable", null, false, false);
     }
 }
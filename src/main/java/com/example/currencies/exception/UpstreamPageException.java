@@ -0,0 +1,15 @@
+package com.example.currencies.exception;
+
+/**
+ * Thrown when a page of an upstream listing cannot be read, so that the listing is incomplete.
+ */
+public class UpstreamPageException extends RuntimeException {
+
+    public UpstreamPageException(int page, String reason) {
+        super("Page " + page + " failed: " + reason);
+    }
+
+    public UpstreamPageException(int page, Throwable cause) {
+        super("Page " + page + " failed: " + cause, cause);
+    }
+}
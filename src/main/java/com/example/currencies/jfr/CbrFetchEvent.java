@@ -0,0 +1,27 @@
+package com.example.currencies.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("currencies.CbrFetch")
+@Label("CBR Fetch")
+@Category({"Currencies", "Upstream"})
+@Description("Request to the CBR API, including XML parsing")
+@StackTrace(false)
+public class CbrFetchEvent extends jdk.jfr.Event {
+
+    @Label("Resource")
+    public String resource;
+
+    @Label("HTTP Status")
+    public int status;
+
+    @Label("Items")
+    public int items;
+
+    @Label("Error")
+    public String error;
+}
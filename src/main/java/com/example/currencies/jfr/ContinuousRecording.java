@@ -0,0 +1,81 @@
+package com.example.currencies.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Always-on flight recording, kept on disk for at most {@code jfr.recording.maxAge} and
+ * {@code jfr.recording.maxSizeMb}. Besides the JVM events of the chosen settings it holds the
+ * application events of this package: CBR fetches, KudaGo pages, per-page filtering, event
+ * requests and slow conversions.
+ * <p>
+ * Events cost next to nothing while not recorded; with the {@code default} settings the recording
+ * itself stays around one percent of CPU.
+ * <p>
+ * The environment variables, system properties and command line of the process are not recorded,
+ * as they may hold credentials and a dump is meant to be handed around.
+ */
+@Component
+@ConditionalOnProperty(name = "jfr.recording.enabled", havingValue = "true")
+public class ContinuousRecording implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContinuousRecording.class);
+    private static final String DumpPrefix = "currencies-";
+    private static final String DumpSuffix = ".jfr";
+    private static final String[] SecretEvents = {
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation"};
+
+    private final Recording recording;
+    private final Path dumpDirectory;
+
+    @Autowired
+    public ContinuousRecording(@Value("${jfr.recording.settings}") String settings,
+                               @Value("${jfr.recording.maxAge}") Duration maxAge,
+                               @Value("${jfr.recording.maxSizeMb}") long maxSizeMb) throws IOException, ParseException {
+        this.recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("currencies");
+        for (String event : SecretEvents) {
+            recording.disable(event);
+        }
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeMb * 1024 * 1024);
+        recording.start();
+        this.dumpDirectory = Files.createTempDirectory("currencies-jfr");
+        logger.info("jfr.recording started settings={} maxAge={} maxSizeMb={}", settings, maxAge, maxSizeMb);
+    }
+
+    /**
+     * Writes the recorded data to a new file. Only the latest dump is kept; older ones are deleted.
+     *
+     * @return the dump file
+     */
+    public synchronized Path dump() throws IOException {
+        try (var previous = Files.newDirectoryStream(dumpDirectory, DumpPrefix + "*" + DumpSuffix)) {
+            for (Path file : previous) {
+                Files.deleteIfExists(file);
+            }
+        }
+        var file = dumpDirectory.resolve(DumpPrefix + System.currentTimeMillis() + DumpSuffix);
+        recording.dump(file);
+        return file;
+    }
+
+    @Override
+    public void destroy() {
+        recording.close();
+    }
+}
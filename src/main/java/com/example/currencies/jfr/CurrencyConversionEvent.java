@@ -0,0 +1,29 @@
+package com.example.currencies.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Conversions take microseconds, so by default only unusually slow ones are recorded.
+ */
+@Name("currencies.CurrencyConversion")
+@Label("Currency Conversion")
+@Category({"Currencies", "Conversion"})
+@Description("Conversion of an amount between two currencies")
+@Threshold("1 ms")
+@StackTrace(false)
+public class CurrencyConversionEvent extends jdk.jfr.Event {
+
+    @Label("From")
+    public String fromCurrency;
+
+    @Label("To")
+    public String toCurrency;
+
+    @Label("Snapshot Version")
+    public long snapshotVersion;
+}
@@ -0,0 +1,26 @@
+package com.example.currencies.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("currencies.EventFilter")
+@Label("Event Filter")
+@Category({"Currencies", "Events"})
+@Description("Window trimming and budget filtering of one KudaGo page")
+@StackTrace(false)
+public class EventFilterEvent extends jdk.jfr.Event {
+
+    @Label("Page")
+    public int page;
+
+    @Label("Total")
+    @Description("Events on the page")
+    public int total;
+
+    @Label("Kept")
+    @Description("Events in the window that matched the filter")
+    public int kept;
+}
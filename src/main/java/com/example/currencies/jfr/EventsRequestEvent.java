@@ -0,0 +1,44 @@
+package com.example.currencies.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("currencies.EventsRequest")
+@Label("Events Request")
+@Category({"Currencies", "Events"})
+@Description("Search for events within a budget, from budget conversion to the returned page")
+@StackTrace(false)
+public class EventsRequestEvent extends jdk.jfr.Event {
+
+    @Label("Mode")
+    @Description("future or reactive")
+    public String mode;
+
+    @Label("Window")
+    public String window;
+
+    @Label("Currency")
+    public String currency;
+
+    @Label("Budget in Rubles")
+    public String budgetRub;
+
+    @Label("Limit")
+    @Description("-1 if all matching events were requested")
+    public int limit;
+
+    @Label("Offset")
+    public int offset;
+
+    @Label("Matched")
+    public int matched;
+
+    @Label("Returned")
+    public int returned;
+
+    @Label("Error")
+    public String error;
+}
@@ -0,0 +1,37 @@
+package com.example.currencies.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("currencies.KudaGoPage")
+@Label("KudaGo Page")
+@Category({"Currencies", "Upstream"})
+@Description("Request for one page of KudaGo events, including JSON parsing")
+@StackTrace(false)
+public class KudaGoPageEvent extends jdk.jfr.Event {
+
+    @Label("Page")
+    public int page;
+
+    @Label("Window")
+    public String window;
+
+    @Label("HTTP Status")
+    public int status;
+
+    @Label("Bytes")
+    @Description("Content-Length of the response, 0 if unknown")
+    @DataAmount
+    public long bytes;
+
+    @Label("Events")
+    public int events;
+
+    @Label("Outcome")
+    @Description("ok, error, cancelled or rejected")
+    public String outcome;
+}
@@ -0,0 +1,25 @@
+package com.example.currencies.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one out of every {@code rate} calls through, so that hot paths
+ * (per page, per request) can log at INFO without paying for every call.
+ * A rate of {@code 1} or less disables sampling.
+ */
+public final class LogSampler {
+
+    private final int rate;
+    private final AtomicLong counter = new AtomicLong();
+
+    public LogSampler(int rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * @return {@code true} if the current call should be logged
+     */
+    public boolean sample() {
+        return rate <= 1 || counter.getAndIncrement() % rate == 0;
+    }
+}
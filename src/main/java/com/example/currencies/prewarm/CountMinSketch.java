@@ -0,0 +1,70 @@
+package com.example.currencies.prewarm;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate frequency counts in fixed memory. Every key is counted in one cell of each of the
+ * {@code depth} rows; its estimate is the smallest of those cells, which can only overstate the
+ * true count, by collisions. Increments are lock-free.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param depth number of rows, each with an independent hash
+     * @param width cells per row, rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        int cells = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.mask = cells - 1;
+        this.counters = new AtomicLongArray(depth * cells);
+    }
+
+    /**
+     * Counts one occurrence of the key.
+     *
+     * @return the new estimate for the key
+     */
+    public long increment(Object key) {
+        long hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    public long estimate(Object key) {
+        long hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every count, so that old traffic fades and the estimates follow what is popular now.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    private int index(long hash, int row) {
+        // double hashing: row i uses h1 + i * h2
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+
+    private static long spread(int hashCode) {
+        long hash = hashCode * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+}
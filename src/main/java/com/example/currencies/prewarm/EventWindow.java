@@ -0,0 +1,33 @@
+package com.example.currencies.prewarm;
+
+import com.example.currencies.entity.kudago.KudaGoFilter;
+
+import java.time.LocalDate;
+
+/**
+ * The date range of an {@code /events} request, both days inclusive, and the conditions KudaGo
+ * applies to it. Requests for the same range with other conditions crawl and cache other events.
+ */
+public record EventWindow(LocalDate from, LocalDate to, KudaGoFilter filter) {
+
+    /**
+     * Days from today to the end of the window used when a request gives no dates.
+     */
+    public static final int DefaultDays = 7;
+
+    /**
+     * A window without conditions.
+     */
+    public EventWindow(LocalDate from, LocalDate to) {
+        this(from, to, KudaGoFilter.none());
+    }
+
+    public static EventWindow defaultWindow(LocalDate today) {
+        return new EventWindow(today, today.plusDays(DefaultDays));
+    }
+
+    @Override
+    public String toString() {
+        return filter.isNone() ? from + ".." + to : from + ".." + to + " " + filter;
+    }
+}
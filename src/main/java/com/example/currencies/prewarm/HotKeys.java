@@ -0,0 +1,80 @@
+package com.example.currencies.prewarm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the most requested keys: a {@link CountMinSketch} counts every key, and a small candidate
+ * set keeps the keys whose estimates made it among the top {@code capacity}. A key that is not yet a
+ * candidate only gets in once its estimate beats the weakest candidate of the last ranking, and the
+ * set never grows beyond twice the capacity between two rankings.
+ * <p>
+ * {@link #record} is lock-free; {@link #top} and {@link #decay} are meant for a periodic task.
+ *
+ * @param <K> the key type, with value-based {@code equals} and {@code hashCode}
+ */
+public class HotKeys<K> {
+
+    private static final int SketchDepth = 4;
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<K, Boolean> candidates = new ConcurrentHashMap<>();
+
+    private volatile long admissionThreshold;
+
+    /**
+     * @param capacity    the number of candidate keys kept
+     * @param sketchWidth cells per sketch row; a few hundred times the capacity keeps collisions rare
+     */
+    public HotKeys(int capacity, int sketchWidth) {
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(SketchDepth, sketchWidth);
+    }
+
+    public void record(K key) {
+        long estimate = sketch.increment(key);
+        int size = candidates.size();
+        if (size < capacity || (estimate > admissionThreshold && size < 2 * capacity)) {
+            candidates.putIfAbsent(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Ranks the candidates by their current estimates and drops those beyond the capacity.
+     *
+     * @return at most {@code k} keys, the most requested first
+     */
+    public synchronized List<K> top(int k) {
+        List<Map.Entry<K, Long>> ranked = new ArrayList<>(candidates.size());
+        for (K key : candidates.keySet()) {
+            ranked.add(Map.entry(key, sketch.estimate(key)));
+        }
+        ranked.sort(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder()));
+
+        for (int i = capacity; i < ranked.size(); i++) {
+            candidates.remove(ranked.get(i).getKey());
+        }
+        admissionThreshold = ranked.size() >= capacity ? ranked.get(capacity - 1).getValue() : 0;
+
+        List<K> top = new ArrayList<>(Math.min(k, ranked.size()));
+        for (int i = 0; i < ranked.size() && top.size() < k; i++) {
+            if (ranked.get(i).getValue() > 0) {
+                top.add(ranked.get(i).getKey());
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Halves all counts and forgets the candidates that were not requested since the previous decay.
+     */
+    public synchronized void decay() {
+        sketch.halve();
+        candidates.keySet().removeIf(key -> sketch.estimate(key) == 0);
+        admissionThreshold >>>= 1;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.currencies.protobuf;
+
+import com.example.currencies.dto.ConversionBatchDTO;
+import com.example.currencies.dto.CurrencyConvertDTO;
+import com.example.currencies.dto.CurrencyRateDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.request.ConversionBatchRequest;
+import com.example.currencies.request.ConversionRequest;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Protobuf encoding of the currency DTOs as described by {@code src/main/proto/currencies.proto}.
+ * <p>
+ * The messages are written and read with the protobuf runtime directly, so the DTO records stay
+ * the only model of the API for JSON, CBOR and Protobuf alike. Amounts are exact decimals,
+ * never doubles. Unknown fields are skipped when reading.
+ */
+public final class CurrenciesProtobuf {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-protobuf";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    private CurrenciesProtobuf() {
+    }
+
+    public static byte[] write(CurrencyRateDTO rate) {
+        return encode(out -> writeRate(out, rate));
+    }
+
+    public static byte[] write(RateTableDTO table) {
+        return encode(out -> {
+            out.writeInt64(1, table.version());
+            out.writeString(2, table.date().toString());
+            for (var entry : table.rates().entrySet()) {
+                out.writeByteArray(3, encode(rate -> writeRate(rate, new CurrencyRateDTO(entry.getKey(), entry.getValue()))));
+            }
+        });
+    }
+
+    public static byte[] write(CurrencyConvertDTO convert) {
+        return encode(out -> writeConvert(out, convert));
+    }
+
+    public static byte[] write(ConversionBatchDTO batch) {
+        return encode(out -> {
+            for (CurrencyConvertDTO result : batch.results()) {
+                out.writeByteArray(1, encode(convert -> writeConvert(convert, result)));
+            }
+        });
+    }
+
+    public static byte[] write(ConversionRequest request) {
+        return encode(out -> writeRequest(out, request));
+    }
+
+    public static byte[] write(ConversionBatchRequest batch) {
+        return encode(out -> {
+            for (ConversionRequest request : batch.conversions()) {
+                out.writeByteArray(1, encode(conversion -> writeRequest(conversion, request)));
+            }
+        });
+    }
+
+    public static CurrencyRateDTO readCurrencyRate(byte[] bytes) throws IOException {
+        String currency = "";
+        BigDecimal rate = null;
+        var in = CodedInputStream.newInstance(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> currency = in.readString();
+                case 2 -> rate = readDecimal(in.readByteArray());
+                default -> in.skipField(tag);
+            }
+        }
+        return new CurrencyRateDTO(currency, rate);
+    }
+
+    public static RateTableDTO readRateTable(byte[] bytes) throws IOException {
+        long version = 0;
+        LocalDate date = null;
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        var in = CodedInputStream.newInstance(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> version = in.readInt64();
+                case 2 -> date = LocalDate.parse(in.readString());
+                case 3 -> {
+                    var rate = readCurrencyRate(in.readByteArray());
+                    rates.put(rate.currency(), rate.rate());
+                }
+                default -> in.skipField(tag);
+            }
+        }
+        return new RateTableDTO(version, date, rates);
+    }
+
+    public static CurrencyConvertDTO readCurrencyConvert(byte[] bytes) throws IOException {
+        String from = "";
+        String to = "";
+        BigDecimal amount = null;
+        var in = CodedInputStream.newInstance(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> from = in.readString();
+                case 2 -> to = in.readString();
+                case 3 -> amount = readDecimal(in.readByteArray());
+                default -> in.skipField(tag);
+            }
+        }
+        return new CurrencyConvertDTO(from, to, amount);
+    }
+
+    public static ConversionBatchDTO readConversionBatch(byte[] bytes) throws IOException {
+        List<CurrencyConvertDTO> results = new ArrayList<>();
+        var in = CodedInputStream.newInstance(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            if (WireFormat.getTagFieldNumber(tag) == 1) {
+                results.add(readCurrencyConvert(in.readByteArray()));
+            } else {
+                in.skipField(tag);
+            }
+        }
+        return new ConversionBatchDTO(results);
+    }
+
+    /**
+     * Reads a conversion request. Missing fields are {@code null}, so that validation reports them
+     * the same way as for JSON.
+     */
+    public static ConversionRequest readConversionRequest(byte[] bytes) throws IOException {
+        String from = null;
+        String to = null;
+        BigDecimal amount = null;
+        var in = CodedInputStream.newInstance(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> from = in.readString();
+                case 2 -> to = in.readString();
+                case 3 -> amount = readDecimal(in.readByteArray());
+                default -> in.skipField(tag);
+            }
+        }
+        return new ConversionRequest(from, to, amount);
+    }
+
+    public static ConversionBatchRequest readConversionBatchRequest(byte[] bytes) throws IOException {
+        List<ConversionRequest> conversions = new ArrayList<>();
+        var in = CodedInputStream.newInstance(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            if (WireFormat.getTagFieldNumber(tag) == 1) {
+                conversions.add(readConversionRequest(in.readByteArray()));
+            } else {
+                in.skipField(tag);
+            }
+        }
+        return new ConversionBatchRequest(conversions);
+    }
+
+    private static void writeRate(CodedOutputStream out, CurrencyRateDTO rate) throws IOException {
+        out.writeString(1, rate.currency());
+        out.writeByteArray(2, decimal(rate.rate()));
+    }
+
+    private static void writeConvert(CodedOutputStream out, CurrencyConvertDTO convert) throws IOException {
+        out.writeString(1, convert.fromCurrency());
+        out.writeString(2, convert.toCurrency());
+        out.writeByteArray(3, decimal(convert.convertedAmount()));
+    }
+
+    private static void writeRequest(CodedOutputStream out, ConversionRequest request) throws IOException {
+        out.writeString(1, request.fromCurrency());
+        out.writeString(2, request.toCurrency());
+        out.writeByteArray(3, decimal(request.amount()));
+    }
+
+    private static byte[] decimal(BigDecimal value) {
+        return encode(out -> {
+            out.writeByteArray(1, value.unscaledValue().toByteArray());
+            out.writeSInt32(2, value.scale());
+        });
+    }
+
+    private static BigDecimal readDecimal(byte[] bytes) throws IOException {
+        var unscaled = BigInteger.ZERO;
+        int scale = 0;
+        var in = CodedInputStream.newInstance(bytes);
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case 1 -> {
+                    var magnitude = in.readByteArray();
+                    unscaled = magnitude.length == 0 ? BigInteger.ZERO : new BigInteger(magnitude);
+                }
+                case 2 -> scale = in.readSInt32();
+                default -> in.skipField(tag);
+            }
+        }
+        return new BigDecimal(unscaled, scale);
+    }
+
+    private interface MessageWriter {
+        void writeTo(CodedOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(MessageWriter writer) {
+        try {
+            var bytes = new ByteArrayOutputStream(64);
+            var out = CodedOutputStream.newInstance(bytes);
+            writer.writeTo(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
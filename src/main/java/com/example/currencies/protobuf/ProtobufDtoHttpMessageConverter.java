@@ -0,0 +1,82 @@
+package com.example.currencies.protobuf;
+
+import com.example.currencies.dto.ConversionBatchDTO;
+import com.example.currencies.dto.CurrencyConvertDTO;
+import com.example.currencies.dto.CurrencyRateDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.request.ConversionBatchRequest;
+import com.example.currencies.request.ConversionRequest;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Reads and writes the currency DTOs as {@value CurrenciesProtobuf#MEDIA_TYPE_VALUE}
+ * using {@link CurrenciesProtobuf}.
+ */
+public class ProtobufDtoHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private static final Set<Class<?>> SupportedTypes = Set.of(
+            CurrencyRateDTO.class, RateTableDTO.class, CurrencyConvertDTO.class, ConversionBatchDTO.class,
+            ConversionRequest.class, ConversionBatchRequest.class);
+
+    public ProtobufDtoHttpMessageConverter() {
+        super(CurrenciesProtobuf.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SupportedTypes.contains(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        var bytes = inputMessage.getBody().readAllBytes();
+        try {
+            if (clazz == ConversionRequest.class) {
+                return CurrenciesProtobuf.readConversionRequest(bytes);
+            }
+            if (clazz == ConversionBatchRequest.class) {
+                return CurrenciesProtobuf.readConversionBatchRequest(bytes);
+            }
+            if (clazz == CurrencyRateDTO.class) {
+                return CurrenciesProtobuf.readCurrencyRate(bytes);
+            }
+            if (clazz == RateTableDTO.class) {
+                return CurrenciesProtobuf.readRateTable(bytes);
+            }
+            if (clazz == CurrencyConvertDTO.class) {
+                return CurrenciesProtobuf.readCurrencyConvert(bytes);
+            }
+            return CurrenciesProtobuf.readConversionBatch(bytes);
+        } catch (IOException | RuntimeException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf " + clazz.getSimpleName(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes;
+        if (value instanceof CurrencyRateDTO rate) {
+            bytes = CurrenciesProtobuf.write(rate);
+        } else if (value instanceof RateTableDTO table) {
+            bytes = CurrenciesProtobuf.write(table);
+        } else if (value instanceof CurrencyConvertDTO convert) {
+            bytes = CurrenciesProtobuf.write(convert);
+        } else if (value instanceof ConversionBatchDTO batch) {
+            bytes = CurrenciesProtobuf.write(batch);
+        } else if (value instanceof ConversionRequest request) {
+            bytes = CurrenciesProtobuf.write(request);
+        } else if (value instanceof ConversionBatchRequest batch) {
+            bytes = CurrenciesProtobuf.write(batch);
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + value.getClass());
+        }
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.currencies.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+public record BudgetTier (
+        @NotNull(message = "currency.budget.is_null")
+        @Positive(message = "currency.budget.should_be_positive")
+        BigDecimal budget,
+
+        @NotBlank(message = "currency.code.is_blank")
+        @Pattern(message = "currency.code.invalid_format", regexp = "^[A-Z]{3}$")
+        String currency
+){}
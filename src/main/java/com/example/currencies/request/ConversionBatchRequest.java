@@ -0,0 +1,13 @@
+package com.example.currencies.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ConversionBatchRequest (
+        @NotEmpty(message = "currency.batch.is_empty")
+        @Size(max = 1000, message = "currency.batch.too_large")
+        List<@Valid ConversionRequest> conversions
+){}
@@ -0,0 +1,38 @@
+package com.example.currencies.request;
+
+import com.example.currencies.entity.kudago.KudaGoFilter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record EventTiersRequest (
+        LocalDate dateFrom,
+
+        LocalDate dateTo,
+
+        @Pattern(message = "events.location.invalid_format", regexp = KudaGoFilter.LocationPattern)
+        String location,
+
+        @Size(max = 10, message = "events.categories.too_many")
+        List<@NotNull(message = "events.category.is_null")
+                @Pattern(message = "events.category.invalid_format", regexp = KudaGoFilter.CategoryPattern)
+                String> categories,
+
+        @JsonProperty("is_free")
+        Boolean free,
+
+        @NotEmpty(message = "events.tiers.is_empty")
+        @Size(max = 20, message = "events.tiers.too_many")
+        List<@Valid BudgetTier> tiers
+){
+
+    public KudaGoFilter kudaGoFilter() {
+        return new KudaGoFilter(location, categories, free);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.currencies.routes;
+
+import com.example.currencies.controllers.CurrencyRateBodies;
+import com.example.currencies.controllers.RateTableBodies;
+import com.example.currencies.dto.ConversionBatchDTO;
+import com.example.currencies.dto.CurrencyConvertDTO;
+import com.example.currencies.protobuf.CurrenciesProtobuf;
+import com.example.currencies.request.ConversionBatchRequest;
+import com.example.currencies.request.ConversionRequest;
+import com.example.currencies.services.CurrencyService;
+import com.example.currencies.services.RateSnapshotService;
+import com.example.currencies.services.RateUpdates;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code /currencies} on the reactive stack. Rates and conversions are answered on the event loop
+ * from the installed rate snapshot and the pre-rendered bodies; nothing here blocks. The snapshot
+ * comes from {@link RateSnapshotService#currentReactive()}, which checks CBR off the event loop.
+ * Single rates and batches are JSON only; the rate table is served in all three formats.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CurrencyHandler {
+
+    private final CurrencyService currencyService;
+    private final RateSnapshotService rateSnapshotService;
+    private final CurrencyRateBodies currencyRateBodies;
+    private final RateTableBodies rateTableBodies;
+    private final RateUpdates rateUpdates;
+    private final Validator validator;
+
+    @Autowired
+    public CurrencyHandler(CurrencyService currencyService, RateSnapshotService rateSnapshotService,
+                           CurrencyRateBodies currencyRateBodies, RateTableBodies rateTableBodies,
+                           RateUpdates rateUpdates, Validator validator) {
+        this.currencyService = currencyService;
+        this.rateSnapshotService = rateSnapshotService;
+        this.currencyRateBodies = currencyRateBodies;
+        this.rateTableBodies = rateTableBodies;
+        this.rateUpdates = rateUpdates;
+        this.validator = validator;
+    }
+
+    public Mono<ServerResponse> rate(ServerRequest request) {
+        var code = request.pathVariable("code");
+        return rateSnapshotService.currentReactive()
+                .flatMap(snapshot -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(currencyRateBodies.body(snapshot, code)));
+    }
+
+    public Mono<ServerResponse> ratesJson(ServerRequest request) {
+        return tables().flatMap(table ->
+                rateTable(request, table.eTag("json"), MediaType.APPLICATION_JSON, table.json()));
+    }
+
+    public Mono<ServerResponse> ratesCbor(ServerRequest request) {
+        return tables().flatMap(table ->
+                rateTable(request, table.eTag("cbor"), MediaType.APPLICATION_CBOR, table.cbor()));
+    }
+
+    public Mono<ServerResponse> ratesProtobuf(ServerRequest request) {
+        return tables().flatMap(table ->
+                rateTable(request, table.eTag("protobuf"), CurrenciesProtobuf.MEDIA_TYPE, table.protobuf()));
+    }
+
+    public Mono<ServerResponse> streamRates(ServerRequest request) {
+        return ServerResponse.ok().body(BodyInserters.fromServerSentEvents(rateUpdates.subscribe()));
+    }
+
+    public Mono<ServerResponse> convert(ServerRequest request) {
+        return body(request, ConversionRequest.class)
+                .flatMap(conversion -> rateSnapshotService.currentReactive()
+                        .map(snapshot -> new CurrencyConvertDTO(conversion.fromCurrency(), conversion.toCurrency(),
+                                currencyService.convertToCurrency(snapshot, conversion.fromCurrency(),
+                                        conversion.toCurrency(), conversion.amount()))))
+                .flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result));
+    }
+
+    public Mono<ServerResponse> convertBatch(ServerRequest request) {
+        return body(request, ConversionBatchRequest.class)
+                .map(batchRequest -> RequestValidation.valid(validator, batchRequest))
+                .flatMap(batchRequest -> rateSnapshotService.currentReactive().map(snapshot -> {
+                    var requests = batchRequest.conversions();
+                    var convertedAmounts = currencyService.convertAll(snapshot, requests);
+                    List<CurrencyConvertDTO> results = new ArrayList<>(requests.size());
+                    for (int i = 0; i < requests.size(); i++) {
+                        var conversion = requests.get(i);
+                        results.add(new CurrencyConvertDTO(conversion.fromCurrency(), conversion.toCurrency(),
+                                convertedAmounts.get(i)));
+                    }
+                    return new ConversionBatchDTO(results);
+                }))
+                .flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result));
+    }
+
+    private Mono<RateTableBodies.Encoded> tables() {
+        return rateSnapshotService.currentReactive().map(rateTableBodies::of);
+    }
+
+    /**
+     * Answers {@code 304 Not Modified} while the client already holds the current version.
+     */
+    private static Mono<ServerResponse> rateTable(ServerRequest request, String eTag, MediaType contentType,
+                                                  byte[] body) {
+        return request.checkNotModified(eTag)
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(eTag).contentType(contentType).bodyValue(body)));
+    }
+
+    private static <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")));
+    }
+}
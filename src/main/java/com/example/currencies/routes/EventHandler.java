@@ -0,0 +1,101 @@
+package com.example.currencies.routes;
+
+import com.example.currencies.entity.kudago.EventResponse;
+import com.example.currencies.exception.DeadlineExceededException;
+import com.example.currencies.request.EventTiersRequest;
+import com.example.currencies.services.EventService;
+import com.example.currencies.services.RequestDeadline;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@code /events} on the reactive stack, with the parameters, validation and deadlines of
+ * {@code EventController}. The crawls run on the {@code eventsExecutor}, never on the event loop;
+ * a response that is cancelled, because it timed out or the client went away, cancels its deadline.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class EventHandler {
+
+    // a request past its deadline is failed by the crawl; this only covers a stage that never returns
+    private static final long FutureGraceMs = 1000;
+
+    private final EventService eventService;
+    private final Validator validator;
+    private final String timeoutHeader;
+    private final long defaultTimeoutMs;
+    private final long maxTimeoutMs;
+
+    @Autowired
+    public EventHandler(EventService eventService, Validator validator,
+                        @Value("${events.deadline.header}") String timeoutHeader,
+                        @Value("${events.deadline.defaultMs}") long defaultTimeoutMs,
+                        @Value("${events.deadline.maxMs}") long maxTimeoutMs) {
+        this.eventService = eventService;
+        this.validator = validator;
+        this.timeoutHeader = timeoutHeader;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+    }
+
+    public Mono<ServerResponse> eventsFuture(ServerRequest request) {
+        var query = query(request);
+        var deadline = deadline(query.timeoutMs());
+        var timeout = Duration.ofNanos(deadline.remainingNanos()).plusMillis(FutureGraceMs);
+        // a composed future does not pass cancellation on to the crawl, so the deadline is cancelled here
+        var events = Mono.fromFuture(() -> eventService.fetchEventsFuture(query.budget(), query.currency(),
+                        query.dateFrom(), query.dateTo(), query.kudaGoFilter(), query.limit(), query.offset(),
+                        deadline))
+                .doOnCancel(deadline::cancel)
+                .timeout(timeout, Mono.error(DeadlineExceededException::new));
+        return respond(events);
+    }
+
+    public Mono<ServerResponse> eventTiers(ServerRequest request) {
+        var timeoutMs = EventQuery.timeout(request, timeoutHeader);
+        if (timeoutMs != null && timeoutMs < 1) {
+            throw new ServerWebInputException("events.timeout.should_be_positive");
+        }
+        var deadline = deadline(timeoutMs);
+        var timeout = Duration.ofNanos(deadline.remainingNanos()).plusMillis(FutureGraceMs);
+        var tiers = request.bodyToMono(EventTiersRequest.class)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")))
+                .map(tiersRequest -> RequestValidation.valid(validator, tiersRequest))
+                .flatMap(tiersRequest -> Mono.fromFuture(() -> eventService.fetchEventTiersFuture(
+                        tiersRequest.tiers(), tiersRequest.dateFrom(), tiersRequest.dateTo(),
+                        tiersRequest.kudaGoFilter(), deadline)))
+                .doOnCancel(deadline::cancel)
+                .timeout(timeout, Mono.error(DeadlineExceededException::new));
+        return tiers.flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result));
+    }
+
+    public Mono<ServerResponse> eventsReactive(ServerRequest request) {
+        var query = query(request);
+        return respond(eventService.fetchEventsReactive(query.budget(), query.currency(), query.dateFrom(),
+                query.dateTo(), query.kudaGoFilter(), query.limit(), query.offset(), deadline(query.timeoutMs())));
+    }
+
+    private EventQuery query(ServerRequest request) {
+        return RequestValidation.valid(validator, EventQuery.of(request, timeoutHeader));
+    }
+
+    private RequestDeadline deadline(Long timeoutMs) {
+        long millis = timeoutMs != null ? Math.min(timeoutMs, maxTimeoutMs) : defaultTimeoutMs;
+        return RequestDeadline.after(Duration.ofMillis(millis));
+    }
+
+    private static Mono<ServerResponse> respond(Mono<List<EventResponse>> events) {
+        return events.flatMap(list -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(list));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.currencies.routes;
+
+import com.example.currencies.entity.kudago.KudaGoFilter;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The parameters of an event request, with the constraints of {@code EventController}.
+ */
+record EventQuery(
+        @DecimalMin(value = "0.0", inclusive = false, message = "currency.budget.should_be_positive")
+        BigDecimal budget,
+
+        @Pattern(message = "currency.code.invalid_format", regexp = "^[A-Z]{3}$")
+        String currency,
+
+        LocalDate dateFrom,
+
+        LocalDate dateTo,
+
+        @Pattern(message = "events.location.invalid_format", regexp = KudaGoFilter.LocationPattern)
+        String location,
+
+        @Size(max = 10, message = "events.categories.too_many")
+        List<@NotNull(message = "events.category.is_null")
+                @Pattern(message = "events.category.invalid_format", regexp = KudaGoFilter.CategoryPattern)
+                String> categories,
+
+        Boolean free,
+
+        @Min(value = 1, message = "events.limit.should_be_positive")
+        @Max(value = 1000, message = "events.limit.too_large")
+        Integer limit,
+
+        @Min(value = 0, message = "events.offset.is_negative")
+        @Max(value = 10000, message = "events.offset.too_large")
+        int offset,
+
+        @Min(value = 1, message = "events.timeout.should_be_positive")
+        Long timeoutMs) {
+
+    /**
+     * Reads the query parameters and the timeout header; constraints are checked separately.
+     *
+     * @throws ServerWebInputException if a required parameter is missing or a value cannot be parsed
+     */
+    static EventQuery of(ServerRequest request, String timeoutHeader) {
+        var offset = parameter(request, "offset", Integer::valueOf);
+        return new EventQuery(
+                required(request, "budget", BigDecimal::new),
+                required(request, "currency", Function.identity()),
+                parameter(request, "dateFrom", LocalDate::parse),
+                parameter(request, "dateTo", LocalDate::parse),
+                parameter(request, "location", Function.identity()),
+                parameter(request, "categories", EventQuery::categories),
+                parameter(request, "is_free", EventQuery::bool),
+                parameter(request, "limit", Integer::valueOf),
+                offset != null ? offset : 0,
+                timeout(request, timeoutHeader));
+    }
+
+    KudaGoFilter kudaGoFilter() {
+        return new KudaGoFilter(location, categories, free);
+    }
+
+    /**
+     * @return the timeout the client asks for, unchecked, or {@code null}
+     */
+    static Long timeout(ServerRequest request, String timeoutHeader) {
+        return parse("header " + timeoutHeader, request.headers().firstHeader(timeoutHeader), Long::valueOf);
+    }
+
+    private static <T> T required(ServerRequest request, String name, Function<String, T> parser) {
+        var value = parameter(request, name, parser);
+        if (value == null) {
+            throw new ServerWebInputException("Required parameter '" + name + "' is not present");
+        }
+        return value;
+    }
+
+    private static <T> T parameter(ServerRequest request, String name, Function<String, T> parser) {
+        return parse("parameter " + name, request.queryParam(name).orElse(null), parser);
+    }
+
+    private static List<String> categories(String value) {
+        return Arrays.stream(value.split(",")).filter(category -> !category.isBlank()).toList();
+    }
+
+    private static Boolean bool(String value) {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException(value);
+        }
+        return Boolean.valueOf(value);
+    }
+
+    private static <T> T parse(String name, String value, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new ServerWebInputException("Invalid value of " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.currencies.routes;
+
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+/**
+ * Bean validation of request bodies and parameters, which functional routes do not get from Spring.
+ * Violations are raised as {@link ConstraintViolationException}, as method validation does for the controllers.
+ */
+final class RequestValidation {
+
+    private RequestValidation() {
+    }
+
+    static <T> T valid(Validator validator, T value) {
+        var violations = validator.validate(value);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return value;
+    }
+}
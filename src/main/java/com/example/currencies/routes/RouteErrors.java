@@ -0,0 +1,73 @@
+package com.example.currencies.routes;
+
+import com.example.currencies.controllers.CurrencyControllerAdvice;
+import com.example.currencies.exception.CurrencyNotFoundException;
+import com.example.currencies.exception.DeadlineExceededException;
+import com.example.currencies.exception.InvalidCurrencyCodeException;
+import com.example.currencies.exception.ServiceUnavailableException;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Answers the errors of the functional routes with the responses of {@link CurrencyControllerAdvice},
+ * so both stacks share one error contract. Invalid or missing parameters and bodies are answered with
+ * their status and a body of the same shape; anything else is left to the default WebFlux handling.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class RouteErrors implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    private final CurrencyControllerAdvice advice;
+
+    @Autowired
+    public RouteErrors(CurrencyControllerAdvice advice) {
+        this.advice = advice;
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        // handlers may throw before they return a Mono
+        return Mono.defer(() -> next.handle(request)).onErrorResume(this::render);
+    }
+
+    private Mono<ServerResponse> render(Throwable ex) {
+        ResponseEntity<?> response;
+        if (ex instanceof InvalidCurrencyCodeException invalidCode) {
+            response = advice.handleInvalidCurrencyCodeException(invalidCode);
+        } else if (ex instanceof CurrencyNotFoundException notFound) {
+            response = advice.handleCurrencyNotFoundException(notFound);
+        } else if (ex instanceof ServiceUnavailableException unavailable) {
+            response = advice.handleServiceUnavailableException(unavailable);
+        } else if (ex instanceof DeadlineExceededException deadlineExceeded) {
+            response = advice.handleDeadlineExceededException(deadlineExceeded);
+        } else if (ex instanceof RejectedExecutionException rejected) {
+            response = advice.handleTaskRejectedException(rejected);
+        } else if (ex instanceof ConstraintViolationException violation) {
+            response = advice.handleConstraintViolationException(violation);
+        } else if (ex instanceof ResponseStatusException statusException) {
+            return ServerResponse.status(statusException.getStatusCode())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(Map.of("code", statusException.getStatusCode().value(),
+                            "message", String.valueOf(statusException.getReason())));
+        } else {
+            return Mono.error(ex);
+        }
+        var body = response.getBody();
+        var builder = ServerResponse.status(response.getStatusCode())
+                .headers(headers -> headers.addAll(response.getHeaders()));
+        return body != null ? builder.bodyValue(body) : builder.build();
+    }
+}
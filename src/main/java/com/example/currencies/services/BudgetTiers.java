@@ -0,0 +1,72 @@
+package com.example.currencies.services;
+
+import com.example.currencies.dto.EventTierDTO;
+import com.example.currencies.dto.EventTiersDTO;
+import com.example.currencies.entity.kudago.EventResponse;
+import com.example.currencies.request.BudgetTier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits the events of one crawl into budget tiers.
+ * <p>
+ * The events are sorted by cost, free events first, so the events within any budget are a prefix of
+ * the list, and a tier is answered with the length of its prefix. Every cost is parsed once.
+ */
+final class BudgetTiers {
+
+    private record Priced(EventResponse event, BigDecimal cost) {
+    }
+
+    private BudgetTiers() {
+    }
+
+    /**
+     * @param events     events within the largest budget, as matched by its {@code BudgetFilter}
+     * @param tiers      the requested budgets
+     * @param budgetsRub the budgets in rubles, in the order of {@code tiers}
+     */
+    static EventTiersDTO split(List<EventResponse> events, List<BudgetTier> tiers, List<BigDecimal> budgetsRub) {
+        List<Priced> priced = new ArrayList<>(events.size());
+        for (EventResponse event : events) {
+            priced.add(new Priced(event, event.isFree() ? BigDecimal.ZERO : event.cost()));
+        }
+        // stable, so events of the same cost stay in crawl order
+        priced.sort(Comparator.comparing(Priced::cost));
+
+        var costs = new BigDecimal[priced.size()];
+        List<EventResponse> sorted = new ArrayList<>(priced.size());
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = priced.get(i).cost();
+            sorted.add(priced.get(i).event());
+        }
+
+        List<EventTierDTO> results = new ArrayList<>(tiers.size());
+        for (int i = 0; i < tiers.size(); i++) {
+            var tier = tiers.get(i);
+            var budgetRub = budgetsRub.get(i);
+            results.add(new EventTierDTO(tier.budget(), tier.currency(), budgetRub, countWithin(costs, budgetRub)));
+        }
+        return new EventTiersDTO(sorted, results);
+    }
+
+    /**
+     * @return the number of sorted costs that do not exceed the budget
+     */
+    private static int countWithin(BigDecimal[] costs, BigDecimal budget) {
+        int low = 0;
+        int high = costs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (costs[mid].compareTo(budget) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
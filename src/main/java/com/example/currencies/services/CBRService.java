@@ -4,6 +4,7 @@ import com.example.currencies.entity.cbr.Item;
 import com.example.currencies.entity.cbr.ValCurs;
 import com.example.currencies.entity.cbr.Valuta;
 import com.example.currencies.entity.cbr.Valute;
+import com.example.currencies.jfr.CbrFetchEvent;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +16,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -38,48 +42,89 @@ public class CBRService {
     @Cacheable(value = "valutaCache")
     @CircuitBreaker(name = "cbrValuta", fallbackMethod = "getValutaFallback")
     public Optional<Valuta> getValuta() {
-        var response = restClient.get()
-                .uri(getValutaUrl)
-                .retrieve()
-                .toEntity(Valuta.class);
-
-        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-            response.getBody().getItems().add(getRub());
+        var event = new CbrFetchEvent();
+        event.begin();
+        try {
+            var response = restClient.get()
+                    .uri(getValutaUrl)
+                    .retrieve()
+                    .toEntity(Valuta.class);
+
+            var valuta = response.getBody();
+            if (response.getStatusCode().is2xxSuccessful() && valuta != null) {
+                valuta = new Valuta(valuta.getName(), withRub(valuta.getItems(), getRub()));
+            }
+
+            int items = valuta != null ? valuta.getItems().size() : 0;
+            logger.info("cbr.valuta status={} items={}", response.getStatusCode().value(), items);
+            event.status = response.getStatusCode().value();
+            event.items = items;
+
+            return Optional.ofNullable(valuta);
+        } catch (RuntimeException ex) {
+            event.error = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.resource = getValutaUrl;
+            event.commit();
         }
-
-        logger.info("GetValuta respone = {}", response);
-
-        return Optional.ofNullable(response.getBody());
     }
 
     public Optional<Valuta> getValutaFallback(Exception ex) {
-        logger.error(getFallbackExMsg("getValuta", ex));
+        logFallback("getValuta", ex);
         return Optional.empty();
     }
 
     @Cacheable(value = "valCursCache")
     @CircuitBreaker(name = "cbrValCurs", fallbackMethod = "getValCursFallback")
     public Optional<ValCurs> getValCurs() {
-        var response = restClient.get()
-                .uri(getValCursUrl)
-                .retrieve()
-                .toEntity(ValCurs.class);
-
-        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-            response.getBody().getValutes().add(getRubCurs());
+        var event = new CbrFetchEvent();
+        event.begin();
+        try {
+            var response = restClient.get()
+                    .uri(getValCursUrl)
+                    .retrieve()
+                    .toEntity(ValCurs.class);
+
+            var valCurs = response.getBody();
+            if (response.getStatusCode().is2xxSuccessful() && valCurs != null) {
+                valCurs = new ValCurs(valCurs.getDate(), valCurs.getName(), withRub(valCurs.getValutes(), getRubCurs()));
+            }
+
+            int rates = valCurs != null ? valCurs.getValutes().size() : 0;
+            logger.info("cbr.valCurs status={} rates={}", response.getStatusCode().value(), rates);
+            event.status = response.getStatusCode().value();
+            event.items = rates;
+            return Optional.ofNullable(valCurs);
+        } catch (RuntimeException ex) {
+            event.error = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.resource = getValCursUrl;
+            event.commit();
         }
-
-        logger.info("getValCurs respone = {}", response);
-        return Optional.ofNullable(response.getBody());
     }
 
     public Optional<Valuta> getValCursFallback(Exception ex) {
-        logger.error(getFallbackExMsg("getValCurs", ex));
+        logFallback("getValCurs", ex);
         return Optional.empty();
     }
 
-    private String getFallbackExMsg(String method, Exception ex) {
-        return String.format("Circuit breaker fallback for %s. Error: %s", method, ex.getMessage());
+    private void logFallback(String method, Exception ex) {
+        logger.error("Circuit breaker fallback for {}. Error: {}", method, ex.getMessage());
+    }
+
+    /**
+     * CBR publications are cached and read by many request threads at once, so they are handed out
+     * with unmodifiable lists, built once with the ruble appended, instead of being amended in place.
+     */
+    private static <T> List<T> withRub(List<T> parsed, T rub) {
+        List<T> all = new ArrayList<>(parsed != null ? parsed.size() + 1 : 1);
+        if (parsed != null) {
+            all.addAll(parsed);
+        }
+        all.add(rub);
+        return Collections.unmodifiableList(all);
     }
 
     private Item getRub() {
@@ -0,0 +1,129 @@
+package com.example.currencies.services;
+
+import com.example.currencies.core.CurrencyConverter;
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.exception.CurrencyNotFoundException;
+import com.example.currencies.exception.InvalidCurrencyCodeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Negative lookup cache and counters for rejected currency codes.
+ * <p>
+ * For every rejected code the matching exception is created once per {@link RateSnapshot} and
+ * then reused, so a flood of the same bad code costs a map lookup. Rejections are counted by type
+ * ({@code currency.code.rejections} meter) and by offending code. Both the cache and the per-code
+ * counters are bounded; codes beyond the bound or longer than {@value #MAX_TRACKED_CODE_LENGTH}
+ * characters are counted under {@value #OTHER_CODES}.
+ */
+@Service
+public class CurrencyCodeRejections implements CurrencyConverter.Rejections {
+
+    public static final String OTHER_CODES = "<other>";
+
+    private static final int MAX_TRACKED_CODE_LENGTH = 16;
+
+    private final int maxTrackedCodes;
+    private final Counter invalidCounter;
+    private final Counter notFoundCounter;
+    private final Map<String, LongAdder> offenders = new ConcurrentHashMap<>();
+
+    private volatile Cache cache = new Cache(-1);
+
+    /**
+     * Rejections prepared for one snapshot version.
+     */
+    private record Cache(long version, Map<String, RuntimeException> rejections) {
+        Cache(long version) {
+            this(version, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Autowired
+    public CurrencyCodeRejections(MeterRegistry meterRegistry,
+                                  @Value("${currency.rejections.maxTrackedCodes}") int maxTrackedCodes) {
+        this.maxTrackedCodes = maxTrackedCodes;
+        this.invalidCounter = Counter.builder("currency.code.rejections")
+                .description("Requests rejected because of the currency code")
+                .tag("type", "invalid")
+                .register(meterRegistry);
+        this.notFoundCounter = Counter.builder("currency.code.rejections")
+                .description("Requests rejected because of the currency code")
+                .tag("type", "not_found")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the exception to throw for a code that has no rate in the snapshot:
+     * {@link InvalidCurrencyCodeException} for unknown and missing codes, {@link CurrencyNotFoundException}
+     * otherwise.
+     */
+    @Override
+    public RuntimeException rejectionFor(RateSnapshot snapshot, String code) {
+        if (code == null) {
+            // a missing code is invalid; it is neither cached nor tracked as a code of its own
+            invalidCounter.increment();
+            offenders.computeIfAbsent(OTHER_CODES, key -> new LongAdder()).increment();
+            return new InvalidCurrencyCodeException(null);
+        }
+        var current = cache;
+        if (current.version() != snapshot.version()) {
+            current = new Cache(snapshot.version());
+            cache = current;
+        }
+
+        var rejection = current.rejections().get(code);
+        if (rejection == null) {
+            rejection = snapshot.isKnown(code)
+                    ? new CurrencyNotFoundException(code)
+                    : new InvalidCurrencyCodeException(code);
+            if (isTrackable(code, current.rejections())) {
+                current.rejections().putIfAbsent(code, rejection);
+            }
+        }
+
+        (rejection instanceof CurrencyNotFoundException ? notFoundCounter : invalidCounter).increment();
+        countOffender(code);
+        return rejection;
+    }
+
+    /**
+     * @param limit maximum number of codes to return
+     * @return the most frequently rejected codes with their counts, most frequent first
+     */
+    public Map<String, Long> topOffenders(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        offenders.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    public void resetOffenders() {
+        offenders.clear();
+    }
+
+    private void countOffender(String code) {
+        var counter = offenders.get(code);
+        if (counter == null) {
+            var key = isTrackable(code, offenders) ? code : OTHER_CODES;
+            counter = offenders.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    private boolean isTrackable(String code, Map<String, ?> map) {
+        return code.length() <= MAX_TRACKED_CODE_LENGTH && map.size() < maxTrackedCodes;
+    }
+}
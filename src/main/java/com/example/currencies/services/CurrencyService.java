@@ -1,72 +1,104 @@
 package com.example.currencies.services;
 
-import com.example.currencies.entity.cbr.ValCurs;
+import com.example.currencies.core.CurrencyConverter;
+import com.example.currencies.core.RateSnapshot;
 import com.example.currencies.exception.CurrencyNotFoundException;
 import com.example.currencies.exception.InvalidCurrencyCodeException;
-import com.example.currencies.exception.ServiceUnavailableException;
+import com.example.currencies.jfr.CurrencyConversionEvent;
+import com.example.currencies.request.ConversionRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 public class CurrencyService {
 
-    private final CBRService cbrService;
+    private final RateSnapshotService rateSnapshotService;
+    private final CurrencyConverter converter;
 
     @Autowired
-    public CurrencyService(CBRService cbrService) {
-        this.cbrService = cbrService;
+    public CurrencyService(RateSnapshotService rateSnapshotService, CurrencyCodeRejections currencyCodeRejections) {
+        this.rateSnapshotService = rateSnapshotService;
+        this.converter = new CurrencyConverter(currencyCodeRejections);
     }
 
     public BigDecimal getCurrencyRate(String currencyCode) {
-        var currencies = cbrService.getValCurs().orElseThrow(ServiceUnavailableException::new);
-
-        validate(currencyCode);
+        return getCurrencyRate(rateSnapshotService.current(), currencyCode);
+    }
 
-        return getCurrencyRateFromList(currencies, currencyCode);
+    /**
+     * Looks the currency up in the given snapshot.
+     *
+     * @throws InvalidCurrencyCodeException if the code is not a known ISO code
+     * @throws CurrencyNotFoundException    if the currency has no rate in the snapshot
+     */
+    public BigDecimal getCurrencyRate(RateSnapshot snapshot, String currencyCode) {
+        return converter.rate(snapshot, currencyCode);
     }
 
     public BigDecimal convertToCurrency(String fromCurrency, String toCurrency, BigDecimal amount) {
-        var currencies = cbrService.getValCurs().orElseThrow(ServiceUnavailableException::new);
-
-        validate(fromCurrency);
-        validate(toCurrency);
-
-        var fromCurrencyRate = getCurrencyRateFromList(currencies, fromCurrency);
-        var toCurrencyRate = getCurrencyRateFromList(currencies, toCurrency);
+        return convertToCurrency(rateSnapshotService.current(), fromCurrency, toCurrency, amount);
+    }
 
-        return amount.multiply(fromCurrencyRate).divide(toCurrencyRate, RoundingMode.HALF_UP);
+    /**
+     * Converts every request with the rates of the same snapshot.
+     *
+     * @return the converted amounts, in request order
+     */
+    public List<BigDecimal> convertAll(List<ConversionRequest> requests) {
+        return convertAll(rateSnapshotService.current(), requests);
     }
 
-    private void validate(String code) {
-        var currency = cbrService.getValuta().orElseThrow(ServiceUnavailableException::new);
+    /**
+     * {@link #convertAll(List)} without waiting for CBR on the calling thread.
+     */
+    public Mono<List<BigDecimal>> convertAllReactive(List<ConversionRequest> requests) {
+        return rateSnapshotService.currentReactive().map(snapshot -> convertAll(snapshot, requests));
+    }
 
-        currency.getItems().stream()
-                .filter(item -> item.getIsoCharCode().equals(code))
-                .findFirst()
-                .orElseThrow(() ->
-                        new InvalidCurrencyCodeException(code));
+    /**
+     * Converts every request with the rates of the given snapshot.
+     *
+     * @return the converted amounts, in request order
+     */
+    public List<BigDecimal> convertAll(RateSnapshot snapshot, List<ConversionRequest> requests) {
+        List<BigDecimal> converted = new ArrayList<>(requests.size());
+        for (ConversionRequest request : requests) {
+            converted.add(convertToCurrency(snapshot, request.fromCurrency(), request.toCurrency(), request.amount()));
+        }
+        return converted;
     }
 
-    private BigDecimal getCurrencyRateFromList(ValCurs currencies, String code) {
-        return currencies.getValutes().stream()
-                .filter(item -> item.getCharCode().equals(code))
-                .findFirst().orElseThrow(
-                        () -> new CurrencyNotFoundException(code)
-                )
-                .getVunitRate();
-    };
+    /**
+     * Converts with the rates of the given snapshot.
+     */
+    public BigDecimal convertToCurrency(RateSnapshot snapshot, String fromCurrency, String toCurrency,
+                                        BigDecimal amount) {
+        var event = new CurrencyConversionEvent();
+        event.begin();
+
+        var converted = converter.convert(snapshot, fromCurrency, toCurrency, amount);
+        if (event.shouldCommit()) {
+            event.fromCurrency = fromCurrency;
+            event.toCurrency = toCurrency;
+            event.snapshotVersion = snapshot.version();
+            event.commit();
+        }
+        return converted;
+    }
 
     public CompletableFuture<BigDecimal> convertBudgetToRublesFuture(String fromCurrency, BigDecimal amount) {
         return CompletableFuture.supplyAsync(() -> convertToCurrency(fromCurrency, "RUB", amount));
     }
 
     public Mono<BigDecimal> convertBudgetToRublesReactive(String fromCurrency, BigDecimal amount) {
-        return Mono.fromCallable(() -> convertToCurrency(fromCurrency, "RUB", amount));
+        return rateSnapshotService.currentReactive()
+                .map(snapshot -> convertToCurrency(snapshot, fromCurrency, "RUB", amount));
     }
 
 }
@@ -3,31 +3,58 @@ package com.example.currencies.services;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Executor;
+
+/**
+ * Warms the CBR caches at startup. Not used with shared snapshot distribution,
+ * where only the leader replica talks to CBR.
+ * <p>
+ * With {@code cbr.warmup.async} the warm-up runs on the async executor, so the replica can
+ * take traffic right away; requests arriving before it finishes load the rates themselves.
+ */
 @Service
 @Profile("prod")
+@ConditionalOnProperty(name = "cbr.snapshot.distribution", havingValue = "local", matchIfMissing = true)
 public class DataLoader {
 
     private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
 
     private final CBRService cbrService;
+    private final Executor asyncExecutor;
+    private final boolean async;
 
     @Autowired
-    public DataLoader(CBRService cbrService) {
+    public DataLoader(CBRService cbrService,
+                      @Qualifier("asyncExecutor") Executor asyncExecutor,
+                      @Value("${cbr.warmup.async}") boolean async) {
         this.cbrService = cbrService;
+        this.asyncExecutor = asyncExecutor;
+        this.async = async;
     }
 
     @EventListener(ContextRefreshedEvent.class)
     public void onContextRefreshedEvent() {
+        if (async) {
+            asyncExecutor.execute(this::warmUp);
+        } else {
+            warmUp();
+        }
+    }
+
+    private void warmUp() {
         cbrService.getValuta().ifPresentOrElse(
                 valuta -> logger.info("Uploaded {} currencies", valuta.getItems().size())
                 , () -> logger.warn("Currency data has not been uploaded!"));
         cbrService.getValCurs().ifPresentOrElse(
                 valCurs -> logger.info("Uploaded {} rates", valCurs.getValutes().size())
                 , () -> logger.warn("Currency exchange rate data has not been uploaded!"));
-    };
+    }
 }
@@ -1,18 +1,30 @@
 package com.example.currencies.services;
 
+import com.example.currencies.dto.EventTiersDTO;
+import com.example.currencies.entity.kudago.BudgetFilter;
 import com.example.currencies.entity.kudago.EventResponse;
+import com.example.currencies.entity.kudago.KudaGoFilter;
+import com.example.currencies.jfr.EventsRequestEvent;
+import com.example.currencies.logging.LogSampler;
+import com.example.currencies.prewarm.EventWindow;
+import com.example.currencies.request.BudgetTier;
+import com.example.currencies.request.ConversionRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class responsible for handling event-related business logic.
@@ -21,94 +33,236 @@ import java.util.stream.Collectors;
 @Service
 public class EventService {
 
-    private static final int PlusDayCnt = 7;
+    private static final int PlusDayCnt = EventWindow.DefaultDays;
     private static final Logger logger = LoggerFactory.getLogger(EventService.class);
 
 
-    private final KudaGoService kudaGoService;
+    private final EventWindowCache eventWindowCache;
     private final CurrencyService currencyService;
+    private final LogSampler requestLogSampler;
 
     /**
      * Constructs an EventService with specified dependencies.
      *
-     * @param kudaGoService   service for retrieving events from KudaGo API
-     * @param currencyService service for handling currency conversion operations
+     * @param eventWindowCache     service for retrieving events, from memory for hot windows or from KudaGo API
+     * @param currencyService      service for handling currency conversion operations
+     * @param requestLogSampleRate only one out of this many requests is logged at INFO
      */
     @Autowired
-    public EventService(KudaGoService kudaGoService, CurrencyService currencyService) {
-        this.kudaGoService = kudaGoService;
+    public EventService(EventWindowCache eventWindowCache, CurrencyService currencyService,
+                        @Value("${events.log.requestSampleRate}") int requestLogSampleRate) {
+        this.eventWindowCache = eventWindowCache;
         this.currencyService = currencyService;
+        this.requestLogSampler = new LogSampler(requestLogSampleRate);
     }
 
     /**
      * Asynchronously retrieves and filters events that are within the specified budget and date range.
+     * <p>
+     * The budget is converted first so that every KudaGo page can be filtered as it arrives; with a
+     * {@code limit} the crawl stops as soon as {@code offset + limit} affordable events are found.
+     * Only the crawl takes an {@code eventsExecutor} thread; the caller gets the composed future
+     * right away, so no executor thread ever waits for another task of the same pool.
      *
      * @param budget   the budget constraint for the events
      * @param currency the currency in which the budget is specified
      * @param dateFrom the start date for filtering events
      * @param dateTo   the end date for filtering events
+     * @param kudaGoFilter the conditions KudaGo applies before the events are downloaded
+     * @param limit    the maximum number of events to return, or {@code null} for all of them
+     * @param offset   the number of matching events to skip
+     * @param deadline the deadline of the request, checked by every stage
      * @return a CompletableFuture containing a list of events matching the budget and date criteria
      */
-    @Async("asyncExecutor")
     public CompletableFuture<List<EventResponse>> fetchEventsFuture(BigDecimal budget, String currency, LocalDate dateFrom,
-                                                                    LocalDate dateTo) {
-        dateFrom = checkData(dateFrom);
-        dateTo = checkData(dateTo, PlusDayCnt);
-        var convertedBudgetFuture =currencyService.convertBudgetToRublesFuture(currency, budget);
-        var eventsFuture = kudaGoService.fetchEventsFuture(dateFrom, dateTo);
-        var resultFuture = new CompletableFuture<List<EventResponse>>();
-
-        convertedBudgetFuture.thenAcceptBoth(eventsFuture, (convertedBudget, events) -> {
-            logFlowInfo(convertedBudget, events);
-
-            List<EventResponse> filteredEventResponses = events.stream()
-                    .filter(event -> event.isHaveEnoughBudget(convertedBudget))
-                    .collect(Collectors.toList());
-            resultFuture.complete(filteredEventResponses);
-        }).exceptionally(ex -> {
-            resultFuture.completeExceptionally(ex);
-            return null;
-        });
-
-        return resultFuture;
+                                                                    LocalDate dateTo, KudaGoFilter kudaGoFilter,
+                                                                    Integer limit, int offset, RequestDeadline deadline) {
+        try {
+            deadline.check();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        var window = window(dateFrom, dateTo, kudaGoFilter);
+        int maxMatches = maxMatches(limit, offset);
+
+        var requestEvent = beginRequestEvent("future", window, currency, limit, offset);
+
+        return currencyService.convertBudgetToRublesFuture(currency, budget)
+                .thenCompose(convertedBudget -> eventWindowCache
+                        .fetchEventsFuture(window, new BudgetFilter(convertedBudget), maxMatches, deadline)
+                        .thenApply(events -> {
+                            logFlowInfo(convertedBudget, events);
+                            return page(requestEvent, convertedBudget, events, limit, offset);
+                        }))
+                .whenComplete((events, ex) -> commitRequestEvent(requestEvent, ex));
+    }
+
+    /**
+     * Asynchronously retrieves the events of the date range for several budgets at once.
+     * <p>
+     * All budgets are converted with the rates of one snapshot. The window is crawled once, with the
+     * largest budget as the filter, and the matching events are split into tiers by {@link BudgetTiers}.
+     *
+     * @param tiers    the budgets and their currencies
+     * @param dateFrom the start date for filtering events
+     * @param dateTo   the end date for filtering events
+     * @param kudaGoFilter the conditions KudaGo applies before the events are downloaded
+     * @param deadline the deadline of the request, checked by every stage
+     * @return a CompletableFuture containing the events, cheapest first, and the size of every tier
+     */
+    public CompletableFuture<EventTiersDTO> fetchEventTiersFuture(List<BudgetTier> tiers, LocalDate dateFrom,
+                                                                  LocalDate dateTo, KudaGoFilter kudaGoFilter,
+                                                                  RequestDeadline deadline) {
+        try {
+            deadline.check();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        List<ConversionRequest> conversions = new ArrayList<>(tiers.size());
+        for (BudgetTier tier : tiers) {
+            conversions.add(new ConversionRequest(tier.currency(), "RUB", tier.budget()));
+        }
+        var window = window(dateFrom, dateTo, kudaGoFilter);
+
+        // the reactive handler calls this on the event loop, which must not wait for CBR
+        return currencyService.convertAllReactive(conversions).toFuture()
+                .thenCompose(budgetsRub -> fetchEventTiers(tiers, window, budgetsRub, deadline));
+    }
+
+    private CompletableFuture<EventTiersDTO> fetchEventTiers(List<BudgetTier> tiers, EventWindow window,
+                                                             List<BigDecimal> budgetsRub, RequestDeadline deadline) {
+        var maxBudgetRub = Collections.max(budgetsRub);
+
+        var requestEvent = beginRequestEvent("tiers", window, currencies(tiers), null, 0);
+
+        return eventWindowCache
+                .fetchEventsFuture(window, new BudgetFilter(maxBudgetRub), Integer.MAX_VALUE, deadline)
+                .thenApply(events -> {
+                    logFlowInfo(maxBudgetRub, events);
+                    if (requestEvent.isEnabled()) {
+                        requestEvent.budgetRub = maxBudgetRub.toPlainString();
+                        requestEvent.matched = events.size();
+                        requestEvent.returned = events.size();
+                    }
+                    return BudgetTiers.split(events, tiers, budgetsRub);
+                })
+                .whenComplete((result, ex) -> commitRequestEvent(requestEvent, ex));
     }
 
     /**
      * Reactively retrieves and filters events that are within the specified budget and date range.
+     * <p>
+     * The budget is converted first so that every KudaGo page can be filtered as it arrives; with a
+     * {@code limit} the crawl stops as soon as {@code offset + limit} affordable events are found.
      *
      * @param budget   the budget constraint for the events
      * @param currency the currency in which the budget is specified
      * @param dateFrom the start date for filtering events
      * @param dateTo   the end date for filtering events
+     * @param kudaGoFilter the conditions KudaGo applies before the events are downloaded
+     * @param limit    the maximum number of events to return, or {@code null} for all of them
+     * @param offset   the number of matching events to skip
+     * @param deadline the deadline of the request, checked by every stage; cancelled with the subscription
      * @return a Mono containing a list of events matching the budget and date criteria
      */
     public Mono<List<EventResponse>> fetchEventsReactive(BigDecimal budget, String currency, LocalDate dateFrom,
-                                                       LocalDate dateTo) {
-        dateFrom = checkData(dateFrom);
-        dateTo = checkData(dateTo, 7);
-
-        Mono<BigDecimal> convertedBudgetMono = currencyService.convertBudgetToRublesReactive(currency, budget);
-        Mono<List<EventResponse>> eventsMono = kudaGoService.fetchEventsReactive(dateFrom, dateTo);
+                                                       LocalDate dateTo, KudaGoFilter kudaGoFilter,
+                                                       Integer limit, int offset, RequestDeadline deadline) {
+        var window = window(dateFrom, dateTo, kudaGoFilter);
+        int maxMatches = maxMatches(limit, offset);
 
-        return Mono.zip(convertedBudgetMono, eventsMono)
-                .flatMap(tuple -> {
-                    BigDecimal convertedBudget = tuple.getT1();
-                    List<EventResponse> events = tuple.getT2();
-                    logFlowInfo(convertedBudget, events);
+        var requestEvent = beginRequestEvent("reactive", window, currency, limit, offset);
 
-                    List<EventResponse> filteredEventResponses = events.stream()
-                            .filter(event -> event.isHaveEnoughBudget(convertedBudget))
-                            .toList();
-
-
-                    return Mono.just(filteredEventResponses);
-                })
+        return currencyService.convertBudgetToRublesReactive(currency, budget)
+                .flatMap(convertedBudget -> eventWindowCache
+                        .fetchEventsReactive(window, new BudgetFilter(convertedBudget), maxMatches, deadline)
+                        .map(events -> {
+                            logFlowInfo(convertedBudget, events);
+                            return page(requestEvent, convertedBudget, events, limit, offset);
+                        }))
+                .doOnSuccess(events -> commitRequestEvent(requestEvent, null))
+                .doOnError(ex -> commitRequestEvent(requestEvent, ex))
+                .doOnCancel(() -> commitRequestEvent(requestEvent, new CancellationException("Request cancelled")))
                 .onErrorResume(ex -> {
-                    logger.error(ex.getMessage());
+                    logger.error("events.reactive error={}", ex.getMessage());
                     return Mono.error(ex);
                 });
     }
 
+    private static String currencies(List<BudgetTier> tiers) {
+        var currencies = new StringJoiner(",");
+        tiers.stream().map(BudgetTier::currency).distinct().forEach(currencies::add);
+        return currencies.toString();
+    }
+
+    /**
+     * @return the number of matching events the crawl has to collect for the requested page
+     */
+    private static int maxMatches(Integer limit, int offset) {
+        return limit == null ? Integer.MAX_VALUE : offset + limit;
+    }
+
+    /**
+     * Slices the requested page out of the matching events and notes the counts on the request event.
+     */
+    private static List<EventResponse> page(EventsRequestEvent requestEvent, BigDecimal convertedBudget,
+                                            List<EventResponse> events, Integer limit, int offset) {
+        var page = slice(events, limit, offset);
+        if (requestEvent.isEnabled()) {
+            requestEvent.budgetRub = convertedBudget.toPlainString();
+            requestEvent.matched = events.size();
+            requestEvent.returned = page.size();
+        }
+        return page;
+    }
+
+    private static EventsRequestEvent beginRequestEvent(String mode, EventWindow window, String currency,
+                                                        Integer limit, int offset) {
+        var requestEvent = new EventsRequestEvent();
+        if (requestEvent.isEnabled()) {
+            requestEvent.mode = mode;
+            requestEvent.window = window.toString();
+            requestEvent.currency = currency;
+            requestEvent.limit = limit == null ? -1 : limit;
+            requestEvent.offset = offset;
+        }
+        requestEvent.begin();
+        return requestEvent;
+    }
+
+    private static void commitRequestEvent(EventsRequestEvent requestEvent, Throwable ex) {
+        if (requestEvent.shouldCommit()) {
+            if (ex != null) {
+                var cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                requestEvent.error = cause.getClass().getSimpleName();
+            }
+            requestEvent.commit();
+        }
+    }
+
+    /**
+     * Returns the requested page of the matching events.
+     *
+     * @param events the matching events, at most {@code offset + limit} of them
+     * @param limit  the maximum number of events to return, or {@code null} for all of them
+     * @param offset the number of events to skip
+     * @return the events from {@code offset} on, at most {@code limit} of them
+     */
+    private static List<EventResponse> slice(List<EventResponse> events, Integer limit, int offset) {
+        if (offset >= events.size()) {
+            return List.of();
+        }
+        int end = limit == null ? events.size() : Math.min(events.size(), offset + limit);
+        return events.subList(offset, end);
+    }
+
+    /**
+     * @return the window of the request, with today and the default length for missing dates
+     */
+    private EventWindow window(LocalDate dateFrom, LocalDate dateTo, KudaGoFilter kudaGoFilter) {
+        return new EventWindow(checkData(dateFrom), checkData(dateTo, PlusDayCnt), kudaGoFilter);
+    }
+
     /**
      * Returns the provided date if it is not null; otherwise, returns today's date.
      *
@@ -131,13 +285,17 @@ public class EventService {
     }
 
     /**
-     * Logs information about the budget and the number of retrieved events.
+     * Logs information about the budget and the number of retrieved events:
+     * every request at DEBUG, a sample of requests at INFO.
      *
      * @param convertedBudget the converted budget in rubles
      * @param events          the list of events that were retrieved
      */
     private void logFlowInfo(BigDecimal convertedBudget, List<EventResponse> events) {
-        logger.info("BUDGET = " + convertedBudget);
-        logger.info("GET ELEMENTS SIZE = " + events.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("events.request budgetRub={} fetched={}", convertedBudget, events.size());
+        } else if (logger.isInfoEnabled() && requestLogSampler.sample()) {
+            logger.info("events.request budgetRub={} fetched={} (sampled)", convertedBudget, events.size());
+        }
     }
 }
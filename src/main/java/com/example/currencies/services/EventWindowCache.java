@@ -0,0 +1,226 @@
+package com.example.currencies.services;
+
+import com.example.currencies.entity.kudago.EventResponse;
+import com.example.currencies.prewarm.EventWindow;
+import com.example.currencies.prewarm.HotKeys;
+import com.example.currencies.spill.EventSpillWriter;
+import com.example.currencies.spill.SpilledEvents;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Serves the most requested event windows from memory.
+ * <p>
+ * Every requested {@link EventWindow}, its dates together with the conditions KudaGo applies, is
+ * counted in a {@link HotKeys} sketch. A scheduled task crawls the current top windows in full,
+ * together with the default window of today's requests, and keeps the results for
+ * {@code events.windowCache.ttl}. The refresh interval is shorter than that, so hot windows are
+ * replaced before they expire, and at midnight the default window is rolled over to the new day.
+ * Requests for a cached window are filtered in memory; all others crawl KudaGo as before and stop
+ * as soon as enough events match.
+ * <p>
+ * Counts are halved on every refresh, so windows that are no longer asked for drop out of the
+ * top and their entries expire.
+ * <p>
+ * With {@code events.windowCache.spill.enabled}, windows of at least {@code spill.minDays} days are
+ * crawled straight into memory-mapped {@link SpilledEvents} files instead of lists on heap, and the
+ * budget filter scans the mapped records; only the matching events are materialized.
+ */
+@Service
+public class EventWindowCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventWindowCache.class);
+
+    private final KudaGoService kudaGoService;
+    private final HotKeys<EventWindow> hotWindows;
+    private final Cache<EventWindow, CachedWindow> windows;
+    private final int topK;
+    private final Path spillDirectory;
+    private final int spillMinDays;
+
+    private CompletableFuture<Void> refreshing = CompletableFuture.completedFuture(null);
+
+    /**
+     * The events of a cached window, either on heap or in spill files.
+     */
+    private record CachedWindow(List<EventResponse> events, SpilledEvents spilled) {
+
+        List<EventResponse> matching(Predicate<EventResponse> filter, int maxMatches) {
+            if (spilled != null) {
+                return spilled.matching(filter, maxMatches);
+            }
+            return events.stream()
+                    .filter(filter)
+                    .limit(maxMatches)
+                    .toList();
+        }
+
+        void release() {
+            if (spilled != null) {
+                spilled.close();
+            }
+        }
+    }
+
+    @Autowired
+    public EventWindowCache(KudaGoService kudaGoService,
+                            MeterRegistry meterRegistry,
+                            @Value("${events.windowCache.ttl}") Duration ttl,
+                            @Value("${events.windowCache.maxWindows}") int maxWindows,
+                            @Value("${events.prewarm.topK}") int topK,
+                            @Value("${events.prewarm.trackedWindows}") int trackedWindows,
+                            @Value("${events.windowCache.spill.enabled}") boolean spillEnabled,
+                            @Value("${events.windowCache.spill.dir}") String spillDir,
+                            @Value("${events.windowCache.spill.minDays}") int spillMinDays) throws IOException {
+        this.kudaGoService = kudaGoService;
+        this.topK = topK;
+        this.hotWindows = new HotKeys<>(trackedWindows, trackedWindows * 256);
+        this.windows = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxWindows)
+                .removalListener((EventWindow window, CachedWindow cached, RemovalCause cause) -> {
+                    if (cached != null) {
+                        cached.release();
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, windows, "eventWindows");
+
+        this.spillMinDays = spillMinDays;
+        if (spillEnabled) {
+            this.spillDirectory = Files.createDirectories(Path.of(spillDir));
+            SpilledEvents.deleteLeftovers(spillDirectory);
+        } else {
+            this.spillDirectory = null;
+        }
+    }
+
+    /**
+     * Returns the events of the window that match {@code filter}, from memory if the window is hot,
+     * otherwise with {@link KudaGoService#fetchEventsFuture(EventWindow, Predicate, int, RequestDeadline)}.
+     */
+    public CompletableFuture<List<EventResponse>> fetchEventsFuture(EventWindow window,
+                                                                    Predicate<EventResponse> filter, int maxMatches,
+                                                                    RequestDeadline deadline) {
+        var cached = lookUp(window);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.matching(filter, maxMatches));
+        }
+        return kudaGoService.fetchEventsFuture(window, filter, maxMatches, deadline);
+    }
+
+    /**
+     * Returns the events of the window that match {@code filter}, from memory if the window is hot,
+     * otherwise with {@link KudaGoService#fetchEventsReactive(EventWindow, Predicate, int, RequestDeadline)}.
+     */
+    public Mono<List<EventResponse>> fetchEventsReactive(EventWindow window,
+                                                         Predicate<EventResponse> filter, int maxMatches,
+                                                         RequestDeadline deadline) {
+        var cached = lookUp(window);
+        if (cached != null) {
+            return Mono.fromCallable(() -> cached.matching(filter, maxMatches));
+        }
+        return kudaGoService.fetchEventsReactive(window, filter, maxMatches, deadline);
+    }
+
+    /**
+     * Re-crawls the hottest windows and the default window, one after another. Skipped while the
+     * previous refresh is still running.
+     */
+    @Scheduled(fixedDelayString = "${events.prewarm.refreshIntervalMs}",
+            initialDelayString = "${events.prewarm.initialDelayMs}")
+    public synchronized void refreshHotWindows() {
+        if (!refreshing.isDone()) {
+            logger.warn("events.prewarm previous refresh still running, skipped");
+            return;
+        }
+        Set<EventWindow> targets = new LinkedHashSet<>();
+        targets.add(EventWindow.defaultWindow(LocalDate.now()));
+        targets.addAll(hotWindows.top(topK));
+        hotWindows.decay();
+        refreshing = refresh(targets);
+    }
+
+    /**
+     * Crawls the new day's default window, so requests without dates stay served from memory
+     * from the first minute of the day.
+     */
+    @Scheduled(cron = "${events.prewarm.rolloverCron}")
+    public synchronized void rollOver() {
+        refreshing = refreshing.thenCompose(ignored -> refresh(List.of(EventWindow.defaultWindow(LocalDate.now()))));
+    }
+
+    private CachedWindow lookUp(EventWindow window) {
+        hotWindows.record(window);
+        return windows.getIfPresent(window);
+    }
+
+    private CompletableFuture<Void> refresh(Collection<EventWindow> targets) {
+        logger.info("events.prewarm windows={}", targets);
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (EventWindow window : targets) {
+            chain = chain.thenCompose(ignored -> crawl(window)
+                    .thenAccept(cached -> windows.put(window, cached))
+                    .exceptionally(ex -> {
+                        // the previous entry stays until it expires
+                        logger.warn("events.prewarm window={} error={}", window, ex.toString());
+                        return null;
+                    }));
+        }
+        return chain;
+    }
+
+    private CompletableFuture<CachedWindow> crawl(EventWindow window) {
+        if (spillDirectory == null || ChronoUnit.DAYS.between(window.from(), window.to()) < spillMinDays) {
+            return kudaGoService.fetchEventsFuture(window)
+                    .thenApply(events -> new CachedWindow(List.copyOf(events), null));
+        }
+
+        EventSpillWriter writer;
+        try {
+            writer = new EventSpillWriter(spillDirectory);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return kudaGoService.fetchEventsInto(window, writer)
+                .thenApply(count -> {
+                    try {
+                        var spilled = writer.finish();
+                        logger.info("events.spill window={} events={}", window, spilled.size());
+                        return new CachedWindow(null, spilled);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .whenComplete((cached, ex) -> {
+                    if (ex != null) {
+                        writer.discard();
+                    }
+                });
+    }
+}
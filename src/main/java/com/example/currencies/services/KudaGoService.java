@@ -2,27 +2,72 @@ package com.example.currencies.services;
 
 import com.example.currencies.entity.kudago.EventResponse;
 import com.example.currencies.entity.kudago.EventsResponse;
+import com.example.currencies.exception.DeadlineExceededException;
+import com.example.currencies.exception.ServiceUnavailableException;
+import com.example.currencies.exception.UpstreamPageException;
+import com.example.currencies.jfr.EventFilterEvent;
+import com.example.currencies.jfr.KudaGoPageEvent;
+import com.example.currencies.logging.LogSampler;
+import com.example.currencies.prewarm.EventWindow;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.LocalDate;
+import java.net.URI;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Service for interacting with the KudaGo API to fetch event data.
  * This service provides methods for retrieving paginated event responses
  * from the KudaGo API either asynchronously or reactively, while managing
- * request rate limiting through a semaphore.
+ * request rate limiting through a semaphore, whose permits {@link PageHedging} takes.
+ * <p>
+ * Every page request goes through the {@code kudaGo} circuit breaker and bulkhead.
+ * While the breaker is open or the bulkhead is full the crawl fails fast with
+ * {@link ServiceUnavailableException} instead of waiting on a degraded upstream.
+ * <p>
+ * A crawl runs on the {@code eventsExecutor}, never on the caller's thread, and reads the pages
+ * in order with a few requests prefetched on the {@code kudaGoPageExecutor}.
+ * Callers that only need the first matching events pass a filter and a match limit, and the
+ * crawl stops and cancels the outstanding page requests as soon as the limit is reached.
+ * <p>
+ * Request crawls run under a {@link RequestDeadline}: they stop the same way once it passes or the
+ * request is cancelled, and count the pages read in vain in {@code kudago.crawl.aborted}.
  */
 @Service
 public class KudaGoService {
@@ -30,9 +75,22 @@ public class KudaGoService {
     private static final int PageSize = 100;
     private static final String TextFormat = "text";
     private static final String Fields = "id,title,price,is_free,dates";
+    private static final String ResilienceName = "kudaGo";
+    private static final ZoneId EventZone = ZoneId.of("Europe/Moscow");
+    private static final long CancellationPollNanos = TimeUnit.MILLISECONDS.toNanos(50);
 
     private final RestClient restClient;
-    private final Semaphore rateLimiterSemaphore;
+    private final LogSampler pageLogSampler;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final PageHedging pageHedging;
+    private final AsyncTaskExecutor pageExecutor;
+    private final Executor crawlExecutor;
+    private final Scheduler crawlScheduler;
+    private final int prefetchPages;
+    private final Counter abortedByDeadline;
+    private final Counter abortedByCancel;
+    private final DistributionSummary abortedPages;
 
     @Value("${kudaGo.events}")
     private String getEventsUrl;
@@ -41,134 +99,412 @@ public class KudaGoService {
      * Constructs a new instance of {@code KudaGoService}.
      *
      * @param restClient the configured RestClient for accessing the KudaGo API
-     * @param rateLimiterSemaphore a semaphore to control concurrent access to the API
+     * @param pageLogSampleRate only one out of this many page fetches is logged at INFO
+     * @param circuitBreakerRegistry registry holding the {@code kudaGo} circuit breaker
+     * @param bulkheadRegistry registry holding the {@code kudaGo} bulkhead
+     * @param pageHedging hedges slow page requests and holds a rate limiter permit for each request
+     * @param pageExecutor runs the page requests of a crawl
+     * @param crawlExecutor runs the crawls, which wait for their pages
+     * @param prefetchPages how many page requests of one crawl may be in flight at once
+     * @param meterRegistry registry for the aborted crawl metrics
      */
     @Autowired
     public KudaGoService(@Qualifier("restClientKudaGo") RestClient restClient,
-                         @Qualifier("kudaGoRateLimiterSemaphore") Semaphore rateLimiterSemaphore) {
+                         @Value("${kudaGo.log.pageSampleRate}") int pageLogSampleRate,
+                         CircuitBreakerRegistry circuitBreakerRegistry,
+                         BulkheadRegistry bulkheadRegistry,
+                         PageHedging pageHedging,
+                         @Qualifier("kudaGoPageExecutor") AsyncTaskExecutor pageExecutor,
+                         @Qualifier("eventsExecutor") Executor crawlExecutor,
+                         @Value("${kudaGo.prefetchPages}") int prefetchPages,
+                         MeterRegistry meterRegistry) {
         this.restClient = restClient;
-        this.rateLimiterSemaphore = rateLimiterSemaphore;
+        this.pageLogSampler = new LogSampler(pageLogSampleRate);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(ResilienceName);
+        this.bulkhead = bulkheadRegistry.bulkhead(ResilienceName);
+        this.pageHedging = pageHedging;
+        this.pageExecutor = pageExecutor;
+        this.crawlExecutor = crawlExecutor;
+        this.crawlScheduler = Schedulers.fromExecutor(crawlExecutor);
+        this.prefetchPages = Math.max(1, prefetchPages);
+        this.abortedByDeadline = abortedCounter(meterRegistry, "deadline");
+        this.abortedByCancel = abortedCounter(meterRegistry, "cancelled");
+        this.abortedPages = DistributionSummary.builder("kudago.crawl.aborted.pages")
+                .description("Pages a crawl had read when its request expired or was cancelled")
+                .register(meterRegistry);
     }
 
     /**
      * Fetches all events within a given date range asynchronously, using pagination to handle
      * multiple pages of results. This method applies rate limiting to control API request frequency.
+     * A page that cannot be read fails the crawl, so the result is the whole window or an error.
      *
-     * @param dateFrom the start date for fetching events
-     * @param dateTo the end date for fetching events
+     * @param window the dates and the KudaGo conditions of the events
      * @return a {@code CompletableFuture} containing a list of {@code EventResponse} objects
      */
-    public CompletableFuture<List<EventResponse>> fetchEventsFuture(LocalDate dateFrom, LocalDate dateTo) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<EventResponse> allEventResponses = new ArrayList<>();
-            int page = 1;
-            logger.info(String.format("Take events from %s to %s", dateFrom.toString(), dateTo.toString()));
-            while (true) {
-                logger.info("Get data from page " + page);
+    public CompletableFuture<List<EventResponse>> fetchEventsFuture(EventWindow window) {
+        return CompletableFuture.supplyAsync(() -> collect(window, event -> true, Integer.MAX_VALUE,
+                RequestDeadline.none(), true), crawlExecutor);
+    }
 
-                try {
-                    rateLimiterSemaphore.acquire();
-                    EventsResponse eventsResponse = getEventsFromPageFuture(dateFrom, dateTo, page).join();
-                    if (eventsResponse == null || eventsResponse.getResults().isEmpty()) {
-                        break;
-                    }
-                    allEventResponses.addAll(eventsResponse.getResults());
-                    page++;
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.error("Request interrupted", e);
-                } finally {
-                    rateLimiterSemaphore.release();
-                }
+    /**
+     * Asynchronously fetches the events within a given date range that match {@code filter},
+     * stopping as soon as {@code maxMatches} of them have been collected.
+     *
+     * @param window the dates and the KudaGo conditions of the events
+     * @param filter the condition an event has to satisfy to be collected
+     * @param maxMatches the number of matching events after which the crawl stops
+     * @param deadline the deadline of the request; cancelling the returned future cancels it
+     * @return a {@code CompletableFuture} containing the matching events in KudaGo order
+     */
+    public CompletableFuture<List<EventResponse>> fetchEventsFuture(EventWindow window,
+                                                                    Predicate<EventResponse> filter, int maxMatches,
+                                                                    RequestDeadline deadline) {
+        var events = CompletableFuture.supplyAsync(() -> collect(window, filter, maxMatches, deadline, false),
+                crawlExecutor);
+        events.whenComplete((result, ex) -> {
+            if (events.isCancelled()) {
+                deadline.cancel();
             }
-            return allEventResponses;
         });
+        return events;
     }
 
     /**
-     * Retrieves events for a specified page as a {@code CompletableFuture}.
+     * Asynchronously hands every event of the window to {@code sink} as its page arrives, without
+     * collecting them, so that a caller storing the events elsewhere holds at most a page on heap.
+     * A page that cannot be read fails the crawl.
      *
-     * @param dateFrom the start date for the query
-     * @param dateTo the end date for the query
-     * @param page the page number to retrieve
-     * @return a {@code CompletableFuture} containing an {@code EventsResponse}
+     * @param window the dates and the KudaGo conditions of the events
+     * @param sink receives the events in KudaGo order, on the crawling thread
+     * @return a {@code CompletableFuture} containing the number of events passed to the sink
      */
-    private CompletableFuture<EventsResponse> getEventsFromPageFuture(LocalDate dateFrom, LocalDate dateTo, int page) {
-        return CompletableFuture.supplyAsync(() -> getEventsFromPage(dateFrom, dateTo, page));
+    public CompletableFuture<Integer> fetchEventsInto(EventWindow window, Consumer<EventResponse> sink) {
+        return CompletableFuture.supplyAsync(() -> crawl(window, event -> true, Integer.MAX_VALUE, sink,
+                RequestDeadline.none(), true), crawlExecutor);
     }
 
     /**
      * Fetches all events within a given date range reactively, using pagination to handle
      * multiple pages of results. This method applies rate limiting to control API request frequency.
+     * A page that cannot be read fails the crawl, so the result is the whole window or an error.
      *
-     * @param dateFrom the start date for fetching events
-     * @param dateTo the end date for fetching events
+     * @param window the dates and the KudaGo conditions of the events
      * @return a {@code Mono} containing a list of {@code EventResponse} objects
      */
-    public Mono<List<EventResponse>> fetchEventsReactive(LocalDate dateFrom, LocalDate dateTo) {
-        List<EventResponse> allEventResponses = new ArrayList<>();
-        AtomicInteger page = new AtomicInteger(1);
+    public Mono<List<EventResponse>> fetchEventsReactive(EventWindow window) {
+        return Mono.fromCallable(() -> collect(window, event -> true, Integer.MAX_VALUE,
+                        RequestDeadline.none(), true))
+                .subscribeOn(crawlScheduler);
+    }
+
+    /**
+     * Reactively fetches the events within a given date range that match {@code filter},
+     * stopping as soon as {@code maxMatches} of them have been collected.
+     *
+     * @param window the dates and the KudaGo conditions of the events
+     * @param filter the condition an event has to satisfy to be collected
+     * @param maxMatches the number of matching events after which the crawl stops
+     * @param deadline the deadline of the request; cancelling the subscription cancels it
+     * @return a {@code Mono} containing the matching events in KudaGo order
+     */
+    public Mono<List<EventResponse>> fetchEventsReactive(EventWindow window,
+                                                         Predicate<EventResponse> filter, int maxMatches,
+                                                         RequestDeadline deadline) {
+        return Mono.fromCallable(() -> collect(window, filter, maxMatches, deadline, false))
+                .subscribeOn(crawlScheduler)
+                .doOnCancel(deadline::cancel);
+    }
 
-        logger.info(String.format("Take events from %s to %s", dateFrom.toString(), dateTo.toString()));
+    private List<EventResponse> collect(EventWindow window, Predicate<EventResponse> filter, int maxMatches,
+                                        RequestDeadline deadline, boolean complete) {
+        List<EventResponse> matches = new ArrayList<>();
+        crawl(window, filter, maxMatches, matches::add, deadline, complete);
+        return matches;
+    }
 
-        return Mono.fromCallable(() -> {
+    /**
+     * Reads the pages of the window in order, keeping up to {@code prefetchPages} requests in flight.
+     * Each page is filtered as soon as it is consumed; once enough events match, KudaGo has no
+     * further page, or the request has expired or been cancelled, the requests still in flight are
+     * cancelled. A page cancelled before it started never takes a rate limiter permit, and one
+     * cancelled while running is interrupted and returns its permit.
+     * <p>
+     * A page that cannot be read ends a request crawl with the events read so far, and marks the
+     * request {@link RequestDeadline#markPartial() partial}. A crawl whose events stand for the whole
+     * window, such as one that fills the window cache, fails instead.
+     *
+     * @param window the days of the window, both inclusive, and the conditions KudaGo applies
+     * @param filter the condition an event has to satisfy to be collected
+     * @param maxMatches the number of matching events after which the crawl stops
+     * @param sink receives the matching events in KudaGo order, at most {@code maxMatches} of them
+     * @param deadline the deadline of the request
+     * @param complete {@code true} to fail the crawl when a page cannot be read
+     * @return the number of matching events
+     * @throws ServiceUnavailableException if KudaGo calls are currently rejected
+     * @throws UpstreamPageException if {@code complete} is set and a page cannot be read
+     * @throws DeadlineExceededException if the deadline passes before the crawl is complete
+     * @throws CancellationException if the request is cancelled before the crawl is complete
+     */
+    private int crawl(EventWindow window, Predicate<EventResponse> filter, int maxMatches,
+                      Consumer<EventResponse> sink, RequestDeadline deadline, boolean complete) {
+        logger.debug("kudago.crawl window={} maxMatches={}", window, maxMatches);
+        int matches = 0;
+        Deque<Future<EventsResponse>> inFlight = new ArrayDeque<>(prefetchPages);
+        int nextPage = 1;
+        int consumedPage = 0;
+        try {
+            // a crawl that waited in the executor queue past its deadline is not started
+            deadline.check();
             while (true) {
-                logger.info("Get data from page " + page);
+                while (inFlight.size() < prefetchPages) {
+                    inFlight.addLast(submitPage(window, nextPage++));
+                }
+                EventsResponse eventsResponse;
                 try {
-                    rateLimiterSemaphore.acquire();
-                    EventsResponse eventsResponse = getEventsFromPage(dateFrom, dateTo, page.get());
-
-                    if (eventsResponse == null || eventsResponse.getResults().isEmpty()) {
-                        break;
+                    eventsResponse = awaitPage(inFlight.removeFirst(), consumedPage + 1, deadline);
+                } catch (UpstreamPageException ex) {
+                    if (complete) {
+                        logger.warn("kudago.crawl window={} failed={}", window, ex.getMessage());
+                        throw ex;
                     }
+                    deadline.markPartial();
+                    eventsResponse = null;
+                }
+                consumedPage++;
+                if (eventsResponse == null || eventsResponse.getResults().isEmpty()) {
+                    break;
+                }
+                matches = addMatches(sink, matches, eventsResponse.getResults(), consumedPage,
+                        window, filter, maxMatches);
+                if (matches >= maxMatches || eventsResponse.getNext() == null) {
+                    break;
+                }
+            }
+        } catch (DeadlineExceededException | CancellationException ex) {
+            (ex instanceof DeadlineExceededException ? abortedByDeadline : abortedByCancel).increment();
+            abortedPages.record(consumedPage);
+            logger.debug("kudago.crawl aborted={} pages={} matches={}", ex.getClass().getSimpleName(),
+                    consumedPage, matches);
+            throw ex;
+        } finally {
+            inFlight.forEach(page -> page.cancel(true));
+        }
+        return matches;
+    }
 
-                    logger.info("Add data from page " + page);
-                    allEventResponses.addAll(eventsResponse.getResults());
-                    page.getAndIncrement();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.error("Request interrupted", e);
-                } finally {
-                    rateLimiterSemaphore.release();
+    /**
+     * Submits a page request to the page executor. {@link PageHedging} holds the rate limiter permit
+     * only while an HTTP request runs, so a page cancelled before it starts never takes one.
+     */
+    private Future<EventsResponse> submitPage(EventWindow window, int page) {
+        return pageExecutor.submit(() -> fetchPage(window, page));
+    }
+
+    /**
+     * Waits for a page, in slices of {@link #CancellationPollNanos} so that a cancelled request is
+     * noticed soon, and never beyond the deadline.
+     *
+     * @throws UpstreamPageException if the page cannot be read
+     */
+    private static EventsResponse awaitPage(Future<EventsResponse> page, int pageNumber, RequestDeadline deadline) {
+        try {
+            while (true) {
+                deadline.check();
+                try {
+                    return page.get(Math.min(deadline.remainingNanos(), CancellationPollNanos), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // look at the deadline again
                 }
             }
-            return allEventResponses;
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Crawl interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            logger.warn("kudago.page error={}", e.getCause().toString());
+            throw new UpstreamPageException(pageNumber, e.getCause());
+        }
     }
 
     /**
-     * Retrieves events for a specific page and date range from the KudaGo API.
+     * Adds the events of a page that take place in the requested window and match the filter,
+     * keeping only their occurrences inside the window. KudaGo returns the full date history of
+     * every event, so this is done as each page arrives to keep the crawl's heap usage
+     * proportional to the window.
      *
-     * @param dateFrom the start date for the query
-     * @param dateTo the end date for the query
+     * @param sink       receives the crawl results
+     * @param matched    the number of events passed to the sink so far
+     * @param events     the events of one page
+     * @param page       the page number
+     * @param window     the days of the window, both inclusive
+     * @param filter     the condition an event has to satisfy to be collected
+     * @param maxMatches the number of results at which the crawl is complete
+     * @return the number of events passed to the sink, including those of this page
+     */
+    private int addMatches(Consumer<EventResponse> sink, int matched, List<EventResponse> events, int page,
+                           EventWindow window, Predicate<EventResponse> filter, int maxMatches) {
+        var filterEvent = new EventFilterEvent();
+        filterEvent.begin();
+        int matchedBefore = matched;
+
+        var from = window.from().atStartOfDay(EventZone).toInstant();
+        var to = window.to().plusDays(1).atStartOfDay(EventZone).toInstant();
+        for (EventResponse event : events) {
+            if (matched >= maxMatches) {
+                break;
+            }
+            if (event.trimToWindow(from, to) && filter.test(event)) {
+                sink.accept(event);
+                matched++;
+            }
+        }
+
+        if (filterEvent.shouldCommit()) {
+            filterEvent.page = page;
+            filterEvent.total = events.size();
+            filterEvent.kept = matched - matchedBefore;
+            filterEvent.commit();
+        }
+        return matched;
+    }
+
+    /**
+     * Retrieves events for a specified page, hedging the request if it is slow.
+     *
+     * @param window the dates and the KudaGo conditions of the query
      * @param page the page number to retrieve
-     * @return an {@code EventsResponse} containing the event data for the specified page
+     * @return an {@code EventsResponse}, or {@code null} if there is nothing more to read
      */
-    private EventsResponse getEventsFromPage(LocalDate dateFrom, LocalDate dateTo, int page) {
+    private EventsResponse fetchPage(EventWindow window, int page) {
+        return pageHedging.call(() -> getEventsFromPage(window, page));
+    }
+
+    /**
+     * Retrieves events for a specific page and date range from the KudaGo API. The conditions of the
+     * window are passed on as query parameters, so KudaGo only returns, and pages, the matching events.
+     *
+     * @param window the dates and the KudaGo conditions of the query
+     * @param page the page number to retrieve
+     * @return an {@code EventsResponse} containing the event data for the specified page,
+     * or {@code null} if there is nothing more to read or the request was cancelled
+     * @throws ServiceUnavailableException if the circuit breaker is open or the bulkhead is full
+     * @throws UpstreamPageException if KudaGo fails or does not answer
+     */
+    private EventsResponse getEventsFromPage(EventWindow window, int page) {
+        var pageEvent = new KudaGoPageEvent();
+        pageEvent.begin();
+        ResponseEntity<EventsResponse> response = null;
+        int status = 0;
+        String outcome = "error";
         try {
-            var response = restClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path(getEventsUrl)
-                            .queryParam("actual_since", dateFrom.toString())
-                            .queryParam("actual_until", dateTo.toString())
-                            .queryParam("page", page)
-                            .queryParam("page_size", PageSize)
-                            .queryParam("text_format", TextFormat)
-                            .queryParam("fields", Fields)
-                            .build())
+            response = circuitBreaker.executeSupplier(bulkhead.decorateSupplier(() -> cancellable(() -> restClient.get()
+                    .uri(uriBuilder -> eventsUri(uriBuilder, window, page))
                     .retrieve()
-                    .toEntity(EventsResponse.class);
-            if (!(response.getStatusCode().is2xxSuccessful() && response.getBody() != null)) {
-                logger.info("Get nothing from page" + page);
+                    .toEntity(EventsResponse.class))));
+            status = response.getStatusCode().value();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new UpstreamPageException(page, "status " + status);
+            }
+            if (response.getBody() == null) {
+                logger.info("kudago.page page={} status={} events=0", page, status);
                 return null;
             }
-            logger.info("Get successfull from page" + page);
-            logger.info("Cnt elements = " + response.getBody().getResults().size());
+            outcome = "ok";
+            logPage(page, response.getBody().getResults().size());
             return response.getBody();
-        } catch (Exception ex) {
-            logger.info("(ex) Get nothing from page" + page);
-            logger.error(ex.getMessage());
+        } catch (CancellationException ex) {
+            outcome = "cancelled";
+            logger.debug("kudago.page page={} cancelled", page);
+            return null;
+        } catch (CallNotPermittedException | BulkheadFullException ex) {
+            outcome = "rejected";
+            logger.warn("kudago.page page={} rejected={}", page, ex.getMessage());
+            throw new ServiceUnavailableException();
+        } catch (UpstreamPageException ex) {
+            logger.warn("kudago.page page={} error={}", page, ex.getMessage());
+            throw ex;
+        } catch (HttpClientErrorException.NotFound ex) {
+            // KudaGo's answer for the page after the last one
+            status = ex.getStatusCode().value();
             return null;
+        } catch (Exception ex) {
+            if (ex instanceof RestClientResponseException responseException) {
+                status = responseException.getStatusCode().value();
+            }
+            logger.warn("kudago.page page={} error={}", page, ex.getMessage());
+            throw new UpstreamPageException(page, ex);
+        } finally {
+            if (pageEvent.shouldCommit()) {
+                pageEvent.page = page;
+                pageEvent.window = window.toString();
+                pageEvent.status = status;
+                pageEvent.outcome = outcome;
+                if (response != null) {
+                    pageEvent.bytes = Math.max(0, response.getHeaders().getContentLength());
+                    pageEvent.events = response.getBody() != null ? response.getBody().getResults().size() : 0;
+                }
+                pageEvent.commit();
+            }
+        }
+    }
+
+    private URI eventsUri(UriBuilder uriBuilder, EventWindow window, int page) {
+        uriBuilder.path(getEventsUrl)
+                .queryParam("actual_since", window.from().toString())
+                .queryParam("actual_until", window.to().toString())
+                .queryParam("page", page)
+                .queryParam("page_size", PageSize)
+                .queryParam("text_format", TextFormat)
+                .queryParam("fields", Fields);
+        var conditions = window.filter();
+        if (conditions.location() != null) {
+            uriBuilder.queryParam("location", conditions.location());
+        }
+        if (!conditions.categories().isEmpty()) {
+            uriBuilder.queryParam("categories", String.join(",", conditions.categories()));
+        }
+        if (conditions.free() != null) {
+            uriBuilder.queryParam("is_free", conditions.free());
+        }
+        return uriBuilder.build();
+    }
+
+    /**
+     * Runs a page request, reporting a request aborted by {@link Future#cancel(boolean)} as a
+     * {@link CancellationException}, which the circuit breaker ignores, instead of as an I/O failure.
+     */
+    private static <T> T cancellable(Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (RuntimeException ex) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Page request cancelled");
+            }
+            throw ex;
+        }
+    }
+
+    private static Counter abortedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("kudago.crawl.aborted")
+                .description("Crawls stopped because their request expired or was cancelled")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Logs a successfully fetched page: every page at DEBUG, a sample of pages at INFO.
+     *
+     * @param page the page number
+     * @param events the number of events on the page
+     */
+    private void logPage(int page, int events) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("kudago.page page={} events={}", page, events);
+        } else if (logger.isInfoEnabled() && pageLogSampler.sample()) {
+            logger.info("kudago.page page={} events={} (sampled)", page, events);
         }
     }
 }
@@ -0,0 +1,305 @@
+package com.example.currencies.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution of KudaGo page requests, and the KudaGo rate limiter permits they hold.
+ * <p>
+ * Every request holds a permit for exactly as long as it runs, so the permits bound the requests
+ * actually in flight at KudaGo. If a page has not answered within the configured percentile of
+ * recent page latencies, a duplicate request is sent and whichever answers first wins; the other
+ * one is interrupted. A request that fails does not decide the page while the other one still runs:
+ * the page fails only once every request sent for it has failed. A hedge is only sent if a permit
+ * is free right away and hedges stay below the configured share of all requests, so hedging never
+ * pushes KudaGo traffic past its limits.
+ * <p>
+ * With hedging enabled, both requests of a page run on the {@code kudaGoRequestExecutor}. A caller
+ * that is interrupted, because its crawl no longer needs the page, interrupts them too and returns
+ * at once; their permits are returned when they have actually stopped.
+ * <p>
+ * {@code kudago.page.latency{path=primary}} records how long the first request took, which is the
+ * latency without hedging; a first request interrupted because its hedge won counts with the time
+ * it had run. {@code path=effective} records what the caller waited. The difference of their p99
+ * is the gain from hedging.
+ */
+@Component
+public class PageHedging {
+
+    private static final int LatencyWindowSize = 256;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxHedgeRatio;
+    private final Semaphore rateLimiterSemaphore;
+    private final AsyncTaskExecutor requestExecutor;
+
+    private final AtomicLongArray latencyWindow = new AtomicLongArray(LatencyWindowSize);
+    private final AtomicLong latencySamples = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    private final Timer primaryLatency;
+    private final Timer effectiveLatency;
+    private final Counter hedgesWon;
+    private final Counter hedgesLost;
+
+    @Autowired
+    public PageHedging(@Value("${kudaGo.hedging.enabled}") boolean enabled,
+                       @Value("${kudaGo.hedging.percentile}") double percentile,
+                       @Value("${kudaGo.hedging.minDelayMs}") long minDelayMs,
+                       @Value("${kudaGo.hedging.maxRatio}") double maxHedgeRatio,
+                       @Qualifier("kudaGoRateLimiterSemaphore") Semaphore rateLimiterSemaphore,
+                       @Qualifier("kudaGoRequestExecutor") AsyncTaskExecutor requestExecutor,
+                       MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.rateLimiterSemaphore = rateLimiterSemaphore;
+        this.requestExecutor = requestExecutor;
+
+        this.primaryLatency = pageLatencyTimer(meterRegistry, "primary");
+        this.effectiveLatency = pageLatencyTimer(meterRegistry, "effective");
+        this.hedgesWon = hedgeCounter(meterRegistry, "won");
+        this.hedgesLost = hedgeCounter(meterRegistry, "lost");
+    }
+
+    /**
+     * Runs the request under a rate limiter permit, hedging it if it is slow.
+     *
+     * @param request a blocking page request; it may be executed twice
+     * @return the first result
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    public <T> T call(Supplier<T> request) {
+        requests.increment();
+        if (!enabled) {
+            return callUnhedged(request);
+        }
+
+        var attempts = new Attempts<T>();
+        var result = attempts.result;
+        var primaryStart = new AtomicLong();
+        Future<?> primary;
+        try {
+            primary = requestExecutor.submit(() -> runPrimary(request, attempts, primaryStart));
+        } catch (RejectedExecutionException ex) {
+            return callUnhedged(request);
+        }
+        var hedge = new AtomicReference<Future<?>>();
+        CompletableFuture.delayedExecutor(hedgeDelayNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> hedge(request, attempts, hedge));
+
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            // the crawl no longer needs this page
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Page request cancelled");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(ex.getCause());
+        } finally {
+            // stops the loser, or both requests if the caller gave up, and keeps a late hedge from starting
+            result.cancel(false);
+            primary.cancel(true);
+            var hedged = hedge.get();
+            if (hedged != null) {
+                hedged.cancel(true);
+            }
+            long started = primaryStart.get();
+            if (started != 0) {
+                effectiveLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private <T> T callUnhedged(Supplier<T> request) {
+        acquirePermit();
+        long start = System.nanoTime();
+        try {
+            return request.get();
+        } finally {
+            rateLimiterSemaphore.release();
+            long latency = System.nanoTime() - start;
+            primaryLatency.record(latency, TimeUnit.NANOSECONDS);
+            effectiveLatency.record(latency, TimeUnit.NANOSECONDS);
+            recordLatency(latency);
+        }
+    }
+
+    private <T> void runPrimary(Supplier<T> request, Attempts<T> attempts, AtomicLong primaryStart) {
+        try {
+            acquirePermit();
+        } catch (CancellationException ex) {
+            attempts.failed(ex);
+            return;
+        }
+        long start = System.nanoTime();
+        primaryStart.set(start);
+        try {
+            attempts.succeeded(request.get());
+        } catch (RuntimeException ex) {
+            attempts.failed(ex);
+        } finally {
+            rateLimiterSemaphore.release();
+            long latency = System.nanoTime() - start;
+            primaryLatency.record(latency, TimeUnit.NANOSECONDS);
+            recordLatency(latency);
+        }
+    }
+
+    private <T> void hedge(Supplier<T> request, Attempts<T> attempts, AtomicReference<Future<?>> hedge) {
+        if (attempts.result.isDone() || hedges.sum() >= maxHedgeRatio * requests.sum()) {
+            return;
+        }
+        var task = new FutureTask<Void>(() -> {
+            if (attempts.result.isDone() || !rateLimiterSemaphore.tryAcquire()) {
+                return;
+            }
+            if (!attempts.started()) {
+                rateLimiterSemaphore.release();
+                return;
+            }
+            hedges.increment();
+            boolean won = false;
+            try {
+                won = attempts.succeeded(request.get());
+            } catch (RuntimeException ex) {
+                attempts.failed(ex);
+            } finally {
+                rateLimiterSemaphore.release();
+            }
+            (won ? hedgesWon : hedgesLost).increment();
+        }, null);
+        // published before it can run, so that a caller returning meanwhile finds and cancels it
+        hedge.set(task);
+        try {
+            requestExecutor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // the primary request goes on alone
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            rateLimiterSemaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Page request cancelled");
+        }
+    }
+
+    /**
+     * The requests sent for one page. The first page answered completes the result; a failure
+     * completes it only when no other request for the page is running, with the failures of the
+     * others suppressed in it.
+     */
+    private static final class Attempts<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        // the primary request counts from its submission
+        private int running = 1;
+        private RuntimeException failure;
+
+        /**
+         * @return {@code false} if the page is already decided and a hedge must not be sent
+         */
+        synchronized boolean started() {
+            if (result.isDone()) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+
+        /**
+         * @return {@code true} if this answer completed the result
+         */
+        boolean succeeded(T page) {
+            synchronized (this) {
+                running--;
+            }
+            return result.complete(page);
+        }
+
+        void failed(RuntimeException ex) {
+            RuntimeException pageFailure;
+            synchronized (this) {
+                running--;
+                if (failure == null) {
+                    failure = ex;
+                } else if (failure != ex) {
+                    failure.addSuppressed(ex);
+                }
+                if (running > 0) {
+                    return;
+                }
+                pageFailure = failure;
+            }
+            result.completeExceptionally(pageFailure);
+        }
+    }
+
+    /**
+     * @return the configured percentile of the recent primary latencies, but at least the minimum delay
+     */
+    private long hedgeDelayNanos() {
+        int samples = (int) Math.min(latencySamples.get(), LatencyWindowSize);
+        if (samples == 0) {
+            return minDelayNanos;
+        }
+        long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            latencies[i] = latencyWindow.get(i);
+        }
+        Arrays.sort(latencies);
+        int index = Math.min(samples - 1, (int) Math.ceil(percentile * samples) - 1);
+        return Math.max(minDelayNanos, latencies[Math.max(0, index)]);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        latencyWindow.set((int) (latencySamples.getAndIncrement() % LatencyWindowSize), latencyNanos);
+    }
+
+    private static Timer pageLatencyTimer(MeterRegistry meterRegistry, String path) {
+        return Timer.builder("kudago.page.latency")
+                .description("KudaGo page latency without hedging (primary) and as seen by the caller (effective)")
+                .tag("path", path)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static Counter hedgeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("kudago.page.hedges")
+                .description("Hedged KudaGo page requests by whether the hedge answered first")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
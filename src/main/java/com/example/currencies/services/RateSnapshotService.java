@@ -0,0 +1,221 @@
+package com.example.currencies.services;
+
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.entity.cbr.Item;
+import com.example.currencies.entity.cbr.ValCurs;
+import com.example.currencies.entity.cbr.Valuta;
+import com.example.currencies.entity.cbr.Valute;
+import com.example.currencies.exception.ServiceUnavailableException;
+import com.example.currencies.snapshot.RateSnapshotInstalledEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the current {@link RateSnapshot}.
+ * <p>
+ * In {@code local} distribution mode the snapshot is rebuilt only when {@link CBRService} hands out
+ * new data, and the CBR caches are consulted at most once per check interval, so most requests get
+ * the snapshot with a single volatile read.
+ * <p>
+ * In {@code shared} mode snapshots are installed by {@link SharedSnapshotSync}, and only the
+ * leader replica calls CBR; until the first snapshot arrives the service is unavailable.
+ * <p>
+ * Every newly installed version is announced with a {@link RateSnapshotInstalledEvent}.
+ */
+@Service
+public class RateSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateSnapshotService.class);
+    private static final String SharedDistribution = "shared";
+
+    private final CBRService cbrService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long checkIntervalNanos;
+    private final boolean shared;
+    private final AtomicBoolean refreshingInBackground = new AtomicBoolean();
+
+    private volatile Installed installed;
+    private long lastVersion;
+
+    /**
+     * The installed snapshot together with the CBR objects it was built from,
+     * which are {@code null} for snapshots received from the shared store.
+     */
+    private record Installed(RateSnapshot snapshot, ValCurs valCurs, Valuta valuta, long checkedAtNanos) {
+    }
+
+    @Autowired
+    public RateSnapshotService(CBRService cbrService,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${cbr.snapshot.checkIntervalMs}") long checkIntervalMs,
+                               @Value("${cbr.snapshot.distribution}") String distribution) {
+        this.cbrService = cbrService;
+        this.eventPublisher = eventPublisher;
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkIntervalMs);
+        this.shared = SharedDistribution.equals(distribution);
+    }
+
+    /**
+     * @return the current snapshot
+     * @throws ServiceUnavailableException if the CBR data cannot be obtained
+     */
+    public RateSnapshot current() {
+        var current = installed;
+        if (shared) {
+            if (current == null) {
+                throw new ServiceUnavailableException();
+            }
+            return current.snapshot();
+        }
+        if (isFresh(current)) {
+            return current.snapshot();
+        }
+        return refresh();
+    }
+
+    /**
+     * The current snapshot for callers on an event loop, which must not wait for CBR. An installed
+     * snapshot is emitted right away; if it is due for a check, CBR is asked in the background on the
+     * bounded elastic scheduler, and later calls see the result. Only while no snapshot is installed
+     * does the subscriber wait, for a refresh on that scheduler.
+     *
+     * @return the current snapshot, or a {@link ServiceUnavailableException} if there is none and
+     * the CBR data cannot be obtained
+     */
+    public Mono<RateSnapshot> currentReactive() {
+        var current = installed;
+        if (current == null) {
+            if (shared) {
+                return Mono.error(ServiceUnavailableException::new);
+            }
+            return Mono.fromCallable(this::refresh).subscribeOn(Schedulers.boundedElastic());
+        }
+        if (!shared && !isFresh(current)) {
+            refreshInBackground();
+        }
+        return Mono.just(current.snapshot());
+    }
+
+    /**
+     * @return the installed snapshot, without checking CBR for a newer one,
+     * or an empty optional if none is installed yet
+     */
+    public Optional<RateSnapshot> installed() {
+        var current = installed;
+        return current == null ? Optional.empty() : Optional.of(current.snapshot());
+    }
+
+    /**
+     * Rebuilds the snapshot from the CBR data, regardless of the check interval. A new version is
+     * installed only if the data differs from the installed snapshot.
+     *
+     * @return the installed snapshot
+     * @throws ServiceUnavailableException if the CBR data cannot be obtained
+     */
+    public synchronized RateSnapshot refreshFromCbr() {
+        var valCurs = cbrService.getValCurs().orElseThrow(ServiceUnavailableException::new);
+        var valuta = cbrService.getValuta().orElseThrow(ServiceUnavailableException::new);
+
+        var current = installed;
+        RateSnapshot snapshot;
+        if (current != null && current.valCurs() == valCurs && current.valuta() == valuta) {
+            snapshot = current.snapshot();
+        } else {
+            var built = snapshotOf(lastVersion + 1, valCurs, valuta);
+            if (current != null && current.snapshot().hasSameContentAs(built)) {
+                snapshot = current.snapshot();
+            } else {
+                snapshot = built;
+                lastVersion = built.version();
+            }
+        }
+        installed = new Installed(snapshot, valCurs, valuta, System.nanoTime());
+        if (current == null || current.snapshot() != snapshot) {
+            publishInstalled(current, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Installs a snapshot built elsewhere, if it is newer than the installed one.
+     *
+     * @return {@code true} if the snapshot was installed
+     */
+    public synchronized boolean install(RateSnapshot snapshot) {
+        var current = installed;
+        if (current != null && current.snapshot().version() >= snapshot.version()) {
+            return false;
+        }
+        installed = new Installed(snapshot, null, null, System.nanoTime());
+        lastVersion = snapshot.version();
+        publishInstalled(current, snapshot);
+        return true;
+    }
+
+    /**
+     * Indexes a CBR publication: rates from the daily quotes, valid codes from the currency reference.
+     */
+    private static RateSnapshot snapshotOf(long version, ValCurs valCurs, Valuta valuta) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (Valute valute : valCurs.getValutes()) {
+            if (valute.getCharCode() != null && valute.getVunitRate() != null) {
+                rates.put(valute.getCharCode(), valute.getVunitRate());
+            }
+        }
+
+        Set<String> knownCodes = new HashSet<>();
+        for (Item item : valuta.getItems()) {
+            if (item.getIsoCharCode() != null) {
+                knownCodes.add(item.getIsoCharCode());
+            }
+        }
+
+        return new RateSnapshot(version, valCurs.getDate(), rates, knownCodes);
+    }
+
+    private void publishInstalled(Installed previous, RateSnapshot snapshot) {
+        eventPublisher.publishEvent(new RateSnapshotInstalledEvent(previous == null ? null : previous.snapshot(), snapshot));
+    }
+
+    private synchronized RateSnapshot refresh() {
+        var current = installed;
+        if (isFresh(current)) {
+            return current.snapshot();
+        }
+        return refreshFromCbr();
+    }
+
+    private void refreshInBackground() {
+        if (!refreshingInBackground.compareAndSet(false, true)) {
+            return;
+        }
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                refresh();
+            } catch (ServiceUnavailableException ex) {
+                logger.debug("rates.snapshot background refresh failed, keeping the installed snapshot");
+            } finally {
+                refreshingInBackground.set(false);
+            }
+        });
+    }
+
+    private boolean isFresh(Installed current) {
+        return current != null && System.nanoTime() - current.checkedAtNanos() < checkIntervalNanos;
+    }
+}
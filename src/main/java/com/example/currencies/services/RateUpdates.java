@@ -0,0 +1,147 @@
+package com.example.currencies.services;
+
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.dto.RateDeltaDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.exception.ServiceUnavailableException;
+import com.example.currencies.snapshot.RateSnapshotInstalledEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fan-out of rate snapshot changes to {@code GET /currencies/rates/stream} subscribers.
+ * <p>
+ * Each installed snapshot is rendered once into two server-sent events: the full table, which a
+ * subscriber receives first, and the delta against the previous version, which subscribers that
+ * already have the table receive. All subscribers share the same rendered events, and no thread is
+ * held per connection. The latest update is replayed on subscription, so a subscriber cannot miss
+ * a version between reading the table and receiving deltas.
+ * <p>
+ * While there are subscribers the snapshot is checked every {@code cbr.snapshot.checkIntervalMs},
+ * so new CBR data is pushed even when nobody asks for a rate. A comment line is sent every
+ * {@code currency.stream.heartbeatMs} to keep idle connections open through proxies. A subscriber
+ * that falls more than {@code currency.stream.maxPendingEvents} events behind is disconnected and
+ * gets the full table again when it reconnects. On the servlet stack the writes themselves wait in
+ * the bounded queue of the {@code mvcAsyncExecutor}, {@code currency.stream.writeQueueCapacity};
+ * a stream whose write does not fit is closed in the same way.
+ */
+@Service
+public class RateUpdates {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateUpdates.class);
+    private static final String TableEvent = "rates";
+    private static final String DeltaEvent = "delta";
+    private static final ServerSentEvent<String> Heartbeat = ServerSentEvent.<String>builder().comment("heartbeat").build();
+    private static final Sinks.EmitFailureHandler RetryOnContention = Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final RateSnapshotService rateSnapshotService;
+    private final ObjectMapper objectMapper;
+    private final int maxPendingEvents;
+
+    private final Sinks.Many<Update> updates = Sinks.many().replay().latest();
+    private final Sinks.Many<ServerSentEvent<String>> heartbeats = Sinks.many().multicast().directBestEffort();
+
+    /**
+     * The rendered events of one snapshot version; {@code delta} is {@code null} for the first one.
+     */
+    private record Update(ServerSentEvent<String> table, ServerSentEvent<String> delta) {
+    }
+
+    @Autowired
+    public RateUpdates(RateSnapshotService rateSnapshotService, ObjectMapper objectMapper,
+                       @Value("${currency.stream.maxPendingEvents}") int maxPendingEvents,
+                       MeterRegistry meterRegistry) {
+        this.rateSnapshotService = rateSnapshotService;
+        this.objectMapper = objectMapper;
+        this.maxPendingEvents = maxPendingEvents;
+
+        Gauge.builder("currency.rates.stream.subscribers", updates, Sinks.Many::currentSubscriberCount)
+                .description("Open rate stream connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the full rate table followed by a delta for every new snapshot, interleaved with heartbeats
+     */
+    public Flux<ServerSentEvent<String>> subscribe() {
+        return Flux.defer(() -> {
+                    var first = new AtomicBoolean(true);
+                    return updates.asFlux().map(update ->
+                            first.getAndSet(false) || update.delta() == null ? update.table() : update.delta());
+                })
+                .onBackpressureBuffer(maxPendingEvents)
+                .mergeWith(heartbeats.asFlux());
+    }
+
+    @EventListener
+    public void onSnapshotInstalled(RateSnapshotInstalledEvent event) {
+        var current = event.current();
+        var table = render(TableEvent, current.version(),
+                new RateTableDTO(current.version(), current.date(), new TreeMap<>(current.rates())));
+        var delta = event.previous() == null ? null : render(DeltaEvent, current.version(), delta(event.previous(), current));
+        updates.emitNext(new Update(table, delta), RetryOnContention);
+    }
+
+    @Scheduled(fixedDelayString = "${cbr.snapshot.checkIntervalMs}")
+    public void checkForUpdates() {
+        if (updates.currentSubscriberCount() == 0) {
+            return;
+        }
+        try {
+            rateSnapshotService.current();
+        } catch (ServiceUnavailableException ex) {
+            logger.debug("rates.stream snapshot unavailable");
+        }
+    }
+
+    @Scheduled(fixedRateString = "${currency.stream.heartbeatMs}")
+    public void heartbeat() {
+        if (heartbeats.currentSubscriberCount() > 0) {
+            heartbeats.tryEmitNext(Heartbeat);
+        }
+    }
+
+    private static RateDeltaDTO delta(RateSnapshot previous, RateSnapshot current) {
+        Map<String, BigDecimal> changed = new TreeMap<>();
+        current.rates().forEach((code, rate) -> {
+            var previousRate = previous.rate(code);
+            if (previousRate == null || previousRate.compareTo(rate) != 0) {
+                changed.put(code, rate);
+            }
+        });
+        Set<String> removed = new TreeSet<>(previous.rates().keySet());
+        removed.removeAll(current.rates().keySet());
+        return new RateDeltaDTO(current.version(), previous.version(), current.date(), changed, removed);
+    }
+
+    private ServerSentEvent<String> render(String name, long version, Object data) {
+        try {
+            return ServerSentEvent.builder(objectMapper.writeValueAsString(data))
+                    .id(String.valueOf(version))
+                    .event(name)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize rate " + name + " of version " + version, e);
+        }
+    }
+}
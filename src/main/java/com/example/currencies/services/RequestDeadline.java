@@ -0,0 +1,89 @@
+package com.example.currencies.services;
+
+import com.example.currencies.exception.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The time by which an event request has to be answered, and whether its client is still waiting.
+ * <p>
+ * One instance is created per request and handed to every stage of the pipeline. Stages that wait,
+ * such as a crawl waiting for its next page, wait at most until the deadline and stop once the
+ * request is cancelled, so that no upstream work is done for an answer nobody reads.
+ * <p>
+ * A stage that answers with part of the data, such as a crawl that lost a page, marks the request
+ * {@link #markPartial() partial}, so that the answer is sent but not reused for other requests.
+ */
+public final class RequestDeadline {
+
+    private final long expiresAtNanos;
+    private final boolean bounded;
+    private volatile boolean cancelled;
+    private volatile boolean partial;
+
+    private RequestDeadline(long expiresAtNanos, boolean bounded) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * @return a deadline {@code timeout} from now
+     */
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    /**
+     * @return a deadline that never expires but can still be cancelled, for work without a client
+     */
+    public static RequestDeadline none() {
+        return new RequestDeadline(0, false);
+    }
+
+    /**
+     * @return the nanoseconds left until the deadline, {@link Long#MAX_VALUE} if there is none
+     */
+    public long remainingNanos() {
+        return bounded ? expiresAtNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Marks the request as abandoned, e.g. because its client went away.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Marks the answer as incomplete, e.g. because a KudaGo page could not be read.
+     */
+    public void markPartial() {
+        partial = true;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * @throws CancellationException    if the request was cancelled
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public void check() {
+        if (cancelled) {
+            throw new CancellationException("Request cancelled");
+        }
+        if (isExpired()) {
+            throw new DeadlineExceededException();
+        }
+    }
+}
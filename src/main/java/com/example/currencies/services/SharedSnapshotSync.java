@@ -0,0 +1,64 @@
+package com.example.currencies.services;
+
+import com.example.currencies.snapshot.SnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Shared snapshot distribution ({@code cbr.snapshot.distribution=shared}).
+ * <p>
+ * Every sync interval each replica tries to take or renew the leader lease in the {@link SnapshotStore}.
+ * The leader refreshes the snapshot from CBR and publishes it when it has changed; all other replicas
+ * only read the store and install newer snapshots. Every replica therefore serves the leader's
+ * snapshot version at most one sync interval after it was published.
+ */
+@Service
+@ConditionalOnProperty(name = "cbr.snapshot.distribution", havingValue = "shared")
+public class SharedSnapshotSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedSnapshotSync.class);
+
+    private final RateSnapshotService rateSnapshotService;
+    private final SnapshotStore snapshotStore;
+    private final String nodeId;
+    private final Duration lease;
+
+    @Autowired
+    public SharedSnapshotSync(RateSnapshotService rateSnapshotService,
+                              SnapshotStore snapshotStore,
+                              @Value("${cbr.snapshot.shared.nodeId:}") String nodeId,
+                              @Value("${cbr.snapshot.shared.leaseMs}") long leaseMs) {
+        this.rateSnapshotService = rateSnapshotService;
+        this.snapshotStore = snapshotStore;
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        this.lease = Duration.ofMillis(leaseMs);
+    }
+
+    @Scheduled(fixedDelayString = "${cbr.snapshot.shared.syncIntervalMs}")
+    public void sync() {
+        try {
+            var published = snapshotStore.read();
+            published.ifPresent(rateSnapshotService::install);
+
+            if (!snapshotStore.tryAcquireLeadership(nodeId, lease)) {
+                return;
+            }
+
+            var snapshot = rateSnapshotService.refreshFromCbr();
+            if (published.isEmpty() || published.get().version() < snapshot.version()) {
+                snapshotStore.publish(snapshot);
+                logger.info("snapshot.publish node={} version={} date={}", nodeId, snapshot.version(), snapshot.date());
+            }
+        } catch (Exception ex) {
+            logger.warn("snapshot.sync node={} error={}", nodeId, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.currencies.snapshot;
+
+import com.example.currencies.core.RateSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * {@link SnapshotStore} on a directory shared by all replicas (a mounted volume, or a local
+ * directory when testing several instances on one machine).
+ * <p>
+ * The snapshot is replaced atomically by writing a temporary file and moving it into place.
+ * The leader lease is a small file holding the owner id and expiry time; it is read and written
+ * under an exclusive file lock, so only one replica can hold an unexpired lease.
+ */
+public class FileSnapshotStore implements SnapshotStore {
+
+    private static final String SnapshotFile = "rates.snapshot";
+    private static final String LeaseFile = "leader.lease";
+    private static final String LockFile = "leader.lock";
+
+    // file locks are held per JVM, so replicas in one JVM (tests) also need a JVM-wide lock
+    private static final Object JvmLock = new Object();
+
+    private final Path directory;
+
+    private volatile Cached cached;
+
+    /**
+     * The last snapshot read, with the modification time of the file it came from.
+     */
+    private record Cached(FileTime modified, RateSnapshot snapshot) {
+    }
+
+    public FileSnapshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create snapshot directory " + directory, e);
+        }
+    }
+
+    @Override
+    public Optional<RateSnapshot> read() {
+        var file = directory.resolve(SnapshotFile);
+        try {
+            var modified = Files.getLastModifiedTime(file);
+            var current = cached;
+            if (current != null && current.modified().equals(modified)) {
+                return Optional.of(current.snapshot());
+            }
+            var snapshot = SnapshotCodec.decode(Files.readAllBytes(file));
+            cached = new Cached(modified, snapshot);
+            return Optional.of(snapshot);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read snapshot from " + file, e);
+        }
+    }
+
+    @Override
+    public void publish(RateSnapshot snapshot) {
+        var file = directory.resolve(SnapshotFile);
+        try {
+            var temp = Files.createTempFile(directory, SnapshotFile, ".tmp");
+            Files.write(temp, SnapshotCodec.encode(snapshot));
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish snapshot to " + file, e);
+        }
+    }
+
+    @Override
+    public boolean tryAcquireLeadership(String nodeId, Duration lease) {
+        var leaseFile = directory.resolve(LeaseFile);
+        synchronized (JvmLock) {
+            try (var channel = FileChannel.open(directory.resolve(LockFile),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 var ignored = channel.lock()) {
+                long now = System.currentTimeMillis();
+                if (Files.exists(leaseFile)) {
+                    var parts = Files.readString(leaseFile, StandardCharsets.UTF_8).trim().split(" ");
+                    boolean expired = parts.length != 2 || Long.parseLong(parts[1]) < now;
+                    if (!expired && !parts[0].equals(nodeId)) {
+                        return false;
+                    }
+                }
+                Files.writeString(leaseFile, nodeId + " " + (now + lease.toMillis()), StandardCharsets.UTF_8);
+                return true;
+            } catch (IOException | NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.currencies.snapshot;
+
+import com.example.currencies.core.RateSnapshot;
+
+/**
+ * Published whenever a new {@link RateSnapshot} version has been installed.
+ *
+ * @param previous the snapshot that was replaced, or {@code null} for the first one
+ * @param current  the snapshot that is now served
+ */
+public record RateSnapshotInstalledEvent(RateSnapshot previous, RateSnapshot current) {
+}
@@ -0,0 +1,90 @@
+package com.example.currencies.snapshot;
+
+import com.example.currencies.core.RateSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary form of a {@link RateSnapshot}: version, publication date, every rate as
+ * unscaled value and scale, then the valid ISO codes. A snapshot of the full CBR table
+ * takes about 1 KB.
+ */
+public final class SnapshotCodec {
+
+    private static final int MAGIC = 0x52415445;
+    private static final byte FORMAT_VERSION = 1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private SnapshotCodec() {
+    }
+
+    public static byte[] encode(RateSnapshot snapshot) {
+        var bytes = new ByteArrayOutputStream(1024);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(snapshot.version());
+            out.writeLong(snapshot.date() != null ? snapshot.date().toEpochDay() : NO_DATE);
+
+            out.writeInt(snapshot.rates().size());
+            for (var rate : snapshot.rates().entrySet()) {
+                out.writeUTF(rate.getKey());
+                out.writeInt(rate.getValue().scale());
+                var unscaled = rate.getValue().unscaledValue().toByteArray();
+                out.writeByte(unscaled.length);
+                out.write(unscaled);
+            }
+
+            out.writeInt(snapshot.knownCodes().size());
+            for (var code : snapshot.knownCodes()) {
+                out.writeUTF(code);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode rate snapshot", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the data is not an encoded snapshot
+     */
+    public static RateSnapshot decode(byte[] data) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+                throw new IOException("Not a rate snapshot");
+            }
+            long version = in.readLong();
+            long epochDay = in.readLong();
+
+            int rateCount = in.readInt();
+            Map<String, BigDecimal> rates = new HashMap<>(rateCount * 2);
+            for (int i = 0; i < rateCount; i++) {
+                var code = in.readUTF();
+                int scale = in.readInt();
+                var unscaled = new byte[in.readUnsignedByte()];
+                in.readFully(unscaled);
+                rates.put(code, new BigDecimal(new BigInteger(unscaled), scale));
+            }
+
+            int codeCount = in.readInt();
+            Set<String> knownCodes = new HashSet<>(codeCount * 2);
+            for (int i = 0; i < codeCount; i++) {
+                knownCodes.add(in.readUTF());
+            }
+
+            var date = epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+            return new RateSnapshot(version, date, rates, knownCodes);
+        }
+    }
+}
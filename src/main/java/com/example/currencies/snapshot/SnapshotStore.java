@@ -0,0 +1,32 @@
+package com.example.currencies.snapshot;
+
+import com.example.currencies.core.RateSnapshot;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Shared storage through which replicas exchange rate snapshots. One replica, the leader,
+ * fetches the CBR feeds and publishes snapshots; the others read them.
+ */
+public interface SnapshotStore {
+
+    /**
+     * @return the latest published snapshot, if any
+     */
+    Optional<RateSnapshot> read();
+
+    /**
+     * Replaces the published snapshot.
+     */
+    void publish(RateSnapshot snapshot);
+
+    /**
+     * Acquires or renews the leader lease for the given node.
+     *
+     * @param nodeId unique id of the calling replica
+     * @param lease  how long the lease stays valid without renewal
+     * @return {@code true} if the node holds the lease after the call
+     */
+    boolean tryAcquireLeadership(String nodeId, Duration lease);
+}
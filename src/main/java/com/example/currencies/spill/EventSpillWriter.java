@@ -0,0 +1,151 @@
+package com.example.currencies.spill;
+
+import com.example.currencies.entity.kudago.EventResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Writes events, as they are crawled, into a pair of spill files that {@link SpilledEvents} maps
+ * into memory.
+ * <p>
+ * The records file holds one fixed-size record per event with everything the budget filter needs:
+ * <pre>
+ *  0  int   id
+ *  4  int   flags            FREE, PRICED (cost is valid), OVERSIZED (cost does not fit a long)
+ *  8  long  cost             whole rubles
+ * 16  long  nextStart        epoch seconds of the earliest occurrence in the window
+ * 24  long  payloadOffset    where title, price and dates start in the payload file
+ * </pre>
+ * The payload file holds the variable-length rest, read only for events that match. Only the
+ * write buffers are kept on heap, whatever the number of events.
+ */
+public class EventSpillWriter implements Consumer<EventResponse>, Closeable {
+
+    static final int RecordSize = 32;
+    static final int Free = 1;
+    static final int Priced = 2;
+    static final int Oversized = 4;
+    static final long NoInstant = Long.MIN_VALUE;
+
+    private static final int BufferSize = 64 * 1024;
+    private static final BigDecimal MaxCost = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final Path recordsFile;
+    private final Path payloadFile;
+    private final DataOutputStream records;
+    private final DataOutputStream payload;
+    private long payloadOffset;
+    private int count;
+    private boolean closed;
+
+    /**
+     * Creates the spill files in the directory.
+     */
+    public EventSpillWriter(Path directory) throws IOException {
+        this.recordsFile = Files.createTempFile(directory, SpilledEvents.FilePrefix, ".rec");
+        this.payloadFile = recordsFile.resolveSibling(recordsFile.getFileName().toString().replace(".rec", ".dat"));
+        this.records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recordsFile), BufferSize));
+        this.payload = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(payloadFile), BufferSize));
+    }
+
+    @Override
+    public void accept(EventResponse event) {
+        try {
+            write(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Completes the files and maps them.
+     *
+     * @return the spilled events; the writer must not be used afterwards
+     */
+    public SpilledEvents finish() throws IOException {
+        close();
+        return SpilledEvents.map(recordsFile, payloadFile, count);
+    }
+
+    /**
+     * Closes and deletes the files, e.g. after a failed crawl.
+     */
+    public void discard() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // deleted anyway
+        }
+        SpilledEvents.delete(recordsFile, payloadFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try (records; payload) {
+                records.flush();
+                payload.flush();
+            }
+        }
+    }
+
+    private void write(EventResponse event) throws IOException {
+        int flags = event.isFree() ? Free : 0;
+        long cost = 0;
+        var eventCost = event.getPrice() == null || event.getPrice().isEmpty() ? null : event.cost();
+        if (eventCost != null) {
+            if (eventCost.compareTo(MaxCost) <= 0) {
+                flags |= Priced;
+                cost = eventCost.longValueExact();
+            } else {
+                flags |= Oversized;
+            }
+        }
+
+        var dates = event.getDates();
+        records.writeInt(event.getId());
+        records.writeInt(flags);
+        records.writeLong(cost);
+        records.writeLong(event.getNextStart());
+        records.writeLong(payloadOffset);
+
+        payloadOffset += writeString(event.getTitle());
+        payloadOffset += writeString(event.getPrice());
+        int dateCount = dates != null ? dates.size() : 0;
+        payload.writeInt(dateCount);
+        payloadOffset += Integer.BYTES;
+        for (int i = 0; i < dateCount; i++) {
+            payloadOffset += writeInstant(dates.get(i).getStart());
+            payloadOffset += writeInstant(dates.get(i).getEnd());
+        }
+        count++;
+    }
+
+    private int writeString(String value) throws IOException {
+        if (value == null) {
+            payload.writeInt(-1);
+            return Integer.BYTES;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        payload.writeInt(bytes.length);
+        payload.write(bytes);
+        return Integer.BYTES + bytes.length;
+    }
+
+    private int writeInstant(Instant instant) throws IOException {
+        payload.writeLong(instant != null ? instant.getEpochSecond() : NoInstant);
+        payload.writeInt(instant != null ? instant.getNano() : 0);
+        return Long.BYTES + Integer.BYTES;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.currencies.spill;
+
+import com.example.currencies.entity.kudago.BudgetFilter;
+import com.example.currencies.entity.kudago.DateResponse;
+import com.example.currencies.entity.kudago.EventResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static com.example.currencies.spill.EventSpillWriter.Free;
+import static com.example.currencies.spill.EventSpillWriter.NoInstant;
+import static com.example.currencies.spill.EventSpillWriter.Oversized;
+import static com.example.currencies.spill.EventSpillWriter.Priced;
+import static com.example.currencies.spill.EventSpillWriter.RecordSize;
+
+/**
+ * Events of one window held in memory-mapped spill files written by {@link EventSpillWriter}.
+ * <p>
+ * A {@link BudgetFilter} is evaluated on the fixed-size records alone; only the events that match
+ * are decoded into {@link EventResponse} objects, so scanning a window costs no heap beyond the
+ * result. Other filters are tested on every decoded event. Scans may run concurrently.
+ */
+public class SpilledEvents implements AutoCloseable {
+
+    static final String FilePrefix = "events-";
+
+    private static final Logger logger = LoggerFactory.getLogger(SpilledEvents.class);
+
+    private final Path recordsFile;
+    private final Path payloadFile;
+    private final ByteBuffer records;
+    private final ByteBuffer payload;
+    private final int count;
+
+    private SpilledEvents(Path recordsFile, Path payloadFile, ByteBuffer records, ByteBuffer payload, int count) {
+        this.recordsFile = recordsFile;
+        this.payloadFile = payloadFile;
+        this.records = records;
+        this.payload = payload;
+        this.count = count;
+    }
+
+    static SpilledEvents map(Path recordsFile, Path payloadFile, int count) throws IOException {
+        try {
+            return new SpilledEvents(recordsFile, payloadFile, map(recordsFile), map(payloadFile), count);
+        } catch (IOException | RuntimeException e) {
+            delete(recordsFile, payloadFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the spill files a previous run may have left in the directory.
+     */
+    public static void deleteLeftovers(Path directory) throws IOException {
+        try (var files = Files.newDirectoryStream(directory, FilePrefix + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the events that match the filter, in the order they were written, at most {@code maxMatches}
+     */
+    public List<EventResponse> matching(Predicate<EventResponse> filter, int maxMatches) {
+        var budget = filter instanceof BudgetFilter budgetFilter ? budgetFilter : null;
+        List<EventResponse> matches = new ArrayList<>();
+        for (int i = 0; i < count && matches.size() < maxMatches; i++) {
+            int record = i * RecordSize;
+            int flags = records.getInt(record + 4);
+            if (budget != null && (flags & Oversized) == 0) {
+                boolean affordable = (flags & Free) != 0
+                        || ((flags & Priced) != 0 && budget.acceptsCost(records.getLong(record + 8)));
+                if (affordable) {
+                    matches.add(decode(record, flags));
+                }
+            } else {
+                var event = decode(record, flags);
+                if (filter.test(event)) {
+                    matches.add(event);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Deletes the files. The mappings stay readable until they are garbage collected, so scans
+     * still running finish normally.
+     */
+    @Override
+    public void close() {
+        delete(recordsFile, payloadFile);
+    }
+
+    static void delete(Path recordsFile, Path payloadFile) {
+        try {
+            Files.deleteIfExists(recordsFile);
+            Files.deleteIfExists(payloadFile);
+        } catch (IOException e) {
+            logger.warn("events.spill cannot delete {}: {}", recordsFile, e.toString());
+        }
+    }
+
+    private EventResponse decode(int record, int flags) {
+        int offset = Math.toIntExact(records.getLong(record + 24));
+
+        int titleLength = payload.getInt(offset);
+        var title = readString(offset + Integer.BYTES, titleLength);
+        offset += Integer.BYTES + Math.max(0, titleLength);
+
+        int priceLength = payload.getInt(offset);
+        var price = readString(offset + Integer.BYTES, priceLength);
+        offset += Integer.BYTES + Math.max(0, priceLength);
+
+        int dateCount = payload.getInt(offset);
+        offset += Integer.BYTES;
+        List<DateResponse> dates = new ArrayList<>(dateCount);
+        for (int i = 0; i < dateCount; i++) {
+            var start = readInstant(offset);
+            var end = readInstant(offset + Long.BYTES + Integer.BYTES);
+            dates.add(new DateResponse(start, end));
+            offset += 2 * (Long.BYTES + Integer.BYTES);
+        }
+
+        return new EventResponse(records.getInt(record), title, price, (flags & Free) != 0, dates,
+                records.getLong(record + 16));
+    }
+
+    private String readString(int offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        payload.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Instant readInstant(int offset) {
+        long seconds = payload.getLong(offset);
+        return seconds == NoInstant ? null : Instant.ofEpochSecond(seconds, payload.getInt(offset + Long.BYTES));
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map: " + channel.size() + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
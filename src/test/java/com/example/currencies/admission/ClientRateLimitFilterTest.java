@@ -0,0 +1,62 @@
+package com.example.currencies.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientRateLimitFilterTest {
+
+    private static final String ClientHeader = "X-API-Key";
+    private static final String KnownKey = "known-key";
+
+    private final ClientRateLimitFilter filter = new ClientRateLimitFilter(
+            List.of(new ClientRateLimitFilter.Group("events", "/events/", new TokenBuckets(2, 0.001, 4, 16))),
+            ClientHeader, Set.of(KnownKey), "{\"message\":\"rate.limited\"}".getBytes(StandardCharsets.UTF_8),
+            new SimpleMeterRegistry());
+
+    @Test
+    void rotatingUnknownKeysFromOneAddressIsStillLimited() throws Exception {
+        assertThat(status("10.0.0.1", "made-up-1")).isEqualTo(200);
+        assertThat(status("10.0.0.1", "made-up-2")).isEqualTo(200);
+
+        var response = get("10.0.0.1", "made-up-3");
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(status("10.0.0.1", null)).isEqualTo(429);
+    }
+
+    @Test
+    void knownKeyHasABucketOfItsOwn() throws Exception {
+        assertThat(status("10.0.0.1", null)).isEqualTo(200);
+        assertThat(status("10.0.0.1", null)).isEqualTo(200);
+        assertThat(status("10.0.0.1", null)).isEqualTo(429);
+
+        assertThat(status("10.0.0.1", KnownKey)).isEqualTo(200);
+        assertThat(status("10.0.0.2", KnownKey)).isEqualTo(200);
+        assertThat(status("10.0.0.3", KnownKey)).isEqualTo(429);
+    }
+
+    private int status(String remoteAddress, String apiKey) throws Exception {
+        return get(remoteAddress, apiKey).getStatus();
+    }
+
+    private MockHttpServletResponse get(String remoteAddress, String apiKey) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/events/reactive");
+        request.setRemoteAddr(remoteAddress);
+        if (apiKey != null) {
+            request.addHeader(ClientHeader, apiKey);
+        }
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+        });
+        return response;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.currencies.admission;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EndpointBulkheadFilterTest {
+
+    private static final int Quota = 2;
+    private static final String OverloadedBody = "{\"message\":\"service.overloaded\"}";
+
+    private final Bulkhead threads = bulkhead("threads");
+    private final Bulkhead requests = bulkhead("requests");
+    private final EndpointBulkheadFilter filter = new EndpointBulkheadFilter(List.of(
+            new EndpointBulkheadFilter.Family("currencies", "/currencies/", threads, false),
+            new EndpointBulkheadFilter.Family("events", "/events/", requests, true)),
+            1, OverloadedBody.getBytes(StandardCharsets.UTF_8), new SimpleMeterRegistry());
+
+    @Test
+    void synchronousRequestsReturnTheirPermit() throws Exception {
+        for (int i = 0; i < Quota * 3; i++) {
+            assertThat(get("/events/completableFuture", (req, res) -> {
+            }).getStatus()).isEqualTo(200);
+        }
+
+        assertThat(available(requests)).isEqualTo(Quota);
+    }
+
+    @Test
+    void failingRequestReturnsItsPermit() {
+        assertThatThrownBy(() -> get("/events/completableFuture", (req, res) -> {
+            throw new IOException("client went away");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(available(requests)).isEqualTo(Quota);
+    }
+
+    @Test
+    void asynchronousRequestHoldsItsPermitUntilComplete() throws Exception {
+        var request = startAsync("/events/completableFuture");
+        assertThat(available(requests)).isEqualTo(Quota - 1);
+
+        asyncContext(request).complete();
+
+        assertThat(available(requests)).isEqualTo(Quota);
+    }
+
+    @Test
+    void asynchronousRequestReturnsItsPermitOnTimeout() throws Exception {
+        var request = startAsync("/events/completableFuture");
+
+        for (AsyncListener listener : asyncContext(request).getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext(request)));
+        }
+
+        assertThat(available(requests)).isEqualTo(Quota);
+    }
+
+    @Test
+    void asynchronousRequestReturnsItsPermitOnceOnErrorAndComplete() throws Exception {
+        var request = startAsync("/events/completableFuture");
+
+        for (AsyncListener listener : asyncContext(request).getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext(request), new IOException("broken pipe")));
+        }
+        asyncContext(request).complete();
+
+        assertThat(available(requests)).isEqualTo(Quota);
+    }
+
+    @Test
+    void threadFamilyReturnsThePermitWhenTheThreadIsHandedBack() throws Exception {
+        startAsync("/currencies/rates/stream");
+
+        assertThat(available(threads)).isEqualTo(Quota);
+    }
+
+    @Test
+    void fullFamilyIsAnsweredWith503AndRetryAfter() throws Exception {
+        for (int i = 0; i < Quota; i++) {
+            startAsync("/events/reactive");
+        }
+
+        var rejected = get("/events/reactive", (req, res) -> {
+            throw new AssertionError("a rejected request must not reach the handler");
+        });
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).isEqualTo(OverloadedBody);
+        assertThat(get("/currencies/rate/USD", (req, res) -> {
+        }).getStatus()).isEqualTo(200);
+        assertThat(get("/actuator/health", (req, res) -> {
+        }).getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletRequest startAsync(String path) throws Exception {
+        var request = request(path);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertThat(request.isAsyncStarted()).isTrue();
+        return request;
+    }
+
+    private MockHttpServletResponse get(String path, FilterChain chain) throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request(path), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        var request = new MockHttpServletRequest("GET", path);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static MockAsyncContext asyncContext(MockHttpServletRequest request) {
+        return (MockAsyncContext) request.getAsyncContext();
+    }
+
+    private static int available(Bulkhead bulkhead) {
+        return bulkhead.getMetrics().getAvailableConcurrentCalls();
+    }
+
+    private static Bulkhead bulkhead(String name) {
+        return Bulkhead.of(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(Quota)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+}
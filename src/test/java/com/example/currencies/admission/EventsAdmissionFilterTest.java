@@ -0,0 +1,197 @@
+package com.example.currencies.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventsAdmissionFilterTest {
+
+    private static final int Limit = 2;
+    private static final String OverloadedBody = "{\"message\":\"service.overloaded\"}";
+
+    private final RecordingLimit limit = new RecordingLimit();
+    private final EventsAdmissionFilter filter = new EventsAdmissionFilter(limit, 1, 1,
+            OverloadedBody.getBytes(StandardCharsets.UTF_8), new SimpleMeterRegistry());
+
+    @Test
+    void synchronousRequestsReportTheirStatus() throws Exception {
+        get("/events/completableFuture", status(200));
+        get("/events/completableFuture", status(400));
+        get("/events/completableFuture", status(502));
+
+        assertThat(limit.outcomes).containsExactly("success", "ignored", "dropped");
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void failingRequestIsReportedAsDropped() {
+        assertThatThrownBy(() -> get("/events/completableFuture", (req, res) -> {
+            throw new IOException("client went away");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(limit.outcomes).containsExactly("dropped");
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void asynchronousRequestHoldsItsPermitUntilComplete() throws Exception {
+        var request = startAsync("/events/completableFuture", 200);
+        assertThat(limit.getInFlight()).isEqualTo(1);
+        assertThat(limit.outcomes).isEmpty();
+
+        asyncContext(request).complete();
+
+        assertThat(limit.outcomes).containsExactly("success");
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void asynchronousServerErrorIsReportedAsDropped() throws Exception {
+        var request = startAsync("/events/completableFuture", 500);
+
+        asyncContext(request).complete();
+
+        assertThat(limit.outcomes).containsExactly("dropped");
+    }
+
+    @Test
+    void asynchronousClientErrorIsIgnored() throws Exception {
+        var request = startAsync("/events/completableFuture", 404);
+
+        asyncContext(request).complete();
+
+        assertThat(limit.outcomes).containsExactly("ignored");
+    }
+
+    @Test
+    void asynchronousTimeoutIsReportedOnceAsDropped() throws Exception {
+        var request = startAsync("/events/completableFuture", 200);
+
+        for (AsyncListener listener : asyncContext(request).getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext(request)));
+        }
+        asyncContext(request).complete();
+
+        assertThat(limit.outcomes).containsExactly("dropped");
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void asynchronousErrorIsReportedOnceAsDropped() throws Exception {
+        var request = startAsync("/events/completableFuture", 200);
+
+        for (AsyncListener listener : asyncContext(request).getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext(request), new IOException("broken pipe")));
+        }
+        asyncContext(request).complete();
+
+        assertThat(limit.outcomes).containsExactly("dropped");
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void requestsBeyondTheLimitAreAnsweredWith503AndRetryAfter() throws Exception {
+        for (int i = 0; i < Limit; i++) {
+            startAsync("/events/reactive", 200);
+        }
+
+        var rejected = get("/events/reactive", (req, res) -> {
+            throw new AssertionError("a rejected request must not reach the handler");
+        });
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).isEqualTo(OverloadedBody);
+        assertThat(limit.getInFlight()).isEqualTo(Limit);
+        assertThat(get("/currencies/rate/USD", status(200)).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void eventRequestsAreShedWhilePriorityRequestsOccupyTheThreads() throws Exception {
+        var shed = new MockHttpServletResponse[1];
+
+        get("/currencies/rate/USD", (req, res) -> shed[0] = get("/events/reactive", (r, s) -> {
+            throw new AssertionError("a shed request must not reach the handler");
+        }));
+
+        assertThat(shed[0].getStatus()).isEqualTo(503);
+        assertThat(shed[0].getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(limit.getInFlight()).isZero();
+        assertThat(get("/events/reactive", status(200)).getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletRequest startAsync(String path, int status) throws Exception {
+        var request = request(path);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            ((HttpServletResponse) res).setStatus(status);
+            req.startAsync(req, res);
+        });
+        assertThat(request.isAsyncStarted()).isTrue();
+        return request;
+    }
+
+    private MockHttpServletResponse get(String path, FilterChain chain) throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request(path), response, chain);
+        return response;
+    }
+
+    private static FilterChain status(int status) {
+        return (req, res) -> ((HttpServletResponse) res).setStatus(status);
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        var request = new MockHttpServletRequest("GET", path);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static MockAsyncContext asyncContext(MockHttpServletRequest request) {
+        return (MockAsyncContext) request.getAsyncContext();
+    }
+
+    /**
+     * Fixed limit that remembers how every admitted request was reported.
+     */
+    private static class RecordingLimit extends VegasLimit {
+
+        private final List<String> outcomes = new CopyOnWriteArrayList<>();
+
+        RecordingLimit() {
+            super(Limit, Limit, Limit, 1000);
+        }
+
+        @Override
+        public void onSuccess(long latencyNanos, int inFlightAtStart) {
+            outcomes.add("success");
+            super.onSuccess(latencyNanos, inFlightAtStart);
+        }
+
+        @Override
+        public void onDropped() {
+            outcomes.add("dropped");
+            super.onDropped();
+        }
+
+        @Override
+        public void onIgnored() {
+            outcomes.add("ignored");
+            super.onIgnored();
+        }
+    }
+}
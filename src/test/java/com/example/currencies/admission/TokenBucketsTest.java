@@ -0,0 +1,49 @@
+package com.example.currencies.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketsTest {
+
+    private static final long Second = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstThenRefillsAtTheConfiguredRate() {
+        var buckets = new TokenBuckets(3, 2, 4, 16);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(buckets.tryAcquire("key:a", 0)).isZero();
+        }
+        assertThat(buckets.tryAcquire("key:a", 0)).isBetween(Second / 2, Second / 2 + 1);
+        assertThat(buckets.tryAcquire("key:a", Second)).isZero();
+
+        long later = 100 * Second;
+        for (int i = 0; i < 3; i++) {
+            assertThat(buckets.tryAcquire("key:a", later)).isZero();
+        }
+        assertThat(buckets.tryAcquire("key:a", later)).isPositive();
+    }
+
+    @Test
+    void limitsEveryClientSeparately() {
+        var buckets = new TokenBuckets(1, 1, 4, 16);
+
+        assertThat(buckets.tryAcquire("key:a", 0)).isZero();
+        assertThat(buckets.tryAcquire("key:a", 0)).isPositive();
+        assertThat(buckets.tryAcquire("ip:10.0.0.1", 0)).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlySeenClients() {
+        var buckets = new TokenBuckets(1, 1, 2, 8);
+
+        for (int i = 0; i < 1000; i++) {
+            buckets.tryAcquire("ip:10.0." + i / 256 + "." + i % 256, 0);
+        }
+
+        assertThat(buckets.size()).isEqualTo(16);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.currencies.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VegasLimitTest {
+
+    private static final long BaseLatency = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void rejectsBeyondTheLimitWithoutWaiting() {
+        var limit = new VegasLimit(2, 1, 10, 1000);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.onIgnored();
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyStaysFlat() {
+        var limit = new VegasLimit(10, 2, 100, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            complete(limit, BaseLatency);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void shrinksWhenRequestsQueue() {
+        var limit = new VegasLimit(50, 2, 100, 1000);
+        complete(limit, BaseLatency);
+
+        for (int i = 0; i < 20; i++) {
+            complete(limit, 3 * BaseLatency);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(50);
+    }
+
+    @Test
+    void dropCutsTheLimitButNotBelowMinimum() {
+        var limit = new VegasLimit(3, 2, 100, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.onDropped();
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    /**
+     * Completes a request observed at full load, so the sample counts.
+     */
+    private static void complete(VegasLimit limit, long latencyNanos) {
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.onSuccess(latencyNanos, limit.getLimit());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.currencies.compression;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedResponseFilterTest {
+
+    private static final String Body = "{\"rates\":{" + "\"USD\":91.5237,\"EUR\":99.1234,".repeat(200) + "\"RUB\":1}}";
+
+    private final AtomicLong snapshotVersion = new AtomicLong(1);
+    private final AtomicInteger versionLookups = new AtomicInteger();
+    private final AtomicInteger rendered = new AtomicInteger();
+    private final CompressedResponseFilter filter = new CompressedResponseFilter(
+            Set.of("/currencies/rates", "/events/reactive"), Set.of("/currencies/rates"),
+            List.of(MediaType.APPLICATION_JSON), 1024, Duration.ofMinutes(1), 1 << 20, () -> {
+                versionLookups.incrementAndGet();
+                return snapshotVersion.get();
+            }, new SimpleMeterRegistry());
+
+    @Test
+    void compressesOnceAndServesRepeatsFromTheCache() throws Exception {
+        var first = get("/currencies/rates", "gzip, deflate", Body);
+        var second = get("/currencies/rates", "gzip", Body);
+
+        assertThat(rendered).hasValue(1);
+        for (MockHttpServletResponse response : List.of(first, second)) {
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+            assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1-json-gzip\"");
+            assertThat(response.getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+            assertThat(response.getContentLength()).isLessThan(Body.length() / 5);
+            assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(Body);
+        }
+    }
+
+    @Test
+    void newSnapshotRendersAgain() throws Exception {
+        get("/currencies/rates", "gzip", Body);
+        snapshotVersion.incrementAndGet();
+        get("/currencies/rates", "gzip", Body);
+
+        assertThat(rendered).hasValue(2);
+    }
+
+    @Test
+    void passesThroughUncachedWhileNoSnapshotIsInstalled() throws Exception {
+        snapshotVersion.set(CompressedResponseFilter.NoVersion);
+        var first = get("/currencies/rates", "gzip", Body);
+        var second = get("/currencies/rates", "gzip", Body);
+
+        assertThat(rendered).hasValue(2);
+        for (MockHttpServletResponse response : List.of(first, second)) {
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(response.getContentAsString()).isEqualTo(Body);
+        }
+
+        snapshotVersion.set(1);
+        get("/currencies/rates", "gzip", Body);
+        var cached = get("/currencies/rates", "gzip", Body);
+
+        assertThat(rendered).hasValue(3);
+        assertThat(cached.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    }
+
+    @Test
+    void cachesUnversionedPathsWithoutLookingUpTheSnapshot() throws Exception {
+        snapshotVersion.set(CompressedResponseFilter.NoVersion);
+        get("/events/reactive", "gzip", Body);
+        var cached = get("/events/reactive", "gzip", Body);
+
+        assertThat(rendered).hasValue(1);
+        assertThat(cached.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(versionLookups).hasValue(0);
+    }
+
+    @Test
+    void compressesButDoesNotCacheAnswersMarkedUncacheable() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            var response = new MockHttpServletResponse();
+            filter.doFilter(request("/events/reactive", "gzip"), response, (req, res) -> {
+                req.setAttribute(CompressedResponseFilter.UncacheableAttribute, Boolean.TRUE);
+                render((HttpServletResponse) res, Body);
+            });
+
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(Body);
+        }
+        assertThat(rendered).hasValue(2);
+    }
+
+    @Test
+    void answersRevalidationOfTheCompressedBodyFromTheCache() throws Exception {
+        get("/currencies/rates", "gzip", Body);
+
+        var request = request("/currencies/rates", "gzip");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-json-gzip\"");
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> rendered.incrementAndGet());
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(rendered).hasValue(1);
+    }
+
+    @Test
+    void leavesOtherResponsesAlone() throws Exception {
+        var identity = get("/currencies/rates", null, Body);
+        var refused = get("/currencies/rates", "gzip;q=0, identity", Body);
+        var small = get("/currencies/rates", "gzip", "{\"rates\":{}}");
+        var otherPath = get("/currencies/rate/USD", "gzip", Body);
+
+        for (MockHttpServletResponse response : List.of(identity, refused, small, otherPath)) {
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(response.getContentAsString()).startsWith("{\"rates\"");
+        }
+        assertThat(rendered).hasValue(4);
+    }
+
+    @Test
+    void parsesAcceptEncoding() {
+        assertThat(CompressedResponseFilter.acceptsGzip("gzip")).isTrue();
+        assertThat(CompressedResponseFilter.acceptsGzip("br, GZIP;q=0.5")).isTrue();
+        assertThat(CompressedResponseFilter.acceptsGzip("*")).isTrue();
+        assertThat(CompressedResponseFilter.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(CompressedResponseFilter.acceptsGzip("br, deflate")).isFalse();
+        assertThat(CompressedResponseFilter.acceptsGzip(null)).isFalse();
+    }
+
+    private MockHttpServletResponse get(String path, String acceptEncoding, String body) throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request(path, acceptEncoding), response, (req, res) -> render((HttpServletResponse) res, body));
+        return response;
+    }
+
+    private void render(HttpServletResponse response, String body) throws IOException {
+        rendered.incrementAndGet();
+        response.setStatus(200);
+        response.setHeader(HttpHeaders.ETAG, "\"" + snapshotVersion.get() + "-json\"");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    private static MockHttpServletRequest request(String path, String acceptEncoding) {
+        var request = new MockHttpServletRequest("GET", path);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,40 +1,88 @@
 package com.example.currencies.controllers;
 
+import com.example.currencies.core.RateSnapshot;
 import com.example.currencies.dto.CurrencyConvertDTO;
 import com.example.currencies.dto.CurrencyRateDTO;
+import com.example.currencies.exception.InvalidCurrencyCodeException;
+import com.example.currencies.request.ConversionBatchRequest;
 import com.example.currencies.request.ConversionRequest;
 import com.example.currencies.services.CurrencyService;
+import com.example.currencies.services.RateSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class CurrencyRestControllerTest {
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Mock
     private CurrencyService currencyService;
 
-    @InjectMocks
+    @Mock
+    private RateSnapshotService rateSnapshotService;
+
+    @Mock
+    private RateTableBodies rateTableBodies;
+
     private CurrencyRestController currencyRestController;
 
+    @BeforeEach
+    public void setUp() {
+        var currencyRateBodies = new CurrencyRateBodies(rateSnapshotService, currencyService, objectMapper);
+        currencyRestController = new CurrencyRestController(currencyService, currencyRateBodies, rateTableBodies);
+    }
+
     @Test
-    public void testGetCurrencyRate() {
+    public void testGetCurrencyRate() throws Exception {
         String code = "USD";
         BigDecimal rate = BigDecimal.valueOf(96.9483);
-        when(currencyService.getCurrencyRate(code)).thenReturn(rate);
+        when(rateSnapshotService.current()).thenReturn(snapshot(1, Map.of(code, rate)));
+
+        ResponseEntity<byte[]> response = currencyRestController.getCurrencyRate(code);
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(objectMapper.readValue(response.getBody(), CurrencyRateDTO.class))
+                .isEqualTo(new CurrencyRateDTO(code, rate));
+    }
+
+    @Test
+    public void testGetCurrencyRateRendersOncePerSnapshot() {
+        var snapshot = snapshot(1, Map.of("USD", BigDecimal.valueOf(96.9483)));
+        when(rateSnapshotService.current()).thenReturn(snapshot);
+
+        var first = currencyRestController.getCurrencyRate("USD").getBody();
+        var second = currencyRestController.getCurrencyRate("USD").getBody();
+        assertThat(second).isSameAs(first);
+
+        when(rateSnapshotService.current()).thenReturn(snapshot(2, Map.of("USD", BigDecimal.valueOf(97.1))));
+        assertThat(currencyRestController.getCurrencyRate("USD").getBody()).isNotSameAs(first);
+    }
 
-        CurrencyRateDTO response = currencyRestController.getCurrencyRate(code);
+    @Test
+    public void testGetCurrencyRateUnknownCode() {
+        var snapshot = snapshot(1, Map.of("USD", BigDecimal.valueOf(96.9483)));
+        when(rateSnapshotService.current()).thenReturn(snapshot);
+        when(currencyService.getCurrencyRate(snapshot, "usd")).thenThrow(new InvalidCurrencyCodeException("usd"));
 
-        assertThat(response).isEqualTo(new CurrencyRateDTO(code, rate));
+        assertThatThrownBy(() -> currencyRestController.getCurrencyRate("usd"))
+                .isInstanceOf(InvalidCurrencyCodeException.class);
     }
 
     @Test
@@ -48,4 +96,21 @@ class CurrencyRestControllerTest {
         assertThat(response).isEqualTo(new CurrencyConvertDTO("USD", "EUR", convertedAmount));
     }
 
+    @Test
+    public void testConvertCurrencies() {
+        var requests = List.of(
+                new ConversionRequest("USD", "EUR", BigDecimal.valueOf(100)),
+                new ConversionRequest("EUR", "RUB", BigDecimal.valueOf(5)));
+        when(currencyService.convertAll(requests)).thenReturn(List.of(BigDecimal.valueOf(90.0), BigDecimal.valueOf(525.5)));
+
+        var response = currencyRestController.convertCurrencies(new ConversionBatchRequest(requests));
+
+        assertThat(response.results()).containsExactly(
+                new CurrencyConvertDTO("USD", "EUR", BigDecimal.valueOf(90.0)),
+                new CurrencyConvertDTO("EUR", "RUB", BigDecimal.valueOf(525.5)));
+    }
+
+    private static RateSnapshot snapshot(long version, Map<String, BigDecimal> rates) {
+        return new RateSnapshot(version, LocalDate.of(2024, 10, 10), rates, rates.keySet());
+    }
 }
\ No newline at end of file
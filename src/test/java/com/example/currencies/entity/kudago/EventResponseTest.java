@@ -0,0 +1,55 @@
+package com.example.currencies.entity.kudago;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventResponseTest {
+
+    private static final Instant WindowStart = Instant.parse("2024-10-14T00:00:00Z");
+    private static final Instant WindowEnd = WindowStart.plus(7, ChronoUnit.DAYS);
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void trimToWindowKeepsOnlyOverlappingOccurrences() throws Exception {
+        // a long-running exhibition: one occurrence per day for 300 days, 150 of them before the window
+        var event = mapper.readValue(exhibition(300, WindowStart.minus(150, ChronoUnit.DAYS)), EventResponse.class);
+        int sizeBefore = mapper.writeValueAsBytes(event).length;
+
+        assertThat(event.trimToWindow(WindowStart, WindowEnd)).isTrue();
+        int sizeAfter = mapper.writeValueAsBytes(event).length;
+
+        assertThat(event.getDates()).hasSize(7)
+                .allSatisfy(date -> assertThat(date.overlaps(WindowStart, WindowEnd)).isTrue());
+        assertThat(event.getNextStart()).isEqualTo(WindowStart.plus(10, ChronoUnit.HOURS).getEpochSecond());
+        assertThat(sizeAfter).isLessThan(sizeBefore / 20);
+    }
+
+    @Test
+    void trimToWindowRejectsEventsOutsideTheWindow() throws Exception {
+        var event = mapper.readValue(exhibition(30, WindowEnd.plus(1, ChronoUnit.DAYS)), EventResponse.class);
+
+        assertThat(event.trimToWindow(WindowStart, WindowEnd)).isFalse();
+        assertThat(event.getDates()).isEmpty();
+    }
+
+    private static String exhibition(int days, Instant firstDay) {
+        var json = new StringBuilder("""
+                {"id":42,"title":"Выставка","price":"от 500 до 1500 рублей","is_free":false,"dates":[""");
+        for (int day = 0; day < days; day++) {
+            var start = firstDay.plus(day, ChronoUnit.DAYS).plus(10, ChronoUnit.HOURS);
+            if (day > 0) {
+                json.append(',');
+            }
+            json.append("{\"start\":").append(start.getEpochSecond())
+                    .append(",\"end\":").append(start.plus(8, ChronoUnit.HOURS).getEpochSecond()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.currencies.jfr;
+
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContinuousRecordingTest {
+
+    @Test
+    void dumpsHoldNoEnvironmentSystemPropertiesOrCommandLine() throws Exception {
+        var recording = new ContinuousRecording("default", Duration.ofMinutes(1), 16);
+        try {
+            var events = RecordingFile.readAllEvents(recording.dump());
+
+            assertThat(events).isNotEmpty();
+            assertThat(events)
+                    .map(RecordedEvent::getEventType)
+                    .map(EventType::getName)
+                    .doesNotContain("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+        } finally {
+            recording.destroy();
+        }
+    }
+}
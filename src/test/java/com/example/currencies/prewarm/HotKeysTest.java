@@ -0,0 +1,92 @@
+package com.example.currencies.prewarm;
+
+import com.example.currencies.entity.kudago.KudaGoFilter;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotKeysTest {
+
+    private static final LocalDate Today = LocalDate.of(2024, 10, 10);
+
+    @Test
+    void ranksTheMostRequestedWindowsAmongManyColdOnes() {
+        var hotKeys = new HotKeys<EventWindow>(8, 2048);
+        var weekend = new EventWindow(Today.plusDays(2), Today.plusDays(3));
+        var nextMonth = new EventWindow(Today.plusMonths(1).withDayOfMonth(1), Today.plusMonths(2).withDayOfMonth(1));
+
+        for (int i = 0; i < 2000; i++) {
+            hotKeys.record(new EventWindow(Today.plusDays(i), Today.plusDays(i + 1 + i % 5)));
+            hotKeys.record(EventWindow.defaultWindow(Today));
+            if (i % 2 == 0) {
+                hotKeys.record(weekend);
+            }
+            if (i % 4 == 0) {
+                hotKeys.record(nextMonth);
+            }
+        }
+
+        assertThat(hotKeys.top(3)).containsExactly(EventWindow.defaultWindow(Today), weekend, nextMonth);
+    }
+
+    @Test
+    void forgetsWindowsThatAreNoLongerRequested() {
+        var hotKeys = new HotKeys<EventWindow>(4, 1024);
+        var yesterday = EventWindow.defaultWindow(Today.minusDays(1));
+        var today = EventWindow.defaultWindow(Today);
+
+        for (int i = 0; i < 100; i++) {
+            hotKeys.record(yesterday);
+        }
+        for (int i = 0; i < 10; i++) {
+            hotKeys.record(today);
+        }
+        assertThat(hotKeys.top(1)).containsExactly(yesterday);
+
+        for (int i = 0; i < 7; i++) {
+            hotKeys.decay();
+        }
+        for (int i = 0; i < 10; i++) {
+            hotKeys.record(today);
+        }
+        assertThat(hotKeys.top(2)).containsExactly(today);
+    }
+
+    @Test
+    void countsWindowsWithEqualFiltersTogether() {
+        var hotKeys = new HotKeys<EventWindow>(4, 1024);
+        var concerts = new EventWindow(Today, Today.plusDays(7),
+                new KudaGoFilter("msk", List.of("concert", "party"), true));
+        var sameConcerts = new EventWindow(Today, Today.plusDays(7),
+                new KudaGoFilter("msk", List.of("party", "concert", "party"), true));
+        var anyEvents = EventWindow.defaultWindow(Today);
+
+        for (int i = 0; i < 10; i++) {
+            hotKeys.record(i % 2 == 0 ? concerts : sameConcerts);
+        }
+        for (int i = 0; i < 6; i++) {
+            hotKeys.record(anyEvents);
+        }
+
+        assertThat(sameConcerts).isEqualTo(concerts);
+        assertThat(anyEvents.filter().isNone()).isTrue();
+        assertThat(hotKeys.top(2)).containsExactly(concerts, anyEvents);
+    }
+
+    @Test
+    void sketchNeverUnderestimates() {
+        var sketch = new CountMinSketch(4, 64);
+        for (int key = 0; key < 500; key++) {
+            for (int i = 0; i <= key % 7; i++) {
+                sketch.increment(key);
+            }
+        }
+
+        for (int key = 0; key < 500; key++) {
+            assertThat(sketch.estimate(key)).isGreaterThanOrEqualTo(key % 7 + 1);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.currencies.protobuf;
+
+import com.example.currencies.dto.ConversionBatchDTO;
+import com.example.currencies.dto.CurrencyConvertDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.request.ConversionBatchRequest;
+import com.example.currencies.request.ConversionRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrenciesProtobufTest {
+
+    @Test
+    void rateTableRoundTripKeepsExactDecimals() throws Exception {
+        var table = new RateTableDTO(3, LocalDate.of(2024, 10, 10),
+                Map.of("USD", new BigDecimal("96.9483"), "JPY", new BigDecimal("0.6512300"), "RUB", BigDecimal.ONE));
+
+        var decoded = CurrenciesProtobuf.readRateTable(CurrenciesProtobuf.write(table));
+
+        assertThat(decoded).isEqualTo(table);
+    }
+
+    @Test
+    void conversionBatchRoundTrip() throws Exception {
+        var request = new ConversionBatchRequest(List.of(
+                new ConversionRequest("USD", "EUR", new BigDecimal("100")),
+                new ConversionRequest("EUR", "RUB", new BigDecimal("-0.05"))));
+        var response = new ConversionBatchDTO(List.of(
+                new CurrencyConvertDTO("USD", "EUR", new BigDecimal("123456789012345678901234.567"))));
+
+        assertThat(CurrenciesProtobuf.readConversionBatchRequest(CurrenciesProtobuf.write(request))).isEqualTo(request);
+        assertThat(CurrenciesProtobuf.readConversionBatch(CurrenciesProtobuf.write(response))).isEqualTo(response);
+    }
+
+    @Test
+    void missingRequestFieldsAreNull() throws Exception {
+        var request = CurrenciesProtobuf.readConversionRequest(new byte[0]);
+
+        assertThat(request).isEqualTo(new ConversionRequest(null, null, null));
+    }
+}
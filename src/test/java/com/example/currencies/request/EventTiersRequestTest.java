@@ -0,0 +1,57 @@
+package com.example.currencies.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTiersRequestTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void acceptsKudaGoSlugs() throws Exception {
+        var request = read("""
+                {"location": "msk", "categories": ["party", "concert", "party"], "is_free": true,
+                 "tiers": [{"budget": 100, "currency": "RUB"}]}
+                """);
+
+        assertThat(violations(request)).isEmpty();
+        assertThat(request.kudaGoFilter().location()).isEqualTo("msk");
+        assertThat(request.kudaGoFilter().categories()).containsExactly("concert", "party");
+    }
+
+    @Test
+    void rejectsSlugsKudaGoDoesNotHave() throws Exception {
+        var request = read("""
+                {"location": "MSK", "categories": ["Concert"], "tiers": [{"budget": 100, "currency": "RUB"}]}
+                """);
+
+        assertThat(violations(request))
+                .containsExactlyInAnyOrder("events.location.invalid_format", "events.category.invalid_format");
+    }
+
+    @Test
+    void rejectsNullCategories() throws Exception {
+        var request = read("""
+                {"categories": [null], "tiers": [{"budget": 100, "currency": "RUB"}]}
+                """);
+
+        assertThat(violations(request)).containsExactly("events.category.is_null");
+    }
+
+    private EventTiersRequest read(String json) throws Exception {
+        return objectMapper.readValue(json, EventTiersRequest.class);
+    }
+
+    private List<String> violations(EventTiersRequest request) {
+        return validator.validate(request).stream().map(ConstraintViolation::getMessage).toList();
+    }
+}
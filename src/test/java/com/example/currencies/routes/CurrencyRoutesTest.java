@@ -0,0 +1,129 @@
+package com.example.currencies.routes;
+
+import com.example.currencies.config.ReactiveWebConfig;
+import com.example.currencies.controllers.CurrencyControllerAdvice;
+import com.example.currencies.controllers.CurrencyRateBodies;
+import com.example.currencies.controllers.RateTableBodies;
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.exception.InvalidCurrencyCodeException;
+import com.example.currencies.services.CurrencyService;
+import com.example.currencies.services.EventService;
+import com.example.currencies.services.RateSnapshotService;
+import com.example.currencies.services.RateUpdates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CurrencyRoutesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private CurrencyService currencyService;
+
+    @Mock
+    private RateSnapshotService rateSnapshotService;
+
+    @Mock
+    private RateTableBodies rateTableBodies;
+
+    @Mock
+    private RateUpdates rateUpdates;
+
+    @Mock
+    private EventService eventService;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        var currencies = new CurrencyHandler(currencyService, rateSnapshotService,
+                new CurrencyRateBodies(rateSnapshotService, currencyService, objectMapper), rateTableBodies,
+                rateUpdates, validator);
+        var events = new EventHandler(eventService, validator, "X-Request-Timeout-Ms", 10_000, 25_000);
+        var errors = new RouteErrors(new CurrencyControllerAdvice(objectMapper, 1));
+        client = WebTestClient.bindToRouterFunction(new ReactiveWebConfig().apiRoutes(currencies, events, errors))
+                .build();
+    }
+
+    @Test
+    void servesThePreRenderedRate() {
+        var snapshot = snapshot(Map.of("USD", new BigDecimal("96.9483")));
+        when(rateSnapshotService.currentReactive()).thenReturn(Mono.just(snapshot));
+
+        client.get().uri("/currencies/rate/USD").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().json("{\"currency\":\"USD\",\"rate\":96.9483}");
+    }
+
+    @Test
+    void answersDomainErrorsLikeTheControllerAdvice() {
+        var snapshot = snapshot(Map.of("USD", new BigDecimal("96.9483")));
+        when(rateSnapshotService.currentReactive()).thenReturn(Mono.just(snapshot));
+        when(currencyService.getCurrencyRate(snapshot, "usd")).thenThrow(new InvalidCurrencyCodeException("usd"));
+
+        client.get().uri("/currencies/rate/usd").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().json("{\"code\":400,\"message\":\"invalid.currency.code\"}");
+    }
+
+    @Test
+    void revalidatesTheRateTable() {
+        var json = "{\"version\":7}".getBytes(StandardCharsets.UTF_8);
+        var snapshot = snapshot(Map.of("USD", new BigDecimal("96.9483")));
+        when(rateSnapshotService.currentReactive()).thenReturn(Mono.just(snapshot));
+        when(rateTableBodies.of(snapshot))
+                .thenReturn(new RateTableBodies.Encoded(7, "2024-10-10-0a1b", json, new byte[0], new byte[0]));
+
+        client.get().uri("/currencies/rates").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"2024-10-10-0a1b-json\"")
+                .expectBody().json("{\"version\":7}");
+        client.get().uri("/currencies/rates")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"2024-10-10-0a1b-json\"")
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void validatesBatchesAndEventParameters() {
+        client.post().uri("/currencies/convert/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"conversions\":[]}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.code").isEqualTo(400);
+        client.get().uri("/events/reactive?budget=-5&currency=RUB").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").value(containsString("currency.budget.should_be_positive"));
+        client.get().uri("/events/reactive?currency=RUB").exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/events/reactive?budget=5&currency=RUB&location=MSK").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").value(containsString("events.location.invalid_format"));
+    }
+
+    private static RateSnapshot snapshot(Map<String, BigDecimal> rates) {
+        return new RateSnapshot(1, LocalDate.of(2024, 10, 10), rates, rates.keySet());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.currencies.services;
+
+import com.example.currencies.dto.EventTierDTO;
+import com.example.currencies.entity.kudago.BudgetFilter;
+import com.example.currencies.entity.kudago.EventResponse;
+import com.example.currencies.request.BudgetTier;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BudgetTiersTest {
+
+    @Test
+    void everyTierIsThePrefixItsBudgetFilterMatches() {
+        List<EventResponse> crawled = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            var price = i % 3 == 0 ? "от " + (i * 7 % 50) + " до " + (i * 37 % 5000) + " рублей" : (i * 53 % 3000) + " рублей";
+            crawled.add(new EventResponse(i, "Событие " + i, price, i % 11 == 0, List.of(), 0));
+        }
+        var budgetsRub = List.of(new BigDecimal("500"), new BigDecimal("4999.50"), new BigDecimal("1200"));
+        var tiers = List.of(
+                new BudgetTier(new BigDecimal("5.5"), "USD"),
+                new BudgetTier(new BigDecimal("4999.50"), "RUB"),
+                new BudgetTier(new BigDecimal("12"), "EUR"));
+        var largest = new BudgetFilter(new BigDecimal("4999.50"));
+        var matched = crawled.stream().filter(largest).toList();
+
+        var result = BudgetTiers.split(matched, tiers, budgetsRub);
+
+        assertThat(result.events()).hasSameSizeAs(matched);
+        for (int i = 0; i < tiers.size(); i++) {
+            var filter = new BudgetFilter(budgetsRub.get(i));
+            var tier = result.tiers().get(i);
+            assertThat(ids(result.events().subList(0, tier.count())))
+                    .containsExactlyInAnyOrderElementsOf(ids(matched.stream().filter(filter).toList()));
+            assertThat(tier.currency()).isEqualTo(tiers.get(i).currency());
+            assertThat(tier.budgetRub()).isEqualTo(budgetsRub.get(i));
+        }
+    }
+
+    @Test
+    void sortsFreeEventsFirstAndKeepsCrawlOrderOfEqualCosts() {
+        var events = List.of(
+                new EventResponse(1, "a", "300 рублей", false, List.of(), 0),
+                new EventResponse(2, "b", "100 рублей", false, List.of(), 0),
+                new EventResponse(3, "c", "500 рублей", true, List.of(), 0),
+                new EventResponse(4, "d", "100 рублей", false, List.of(), 0));
+
+        var result = BudgetTiers.split(events, List.of(new BudgetTier(new BigDecimal("100"), "RUB")),
+                List.of(new BigDecimal("100")));
+
+        assertThat(ids(result.events())).containsExactly(3, 2, 4, 1);
+        assertThat(result.tiers()).containsExactly(
+                new EventTierDTO(new BigDecimal("100"), "RUB", new BigDecimal("100"), 3));
+    }
+
+    private static List<Integer> ids(List<EventResponse> events) {
+        return events.stream().map(EventResponse::getId).toList();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.currencies.services;
 
 import com.example.currencies.CurrenciesApplication;
+import com.example.currencies.entity.cbr.ValCurs;
 import com.github.tomakehurst.wiremock.http.Fault;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,9 +16,17 @@ import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.catchNullPointerException;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
 
@@ -64,6 +73,32 @@ class CBRServiceTest {
 
     }
 
+    @Test
+    void getValCurs_AppendsRubOnceToUnmodifiableList() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/XML_daily.asp"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/xml")
+                        .withBodyFile("XML_daily.xml")));
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<ValCurs>>> calls = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                calls.add(executor.submit(cbrService::getValCurs));
+            }
+            for (Future<Optional<ValCurs>> call : calls) {
+                var valutes = call.get(10, TimeUnit.SECONDS).orElseThrow().getValutes();
+                assertThat(valutes).filteredOn(valute -> "RUB".equals(valute.getCharCode())).hasSize(1);
+                assertThat(valutes).hasSize(44);
+                assertThatThrownBy(() -> valutes.add(valutes.get(0)))
+                        .isInstanceOf(UnsupportedOperationException.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void getValutagetValCurs_Success() {
         wireMockServer.stubFor(get(urlEqualTo("/XML_valFull.asp"))
@@ -0,0 +1,43 @@
+package com.example.currencies.services;
+
+import com.example.currencies.core.CurrencyConverter;
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.exception.CurrencyNotFoundException;
+import com.example.currencies.exception.InvalidCurrencyCodeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CurrencyCodeRejectionsTest {
+
+    private final RateSnapshot snapshot = new RateSnapshot(1, LocalDate.of(2024, 10, 10),
+            Map.of("USD", new BigDecimal("96.9483"), "RUB", BigDecimal.ONE), Set.of("USD", "RUB", "XAU"));
+
+    private final CurrencyCodeRejections rejections = new CurrencyCodeRejections(new SimpleMeterRegistry(), 100);
+    private final CurrencyConverter converter = new CurrencyConverter(rejections);
+
+    @Test
+    void missingCodeIsAnInvalidCode() {
+        assertThatThrownBy(() -> converter.convert(snapshot, null, "RUB", BigDecimal.TEN))
+                .isInstanceOf(InvalidCurrencyCodeException.class);
+        assertThatThrownBy(() -> converter.convert(snapshot, "USD", null, BigDecimal.TEN))
+                .isInstanceOf(InvalidCurrencyCodeException.class);
+        assertThat(rejections.topOffenders(10)).containsEntry(CurrencyCodeRejections.OTHER_CODES, 2L);
+    }
+
+    @Test
+    void reusesTheRejectionOfACode() {
+        var first = rejections.rejectionFor(snapshot, "ABC");
+        assertThat(first).isInstanceOf(InvalidCurrencyCodeException.class);
+        assertThat(rejections.rejectionFor(snapshot, "ABC")).isSameAs(first);
+        assertThat(rejections.rejectionFor(snapshot, "XAU")).isInstanceOf(CurrencyNotFoundException.class);
+        assertThat(rejections.topOffenders(1)).containsEntry("ABC", 2L);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.currencies.services;
+
+import com.example.currencies.entity.kudago.EventResponse;
+import com.example.currencies.entity.kudago.KudaGoFilter;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.scheduling.annotation.AsyncAnnotationAdvisor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventServiceTest {
+
+    private static final int EventThreads = 2;
+    private static final LocalDate Today = LocalDate.now();
+
+    @RegisterExtension
+    static WireMockExtension kudaGo = WireMockExtension.newInstance()
+            .options(wireMockConfig().dynamicPort())
+            .build();
+
+    private final ThreadPoolTaskExecutor eventsExecutor = KudaGoServices.executor("Events-", EventThreads, 100);
+    private final ThreadPoolTaskExecutor pageExecutor = KudaGoServices.executor("KudaGoPage-", 10, 100);
+    private EventService eventService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var kudaGoService = KudaGoServices.create(kudaGo.baseUrl(), KudaGoServices.noHedging(new Semaphore(5)),
+                pageExecutor, eventsExecutor);
+        var eventWindowCache = new EventWindowCache(kudaGoService, new SimpleMeterRegistry(), Duration.ofMinutes(15),
+                32, 8, 64, false, "unused", 28);
+        var currencyService = mock(CurrencyService.class);
+        when(currencyService.convertBudgetToRublesFuture(eq("RUB"), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(1)));
+
+        // proxied the way the application context proxies it, so that @Async would take effect
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("eventsExecutor", eventsExecutor);
+        var asyncAdvisor = new AsyncAnnotationAdvisor();
+        asyncAdvisor.setBeanFactory(beanFactory);
+        var proxyFactory = new ProxyFactory(new EventService(eventWindowCache, currencyService, 10));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(asyncAdvisor);
+        eventService = (EventService) proxyFactory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventsExecutor.shutdown();
+        pageExecutor.shutdown();
+    }
+
+    @Test
+    void moreUncachedRequestsThanEventThreadsAllComplete() throws Exception {
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .atPriority(10)
+                .willReturn(aResponse().withStatus(404).withFixedDelay(100)));
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .withQueryParam("page", equalTo("1"))
+                .atPriority(1)
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(KudaGoServices.page(1, 1, 5, Today))
+                        .withFixedDelay(100)));
+
+        List<CompletableFuture<List<EventResponse>>> requests = new ArrayList<>();
+        for (int i = 0; i < EventThreads * 4; i++) {
+            // a window of its own, so that no request is answered from the window cache
+            requests.add(eventService.fetchEventsFuture(new BigDecimal("1000"), "RUB", Today, Today.plusDays(i + 1),
+                    KudaGoFilter.none(), null, 0, RequestDeadline.after(Duration.ofSeconds(30))));
+        }
+
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).get(20, TimeUnit.SECONDS);
+        assertThat(requests).allSatisfy(request -> assertThat(request.join()).hasSize(5));
+    }
+
+    @Test
+    void lostPageMarksTheAnswerPartial() throws Exception {
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .atPriority(10)
+                .willReturn(aResponse().withStatus(404)));
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .withQueryParam("page", equalTo("1"))
+                .atPriority(1)
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(KudaGoServices.page(1, 3, 5, Today))));
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .withQueryParam("page", equalTo("2"))
+                .atPriority(1)
+                .willReturn(aResponse().withStatus(500)));
+        var deadline = RequestDeadline.after(Duration.ofSeconds(30));
+
+        var events = eventService.fetchEventsFuture(new BigDecimal("1000"), "RUB", Today, Today.plusDays(1),
+                KudaGoFilter.none(), null, 0, deadline).get(20, TimeUnit.SECONDS);
+
+        assertThat(events).hasSize(5);
+        assertThat(deadline.isPartial()).isTrue();
+    }
+
+    @Test
+    void crawlStopsOnceTheRequestedSliceIsFound() throws Exception {
+        int pages = 10;
+        int pageEvents = 5;
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .atPriority(10)
+                .willReturn(aResponse().withStatus(404)));
+        for (int page = 1; page <= pages; page++) {
+            kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                    .withQueryParam("page", equalTo(String.valueOf(page)))
+                    .atPriority(1)
+                    .willReturn(aResponse()
+                            .withStatus(200)
+                            .withHeader("Content-Type", "application/json")
+                            .withBody(KudaGoServices.page(page, pages, pageEvents, Today))));
+        }
+
+        // offset + limit = 12 events, found on the first three pages
+        var events = eventService.fetchEventsFuture(new BigDecimal("1000"), "RUB", Today, Today.plusDays(1),
+                KudaGoFilter.none(), 4, 8, RequestDeadline.after(Duration.ofSeconds(30))).get(20, TimeUnit.SECONDS);
+
+        assertThat(events).map(EventResponse::getId).containsExactly(9, 10, 11, 12);
+        var requestedPages = kudaGo.findAll(getRequestedFor(urlPathEqualTo(KudaGoServices.EventsPath))).stream()
+                .map(request -> Integer.valueOf(request.queryParameter("page").firstValue()))
+                .toList();
+        // the fourth page may have been prefetched before the third one completed the slice
+        assertThat(requestedPages).contains(1, 2, 3).doesNotHaveDuplicates().allMatch(page -> page <= 4);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.currencies.services;
+
+import com.example.currencies.prewarm.EventWindow;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventWindowCacheTest {
+
+    private static final int Pages = 3;
+    private static final int PageSize = 4;
+
+    @RegisterExtension
+    static WireMockExtension kudaGo = WireMockExtension.newInstance()
+            .options(wireMockConfig().dynamicPort())
+            .build();
+
+    private final ThreadPoolTaskExecutor eventsExecutor = KudaGoServices.executor("Events-", 2, 100);
+    private final ThreadPoolTaskExecutor pageExecutor = KudaGoServices.executor("KudaGoPage-", 4, 100);
+    private final LocalDate today = LocalDate.now();
+    private EventWindowCache eventWindowCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var kudaGoService = KudaGoServices.create(kudaGo.baseUrl(), KudaGoServices.noHedging(new Semaphore(5)),
+                pageExecutor, eventsExecutor);
+        eventWindowCache = new EventWindowCache(kudaGoService, new SimpleMeterRegistry(), Duration.ofMinutes(15),
+                32, 8, 64, false, "unused", 28);
+
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .atPriority(10)
+                .willReturn(aResponse().withStatus(404)));
+        for (int page = 1; page <= Pages; page++) {
+            stubPage(page, aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(KudaGoServices.page(page, Pages, PageSize, today)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventsExecutor.shutdown();
+        pageExecutor.shutdown();
+    }
+
+    @Test
+    void failedPageDuringRefreshKeepsThePreviousWindow() throws Exception {
+        var window = EventWindow.defaultWindow(today);
+        refresh();
+        assertThat(cachedEvents(window)).isEqualTo(Pages * PageSize);
+
+        stubPage(2, aResponse().withStatus(500));
+        refresh();
+        kudaGo.verify(1, getRequestedFor(urlPathEqualTo(KudaGoServices.EventsPath))
+                .withQueryParam("page", equalTo("2")));
+
+        assertThat(cachedEvents(window)).isEqualTo(Pages * PageSize);
+    }
+
+    @Test
+    void failedPageDuringTheFirstRefreshCachesNothing() throws Exception {
+        var window = EventWindow.defaultWindow(today);
+        stubPage(2, aResponse().withStatus(500));
+        refresh();
+
+        kudaGo.resetRequests();
+        // not cached, so the request crawls KudaGo and gets the events before the failed page
+        var events = eventWindowCache.fetchEventsFuture(window, event -> true, Integer.MAX_VALUE,
+                RequestDeadline.none()).get(10, TimeUnit.SECONDS);
+        assertThat(events).hasSize(PageSize);
+        kudaGo.verify(getRequestedFor(urlPathEqualTo(KudaGoServices.EventsPath))
+                .withQueryParam("page", equalTo("1")));
+    }
+
+    private void stubPage(int page, ResponseDefinitionBuilder response) {
+        kudaGo.stubFor(get(urlPathEqualTo(KudaGoServices.EventsPath))
+                .withQueryParam("page", equalTo(String.valueOf(page)))
+                .atPriority(1)
+                .willReturn(response));
+    }
+
+    /**
+     * Runs a scheduled refresh and waits for it.
+     */
+    private void refresh() throws Exception {
+        eventWindowCache.refreshHotWindows();
+        var refreshing = (CompletableFuture<?>) ReflectionTestUtils.getField(eventWindowCache, "refreshing");
+        refreshing.get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the number of events the cache answers with, or -1 if a request would crawl KudaGo
+     */
+    private int cachedEvents(EventWindow window) throws Exception {
+        kudaGo.resetRequests();
+        var events = eventWindowCache.fetchEventsFuture(window, event -> true, Integer.MAX_VALUE,
+                RequestDeadline.none()).get(10, TimeUnit.SECONDS);
+        int pageRequests = kudaGo.findAll(getRequestedFor(urlPathEqualTo(KudaGoServices.EventsPath))).size();
+        return pageRequests == 0 ? events.size() : -1;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.currencies.services;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.StringJoiner;
+import java.util.concurrent.Semaphore;
+
+/**
+ * {@link KudaGoService} instances against a KudaGo stand-in, and the pages the stand-in serves.
+ */
+final class KudaGoServices {
+
+    static final String EventsPath = "/events/";
+
+    private KudaGoServices() {
+    }
+
+    static KudaGoService create(String baseUrl, PageHedging pageHedging, ThreadPoolTaskExecutor pageExecutor,
+                                ThreadPoolTaskExecutor crawlExecutor) {
+        var service = new KudaGoService(RestClient.builder().baseUrl(baseUrl).build(), 10,
+                CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), pageHedging, pageExecutor,
+                crawlExecutor, 2, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "getEventsUrl", EventsPath);
+        return service;
+    }
+
+    static PageHedging noHedging(Semaphore rateLimiterSemaphore) {
+        return new PageHedging(false, 0.95, 50, 0.1, rateLimiterSemaphore, new SimpleAsyncTaskExecutor(),
+                new SimpleMeterRegistry());
+    }
+
+    static ThreadPoolTaskExecutor executor(String threadNamePrefix, int threads, int queueCapacity) {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * @return page {@code page} of {@code pages}, with {@code size} events that cost 100 rubles and
+     * take place every day from {@code from} for a month
+     */
+    static String page(int page, int pages, int size, LocalDate from) {
+        var start = from.atTime(12, 0).atZone(ZoneId.of("Europe/Moscow")).toEpochSecond();
+        var results = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < size; i++) {
+            int id = (page - 1) * size + i + 1;
+            results.add("{\"id\":" + id + ",\"title\":\"Событие " + id + "\",\"price\":\"100 рублей\","
+                    + "\"is_free\":false,\"dates\":[{\"start\":" + start
+                    + ",\"end\":" + (start + 30 * 86_400L) + "}]}");
+        }
+        var next = page < pages ? "\"" + EventsPath + "?page=" + (page + 1) + "\"" : "null";
+        return "{\"count\":" + pages * size + ",\"next\":" + next + ",\"previous\":null,\"results\":" + results + "}";
+    }
+}
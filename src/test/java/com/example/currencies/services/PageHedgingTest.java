@@ -0,0 +1,174 @@
+package com.example.currencies.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageHedgingTest {
+
+    private static final int Permits = 5;
+
+    private final Semaphore semaphore = new Semaphore(Permits);
+    private final ThreadPoolTaskExecutor requestExecutor = KudaGoServices.executor("KudaGoRequest-", 4, 10);
+
+    @AfterEach
+    void tearDown() {
+        requestExecutor.shutdown();
+    }
+
+    @Test
+    void hedgeWinsAndTheSlowRequestIsInterrupted() throws Exception {
+        var hedging = hedging(1.0);
+        var calls = new AtomicInteger();
+        var slowInterrupted = new CountDownLatch(1);
+
+        var page = hedging.call(() -> {
+            if (calls.getAndIncrement() == 0) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    slowInterrupted.countDown();
+                    throw new CancellationException("Page request cancelled");
+                }
+                return "slow";
+            }
+            return "hedged";
+        });
+
+        assertThat(page).isEqualTo("hedged");
+        assertThat(slowInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitPermits(Permits);
+    }
+
+    @Test
+    void cancelledCallerKeepsThePermitTakenUntilTheRequestStops() throws Exception {
+        var hedging = hedging(0.0);
+        var started = new CountDownLatch(1);
+        var finish = new CountDownLatch(1);
+        var thrown = new AtomicReference<Throwable>();
+
+        var caller = new Thread(() -> {
+            try {
+                hedging.call(() -> {
+                    started.countDown();
+                    // a request that does not react to the interrupt right away
+                    while (true) {
+                        try {
+                            if (finish.await(10, TimeUnit.SECONDS)) {
+                                return "page";
+                            }
+                        } catch (InterruptedException e) {
+                            // keeps running, like a socket read
+                        }
+                    }
+                });
+            } catch (Throwable ex) {
+                thrown.set(ex);
+            }
+        });
+        caller.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        caller.interrupt();
+        caller.join(5_000);
+        assertThat(thrown.get()).isInstanceOf(CancellationException.class);
+        assertThat(semaphore.availablePermits()).isEqualTo(Permits - 1);
+
+        finish.countDown();
+        awaitPermits(Permits);
+    }
+
+    @Test
+    void failedHedgeLeavesThePageToTheSlowRequest() throws Exception {
+        var hedging = hedging(1.0);
+        var calls = new AtomicInteger();
+
+        var page = hedging.call(() -> {
+            if (calls.getAndIncrement() == 0) {
+                sleep(300);
+                return "slow";
+            }
+            throw new IllegalStateException("hedge rejected");
+        });
+
+        assertThat(page).isEqualTo("slow");
+        assertThat(calls).hasValue(2);
+        awaitPermits(Permits);
+    }
+
+    @Test
+    void failedSlowRequestLeavesThePageToTheHedge() throws Exception {
+        var hedging = hedging(1.0);
+        var calls = new AtomicInteger();
+
+        var page = hedging.call(() -> {
+            if (calls.getAndIncrement() == 0) {
+                sleep(100);
+                throw new IllegalStateException("page 2 failed");
+            }
+            sleep(300);
+            return "hedged";
+        });
+
+        assertThat(page).isEqualTo("hedged");
+        awaitPermits(Permits);
+    }
+
+    @Test
+    void pageFailsWhenBothRequestsFail() throws Exception {
+        var hedging = hedging(1.0);
+        var calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> hedging.call(() -> {
+            if (calls.getAndIncrement() == 0) {
+                sleep(100);
+            }
+            throw new IllegalStateException("page 2 failed");
+        })).isInstanceOf(IllegalStateException.class)
+                .satisfies(ex -> assertThat(ex.getSuppressed()).hasSize(1));
+        assertThat(calls).hasValue(2);
+        awaitPermits(Permits);
+    }
+
+    @Test
+    void failureOfTheOnlyRequestReachesTheCaller() throws Exception {
+        var hedging = hedging(0.0);
+
+        assertThatThrownBy(() -> hedging.call(() -> {
+            throw new IllegalStateException("page 2 failed");
+        })).isInstanceOf(IllegalStateException.class);
+        awaitPermits(Permits);
+    }
+
+    private PageHedging hedging(double maxHedgeRatio) {
+        return new PageHedging(true, 0.95, 20, maxHedgeRatio, semaphore, requestExecutor, new SimpleMeterRegistry());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new CancellationException("Page request cancelled");
+        }
+    }
+
+    private void awaitPermits(int permits) throws Exception {
+        CompletableFuture.runAsync(() -> {
+            while (semaphore.availablePermits() != permits) {
+                Thread.onSpinWait();
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
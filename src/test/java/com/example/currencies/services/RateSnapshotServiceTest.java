@@ -0,0 +1,92 @@
+package com.example.currencies.services;
+
+import com.example.currencies.entity.cbr.Item;
+import com.example.currencies.entity.cbr.ValCurs;
+import com.example.currencies.entity.cbr.Valuta;
+import com.example.currencies.entity.cbr.Valute;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateSnapshotServiceTest {
+
+    private final AtomicInteger publication = new AtomicInteger(1);
+    private final AtomicReference<CountDownLatch> cbrAnswers = new AtomicReference<>(new CountDownLatch(0));
+    private final AtomicReference<String> cbrCaller = new AtomicReference<>();
+
+    private final CBRService cbrService = new CBRService(null) {
+        @Override
+        public Optional<ValCurs> getValCurs() {
+            cbrCaller.set(Thread.currentThread().getName());
+            try {
+                cbrAnswers.get().await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(valCurs(publication.get()));
+        }
+
+        @Override
+        public Optional<Valuta> getValuta() {
+            return Optional.of(valuta());
+        }
+    };
+    // a check interval of zero: every snapshot is due for a check
+    private final RateSnapshotService rateSnapshotService = new RateSnapshotService(cbrService, event -> {
+    }, 0, "local");
+
+    @Test
+    void reactiveCallersGetTheInstalledSnapshotWhileCbrIsChecked() throws Exception {
+        var first = rateSnapshotService.current();
+        var slowCbr = new CountDownLatch(1);
+        cbrAnswers.set(slowCbr);
+        publication.set(2);
+
+        var snapshot = rateSnapshotService.currentReactive().block(Duration.ofSeconds(1));
+
+        assertThat(snapshot).isSameAs(first);
+        slowCbr.countDown();
+        awaitVersion(2);
+        assertThat(cbrCaller.get()).startsWith("boundedElastic");
+    }
+
+    @Test
+    void firstSnapshotIsLoadedOffTheSubscribingThread() {
+        var snapshot = rateSnapshotService.currentReactive().block(Duration.ofSeconds(5));
+
+        assertThat(snapshot.rate("USD")).isEqualByComparingTo("91");
+        assertThat(cbrCaller.get()).startsWith("boundedElastic");
+    }
+
+    private void awaitVersion(long version) throws Exception {
+        CompletableFuture.runAsync(() -> {
+            while (rateSnapshotService.installed().orElseThrow().version() != version) {
+                Thread.onSpinWait();
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static ValCurs valCurs(int publication) {
+        var usd = BigDecimal.valueOf(90 + publication);
+        return new ValCurs(LocalDate.of(2024, 1, 1).plusDays(publication), "Foreign Currency Market", List.of(
+                new Valute("R01235", 840, "USD", 1, "Доллар США", usd, usd),
+                new Valute("R01235", 643, "RUB", 1, "Российский рубль", BigDecimal.ONE, BigDecimal.ONE)));
+    }
+
+    private static Valuta valuta() {
+        return new Valuta("Foreign Currency Market Lib", List.of(
+                new Item("R01235", "Доллар США", "US Dollar", 1, "R01235", 840, "USD"),
+                new Item("R01235", "Российский рубль", "Russian Ruble", 1, "R01235", 643, "RUB")));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.currencies.services;
+
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.entity.cbr.Item;
+import com.example.currencies.entity.cbr.ValCurs;
+import com.example.currencies.entity.cbr.Valuta;
+import com.example.currencies.entity.cbr.Valute;
+import com.example.currencies.snapshot.RateSnapshotInstalledEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Conversions under high contention while the CBR data changes underneath them.
+ * <p>
+ * The check interval is zero, so every request finds its snapshot expired and races to refresh it,
+ * and every refresh gets a freshly built publication, as after a cache expiry. Publication
+ * {@code k} quotes USD at {@code 90 + k} and EUR at twice that: converting USD to EUR gives the
+ * same amount in every publication, and anything else means rates from two publications were mixed.
+ */
+class RateSnapshotStressTest {
+
+    private static final int Readers = 8;
+    private static final int Publications = 200;
+    private static final BigDecimal Amount = new BigDecimal("100.00");
+    private static final BigDecimal Half = new BigDecimal("50.00");
+
+    private final AtomicInteger publication = new AtomicInteger(1);
+    private final Queue<RateSnapshotInstalledEvent> installed = new ConcurrentLinkedQueue<>();
+
+    private final CBRService cbrService = new CBRService(null) {
+        @Override
+        public Optional<ValCurs> getValCurs() {
+            return Optional.of(valCurs(publication.get()));
+        }
+
+        @Override
+        public Optional<Valuta> getValuta() {
+            return Optional.of(valuta());
+        }
+    };
+    private final RateSnapshotService rateSnapshotService = new RateSnapshotService(cbrService,
+            event -> installed.add((RateSnapshotInstalledEvent) event), 0, "local");
+    private final CurrencyService currencyService = new CurrencyService(rateSnapshotService,
+            mock(CurrencyCodeRejections.class));
+
+    @Test
+    void conversionsDuringRefreshesSeeWholeSnapshots() throws Exception {
+        var rubAmounts = new TreeSet<BigDecimal>();
+        for (int k = 1; k <= Publications; k++) {
+            rubAmounts.add(Amount.multiply(usd(k)));
+        }
+
+        var executor = Executors.newFixedThreadPool(Readers + 1);
+        var start = new CountDownLatch(1);
+        var published = new AtomicBoolean();
+        List<Future<Integer>> readers = new ArrayList<>();
+        try {
+            var writer = executor.submit(() -> {
+                start.await();
+                for (int k = 2; k <= Publications; k++) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(500));
+                    publication.set(k);
+                }
+                published.set(true);
+                return null;
+            });
+            for (int i = 0; i < Readers; i++) {
+                boolean viaFuture = i % 2 == 1;
+                readers.add(executor.submit((Callable<Integer>) () -> {
+                    start.await();
+                    int conversions = 0;
+                    long lastVersion = 0;
+                    while (!published.get()) {
+                        var snapshot = rateSnapshotService.current();
+                        assertThat(snapshot.version()).isGreaterThanOrEqualTo(lastVersion);
+                        assertThat(snapshot.rates()).containsOnlyKeys("USD", "EUR", "RUB");
+                        lastVersion = snapshot.version();
+
+                        assertThat(currencyService.convertToCurrency("USD", "EUR", Amount)).isEqualByComparingTo(Half);
+                        var rub = viaFuture
+                                ? currencyService.convertBudgetToRublesFuture("USD", Amount).join()
+                                : currencyService.convertBudgetToRublesReactive("USD", Amount).block();
+                        assertThat(rubAmounts).contains(rub);
+                        conversions++;
+                    }
+                    return conversions;
+                }));
+            }
+            start.countDown();
+
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertThat(reader.get(30, TimeUnit.SECONDS)).isPositive();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var last = rateSnapshotService.current();
+        assertThat(last.date()).isEqualTo(date(Publications));
+        assertInstalledInOrder(last);
+    }
+
+    /**
+     * Every installed version follows the previous one, carries a newer publication and was
+     * announced exactly once, so no refresh overwrote a newer snapshot or got lost.
+     */
+    private void assertInstalledInOrder(RateSnapshot last) {
+        RateSnapshot previous = null;
+        for (RateSnapshotInstalledEvent event : installed) {
+            assertThat(event.previous()).isSameAs(previous);
+            if (previous != null) {
+                assertThat(event.current().version()).isEqualTo(previous.version() + 1);
+                assertThat(event.current().date()).isAfter(previous.date());
+            }
+            previous = event.current();
+        }
+        assertThat(previous).isSameAs(last);
+    }
+
+    private static BigDecimal usd(int publication) {
+        return BigDecimal.valueOf(90 + publication);
+    }
+
+    private static LocalDate date(int publication) {
+        return LocalDate.of(2024, 1, 1).plusDays(publication);
+    }
+
+    private static ValCurs valCurs(int publication) {
+        var usd = usd(publication);
+        var eur = usd.add(usd);
+        return new ValCurs(date(publication), "Foreign Currency Market", List.of(
+                new Valute("R01235", 840, "USD", 1, "Доллар США", usd, usd),
+                new Valute("R01239", 978, "EUR", 1, "Евро", eur, eur),
+                new Valute("R01235", 643, "RUB", 1, "Российский рубль", BigDecimal.ONE, BigDecimal.ONE)));
+    }
+
+    private static Valuta valuta() {
+        return new Valuta("Foreign Currency Market Lib", List.of(
+                new Item("R01235", "Доллар США", "US Dollar", 1, "R01235", 840, "USD"),
+                new Item("R01239", "Евро", "Euro", 1, "R01239", 978, "EUR"),
+                new Item("R01235", "Российский рубль", "Russian Ruble", 1, "R01235", 643, "RUB")));
+    }
+}
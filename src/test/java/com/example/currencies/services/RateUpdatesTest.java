@@ -0,0 +1,65 @@
+package com.example.currencies.services;
+
+import com.example.currencies.core.RateSnapshot;
+import com.example.currencies.dto.RateDeltaDTO;
+import com.example.currencies.dto.RateTableDTO;
+import com.example.currencies.snapshot.RateSnapshotInstalledEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RateUpdatesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final RateUpdates rateUpdates = new RateUpdates(mock(RateSnapshotService.class), objectMapper, 16,
+            new SimpleMeterRegistry());
+
+    private final RateSnapshot first = snapshot(1, Map.of("USD", new BigDecimal("96.9483"), "EUR", new BigDecimal("105.1")));
+    private final RateSnapshot second = snapshot(2, Map.of("USD", new BigDecimal("97.0001"), "EUR", new BigDecimal("105.1")));
+
+    @Test
+    void subscriberGetsTableThenDeltas() throws Exception {
+        rateUpdates.onSnapshotInstalled(new RateSnapshotInstalledEvent(null, first));
+
+        List<ServerSentEvent<String>> received = new ArrayList<>();
+        var subscription = rateUpdates.subscribe().subscribe(received::add);
+        rateUpdates.onSnapshotInstalled(new RateSnapshotInstalledEvent(first, second));
+        subscription.dispose();
+
+        assertThat(received).extracting(ServerSentEvent::event).containsExactly("rates", "delta");
+        assertThat(objectMapper.readValue(received.get(0).data(), RateTableDTO.class).rates())
+                .containsOnlyKeys("USD", "EUR");
+        var delta = objectMapper.readValue(received.get(1).data(), RateDeltaDTO.class);
+        assertThat(delta.previousVersion()).isEqualTo(1);
+        assertThat(delta.changed()).containsOnlyKeys("USD");
+        assertThat(delta.removed()).isEmpty();
+    }
+
+    @Test
+    void lateSubscriberGetsLatestTable() {
+        rateUpdates.onSnapshotInstalled(new RateSnapshotInstalledEvent(null, first));
+        rateUpdates.onSnapshotInstalled(new RateSnapshotInstalledEvent(first, second));
+
+        var event = rateUpdates.subscribe().blockFirst(Duration.ofSeconds(1));
+
+        assertThat(event.event()).isEqualTo("rates");
+        assertThat(event.id()).isEqualTo("2");
+    }
+
+    private static RateSnapshot snapshot(long version, Map<String, BigDecimal> rates) {
+        return new RateSnapshot(version, LocalDate.of(2024, 10, 10), rates, Set.of("USD", "EUR", "RUB"));
+    }
+}
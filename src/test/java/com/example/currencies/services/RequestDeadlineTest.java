@@ -0,0 +1,46 @@
+package com.example.currencies.services;
+
+import com.example.currencies.exception.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDeadlineTest {
+
+    @Test
+    void expiresAfterItsTimeout() throws InterruptedException {
+        var deadline = RequestDeadline.after(Duration.ofMillis(50));
+        assertThat(deadline.remainingNanos()).isPositive().isLessThanOrEqualTo(Duration.ofMillis(50).toNanos());
+        assertThatCode(deadline::check).doesNotThrowAnyException();
+
+        Thread.sleep(60);
+
+        assertThat(deadline.isExpired()).isTrue();
+        assertThatThrownBy(deadline::check).isInstanceOf(DeadlineExceededException.class);
+    }
+
+    @Test
+    void cancellationWinsOverTheDeadline() {
+        var deadline = RequestDeadline.after(Duration.ZERO);
+        deadline.cancel();
+
+        assertThat(deadline.isCancelled()).isTrue();
+        assertThatThrownBy(deadline::check).isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    void noDeadlineNeverExpiresButCanBeCancelled() {
+        var deadline = RequestDeadline.none();
+        assertThat(deadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+        assertThat(deadline.isExpired()).isFalse();
+
+        deadline.cancel();
+
+        assertThatThrownBy(deadline::check).isInstanceOf(CancellationException.class);
+    }
+}
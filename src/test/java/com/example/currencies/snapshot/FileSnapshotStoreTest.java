@@ -0,0 +1,50 @@
+package com.example.currencies.snapshot;
+
+import com.example.currencies.core.RateSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void publishedSnapshotIsReadByOtherReplica() {
+        var leader = new FileSnapshotStore(directory);
+        var follower = new FileSnapshotStore(directory);
+        var snapshot = new RateSnapshot(7, LocalDate.of(2024, 10, 10),
+                Map.of("USD", new BigDecimal("96.9483"), "RUB", BigDecimal.valueOf(1.0)),
+                Set.of("USD", "RUB", "XDR"));
+
+        assertThat(follower.read()).isEmpty();
+
+        leader.publish(snapshot);
+
+        assertThat(follower.read()).contains(snapshot);
+    }
+
+    @Test
+    void onlyOneNodeHoldsTheLease() throws Exception {
+        var first = new FileSnapshotStore(directory);
+        var second = new FileSnapshotStore(directory);
+
+        assertThat(first.tryAcquireLeadership("a", Duration.ofMinutes(1))).isTrue();
+        assertThat(second.tryAcquireLeadership("b", Duration.ofMinutes(1))).isFalse();
+        assertThat(first.tryAcquireLeadership("a", Duration.ofMillis(1))).isTrue();
+
+        Thread.sleep(5);
+
+        assertThat(second.tryAcquireLeadership("b", Duration.ofMinutes(1))).isTrue();
+        assertThat(first.tryAcquireLeadership("a", Duration.ofMinutes(1))).isFalse();
+    }
+}
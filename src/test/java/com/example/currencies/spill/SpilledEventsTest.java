@@ -0,0 +1,107 @@
+package com.example.currencies.spill;
+
+import com.example.currencies.entity.kudago.BudgetFilter;
+import com.example.currencies.entity.kudago.DateResponse;
+import com.example.currencies.entity.kudago.EventResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpilledEventsTest {
+
+    private static final Instant Start = Instant.parse("2024-10-10T18:00:00.250Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void budgetScanMatchesTheFilterOnEvents() throws IOException {
+        List<EventResponse> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            var price = switch (i % 4) {
+                case 0 -> "от " + i + " до " + (i * 3) + " рублей";
+                case 1 -> "";
+                case 2 -> "уточняйте у организатора";
+                default -> "99999999999999999999999 рублей";
+            };
+            events.add(event(i, price, i % 5 == 0));
+        }
+
+        var budget = new BudgetFilter(new BigDecimal("1500.99"));
+        try (var spilled = spill(events)) {
+            assertThat(spilled.size()).isEqualTo(events.size());
+            assertThat(ids(spilled.matching(budget, Integer.MAX_VALUE)))
+                    .containsExactlyElementsOf(ids(events.stream().filter(budget).toList()));
+            assertThat(ids(spilled.matching(event -> event.getId() % 7 == 0, Integer.MAX_VALUE)))
+                    .containsExactlyElementsOf(ids(events.stream().filter(event -> event.getId() % 7 == 0).toList()));
+        }
+    }
+
+    @Test
+    void decodesEveryField() throws IOException {
+        var priced = new EventResponse(7, "Концерт «Сплин»", "от 1500 до 4000 рублей", false, List.of(
+                new DateResponse(Start, Start.plusSeconds(7200)),
+                new DateResponse(Start.plusSeconds(86_400), null)), Start.getEpochSecond());
+        var free = new EventResponse(8, null, null, true, List.of(), 0);
+
+        try (var spilled = spill(List.of(priced, free))) {
+            var decoded = spilled.matching(event -> true, 10);
+
+            assertThat(decoded).hasSize(2);
+            assertThat(decoded.get(0)).usingRecursiveComparison().isEqualTo(priced);
+            assertThat(decoded.get(1)).usingRecursiveComparison().isEqualTo(free);
+        }
+    }
+
+    @Test
+    void stopsAtMaxMatches() throws IOException {
+        List<EventResponse> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            events.add(event(i, "100 рублей", false));
+        }
+
+        try (var spilled = spill(events)) {
+            assertThat(ids(spilled.matching(new BudgetFilter(new BigDecimal("100")), 3))).containsExactly(0, 1, 2);
+        }
+    }
+
+    @Test
+    void closeAndDeleteLeftoversRemoveTheFiles() throws IOException {
+        var spilled = spill(List.of(event(1, "100", false)));
+        var discarded = new EventSpillWriter(directory);
+        discarded.accept(event(2, "200", false));
+        discarded.discard();
+        spill(List.of(event(3, "300", false)));
+
+        spilled.close();
+        assertThat(Files.list(directory)).hasSize(2);
+
+        SpilledEvents.deleteLeftovers(directory);
+        assertThat(Files.list(directory)).isEmpty();
+    }
+
+    private SpilledEvents spill(List<EventResponse> events) throws IOException {
+        var writer = new EventSpillWriter(directory);
+        events.forEach(writer);
+        return writer.finish();
+    }
+
+    private static EventResponse event(int id, String price, boolean free) {
+        return new EventResponse(id, "Событие " + id, price, free,
+                List.of(new DateResponse(Start.plusSeconds(id), Start.plusSeconds(id + 3600))),
+                Start.getEpochSecond() + id);
+    }
+
+    private static List<Integer> ids(List<EventResponse> events) {
+        return events.stream().map(EventResponse::getId).toList();
+    }
+}